@@ -0,0 +1,109 @@
+package com.example.schedule.benchmarks;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.schedule.IusjScheduleServiceApplication;
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.services.ScheduleConflictIndex;
+import com.example.schedule.services.ScheduleImporter;
+
+/**
+ * Starts the schedule service on an embedded H2 database and fills it with a semester of
+ * generated sessions: each group has four 2-hour sessions per weekday, with teachers and rooms
+ * drawn from pools sized like a real institution (about 300 sessions per group, 2 groups per
+ * teacher, 2 groups per room).
+ */
+final class BenchmarkData {
+
+    static final LocalDate SEMESTER_START = LocalDate.of(2026, 9, 7);
+    static final LocalTime[] SESSION_STARTS = {
+        LocalTime.of(8, 0), LocalTime.of(10, 0), LocalTime.of(13, 0), LocalTime.of(15, 0)
+    };
+    static final int SESSIONS_PER_GROUP = 300;
+
+    private BenchmarkData() {}
+
+    static ConfigurableApplicationContext start(int entries) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(IusjScheduleServiceApplication.class)
+            .logStartupInfo(false)
+            .run();
+        context.getBean(ScheduleImporter.class).insert(generate(entries, 42));
+        context.getBean(ScheduleConflictIndex.class).load();
+        return context;
+    }
+
+    static int groups(int entries) {
+        return Math.max(1, entries / SESSIONS_PER_GROUP);
+    }
+
+    static List<ScheduleEntry> generate(int entries, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int groups = groups(entries);
+        int teachers = Math.max(1, groups / 2);
+        int rooms = Math.max(1, groups / 2);
+        List<ScheduleEntry> generated = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            int group = i % groups;
+            int session = i / groups;
+            int perWeek = 5 * SESSION_STARTS.length;
+            LocalDate day = SEMESTER_START.plusWeeks(session / perWeek).plusDays(session % perWeek / SESSION_STARTS.length);
+            LocalDateTime start = day.atTime(SESSION_STARTS[session % SESSION_STARTS.length]);
+            generated.add(entry(
+                "C" + random.nextInt(groups * 4),
+                "T" + random.nextInt(teachers),
+                "R" + random.nextInt(rooms),
+                "G" + group,
+                start,
+                start.plusHours(2)
+            ));
+        }
+        return generated;
+    }
+
+    /**
+     * Random sessions of the semester on random resources, used as conflict-check candidates.
+     */
+    static ScheduleEntry[] probes(int entries, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int groups = groups(entries);
+        int weeks = (int) Math.ceil((double) entries / groups / (5 * SESSION_STARTS.length));
+        ScheduleEntry[] probes = new ScheduleEntry[count];
+        for (int i = 0; i < count; i++) {
+            LocalDate day = SEMESTER_START.plusWeeks(random.nextInt(Math.max(1, weeks))).with(DayOfWeek.MONDAY)
+                .plusDays(random.nextInt(5));
+            LocalDateTime start = day.atTime(8, 0).plusMinutes(30L * random.nextInt(18));
+            probes[i] = entry(
+                "C0",
+                "T" + random.nextInt(Math.max(1, groups / 2)),
+                "R" + random.nextInt(Math.max(1, groups / 2)),
+                "G" + random.nextInt(groups),
+                start,
+                start.plusHours(2)
+            );
+        }
+        return probes;
+    }
+
+    private static ScheduleEntry entry(String course, String teacher, String room, String group,
+                                       LocalDateTime start, LocalDateTime end) {
+        ScheduleEntry entry = new ScheduleEntry();
+        entry.setCourseId(course);
+        entry.setTeacherId(teacher);
+        entry.setRoomId(room);
+        entry.setGroupId(group);
+        entry.setStartTime(start);
+        entry.setEndTime(end);
+        entry.setStatus(SessionStatus.SCHEDULED);
+        return entry;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.schedule.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+import com.example.schedule.services.ScheduleConflictIndex;
+import com.example.schedule.services.ScheduleSpecifications;
+
+/**
+ * Conflict check of a new session against the stored timetable, as done by
+ * {@code ScheduleService.checkConflicts}: through the in-memory interval index, and through the
+ * three overlap count queries used while the index is not loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflictCheckBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"10000", "100000"})
+    public int entries;
+
+    private ConfigurableApplicationContext context;
+    private ScheduleConflictIndex conflictIndex;
+    private ScheduleEntryRepository repository;
+    private ScheduleEntry[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(entries);
+        conflictIndex = context.getBean(ScheduleConflictIndex.class);
+        repository = context.getBean(ScheduleEntryRepository.class);
+        probes = BenchmarkData.probes(entries, PROBES, 7);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean indexed() {
+        return conflictIndex.hasConflict(nextProbe(), null);
+    }
+
+    @Benchmark
+    public long database() {
+        ScheduleEntry entry = nextProbe();
+        return repository.count(ScheduleSpecifications.overlapFor(
+                "roomId", entry.getRoomId(), entry.getStartTime(), entry.getEndTime(), null))
+            + repository.count(ScheduleSpecifications.overlapFor(
+                "teacherId", entry.getTeacherId(), entry.getStartTime(), entry.getEndTime(), null))
+            + repository.count(ScheduleSpecifications.overlapFor(
+                "groupId", entry.getGroupId(), entry.getStartTime(), entry.getEndTime(), null));
+    }
+
+    private ScheduleEntry nextProbe() {
+        ScheduleEntry probe = probes[next];
+        next = (next + 1) % PROBES;
+        return probe;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.schedule.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.services.ScheduleService;
+import com.example.schedule.services.ScheduleSpecifications;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Filtered reads of {@code GET /api/schedule}: building the criteria predicate of
+ * {@link ScheduleSpecifications#filter}, and running the whole query for one group and one week.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"10000", "100000"})
+    public int entries;
+
+    private ConfigurableApplicationContext context;
+    private ScheduleService scheduleService;
+    private EntityManager entityManager;
+    private int groups;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(entries);
+        scheduleService = context.getBean(ScheduleService.class);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        groups = BenchmarkData.groups(entries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Predicate buildPredicate() {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ScheduleEntry> query = builder.createQuery(ScheduleEntry.class);
+        Root<ScheduleEntry> root = query.from(ScheduleEntry.class);
+        LocalDateTime from = BenchmarkData.SEMESTER_START.atStartOfDay();
+        return ScheduleSpecifications.filter(
+            null, "T1", null, "G" + nextGroup(), SessionStatus.SCHEDULED, from, from.plusWeeks(1)
+        ).toPredicate(root, query, builder);
+    }
+
+    @Benchmark
+    public List<ScheduleEntry> findGroupWeek() {
+        LocalDateTime from = BenchmarkData.SEMESTER_START.atStartOfDay().plusWeeks(next % 10);
+        return scheduleService.findAll(null, null, null, "G" + nextGroup(), null, from, from.plusWeeks(1));
+    }
+
+    private int nextGroup() {
+        next = (next + 1) % groups;
+        return next;
+    }
+}
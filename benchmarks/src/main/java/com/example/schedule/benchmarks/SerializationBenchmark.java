@@ -0,0 +1,77 @@
+package com.example.schedule.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialization of a list of schedule entries with the application {@link ObjectMapper}: as one
+ * JSON array, as returned by {@code GET /api/schedule}, and as newline-delimited JSON, as written
+ * by {@code GET /api/schedule/stream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private List<ScheduleEntry> entries;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.start(size);
+        objectMapper = context.getBean(ObjectMapper.class);
+        entries = context.getBean(ScheduleEntryRepository.class)
+            .findAll(PageRequest.of(0, size, Sort.by("startTime", "id")))
+            .getContent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(entries);
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        buffer.reset();
+        for (ScheduleEntry entry : entries) {
+            buffer.write(objectMapper.writeValueAsBytes(entry));
+            buffer.write('\n');
+        }
+        return buffer.size();
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.iusj_course_service.entities.Course;
 
@@ -29,4 +30,7 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
     List<Course> findByStatus(Course.CourseStatus status);
 
     long countByStatus(Course.CourseStatus status);
+
+    @Query("select c.status, count(c) from Course c group by c.status")
+    List<Object[]> countGroupedByStatus();
 }
@@ -19,9 +19,11 @@ import jakarta.persistence.EntityNotFoundException;
 public class CourseService {
 
     private final CourseRepository courseRepository;
+    private final CourseStatsCounter statsCounter;
 
-    public CourseService(CourseRepository courseRepository) {
+    public CourseService(CourseRepository courseRepository, CourseStatsCounter statsCounter) {
         this.courseRepository = courseRepository;
+        this.statsCounter = statsCounter;
     }
 
     public List<Course> getAll(Long matiereId, Course.CourseStatus status, Course.CourseType type,
@@ -58,28 +60,33 @@ public class CourseService {
     }
 
     public Course create(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        statsCounter.created(saved.getStatus());
+        return saved;
     }
 
     public Optional<Course> update(Long id, Course course) {
         return courseRepository.findById(id).map(existing -> {
+            Course.CourseStatus before = existing.getStatus();
             course.setId(id);
-            return courseRepository.save(course);
+            Course saved = courseRepository.save(course);
+            statsCounter.changed(before, saved.getStatus());
+            return saved;
         });
     }
 
     public void delete(Long id) {
-        if (!courseRepository.existsById(id)) {
-            throw new EntityNotFoundException("Séance non trouvée avec l'id " + id);
-        }
-        courseRepository.deleteById(id);
+        Course existing = courseRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Séance non trouvée avec l'id " + id));
+        courseRepository.delete(existing);
+        statsCounter.deleted(existing.getStatus());
     }
 
     public CourseStats stats() {
-        long total = courseRepository.count();
-        long scheduled = courseRepository.countByStatus(Course.CourseStatus.SCHEDULED);
-        long completed = courseRepository.countByStatus(Course.CourseStatus.COMPLETED);
-        long cancelled = courseRepository.countByStatus(Course.CourseStatus.CANCELLED);
+        long total = statsCounter.total();
+        long scheduled = statsCounter.count(Course.CourseStatus.SCHEDULED);
+        long completed = statsCounter.count(Course.CourseStatus.COMPLETED);
+        long cancelled = statsCounter.count(Course.CourseStatus.CANCELLED);
         return new CourseStats(total, scheduled, completed, cancelled);
     }
 
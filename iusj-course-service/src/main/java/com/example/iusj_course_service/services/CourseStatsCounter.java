@@ -0,0 +1,27 @@
+package com.example.iusj_course_service.services;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.iusj_course_service.entities.Course;
+import com.example.iusj_course_service.repositories.CourseRepository;
+
+/**
+ * Nombre de cours, au total et par {@link Course.CourseStatus statut}.
+ */
+@Component
+public class CourseStatsCounter extends StatusCounter<Course.CourseStatus> {
+
+    private final CourseRepository repository;
+
+    public CourseStatsCounter(CourseRepository repository) {
+        super(Course.CourseStatus.class);
+        this.repository = repository;
+    }
+
+    @Override
+    protected List<Object[]> countGroupedByStatus() {
+        return repository.countGroupedByStatus();
+    }
+}
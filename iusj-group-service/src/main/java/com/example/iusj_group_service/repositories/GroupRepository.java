@@ -1,11 +1,17 @@
 package com.example.iusj_group_service.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.iusj_group_service.entities.Group;
 
 public interface GroupRepository extends JpaRepository<Group, Long>, JpaSpecificationExecutor<Group> {
 
 	long countByStatus(Group.Status status);
+
+	@Query("select g.status, count(g) from Group g group by g.status")
+	List<Object[]> countGroupedByStatus();
 }
@@ -14,9 +14,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class GroupService {
 
     private final GroupRepository repository;
+    private final GroupStatsCounter statsCounter;
 
-    public GroupService(GroupRepository repository) {
+    public GroupService(GroupRepository repository, GroupStatsCounter statsCounter) {
         this.repository = repository;
+        this.statsCounter = statsCounter;
     }
 
     public List<Group> getAll(String name, String level, Long schoolId, Group.Status status) {
@@ -29,24 +31,32 @@ public class GroupService {
     }
 
     public Group create(Group group) {
-        return repository.save(group);
+        Group saved = repository.save(group);
+        statsCounter.created(saved.getStatus());
+        return saved;
     }
 
     public Optional<Group> update(Long id, Group group) {
         return repository.findById(id).map(existing -> {
+            Group.Status before = existing.getStatus();
             group.setId(id);
-            return repository.save(group);
+            Group saved = repository.save(group);
+            statsCounter.changed(before, saved.getStatus());
+            return saved;
         });
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(existing -> {
+            repository.delete(existing);
+            statsCounter.deleted(existing.getStatus());
+        });
     }
 
     public GroupStats stats() {
-        long total = repository.count();
-        long active = repository.countByStatus(Group.Status.ACTIVE);
-        long inactive = repository.countByStatus(Group.Status.INACTIVE);
+        long total = statsCounter.total();
+        long active = statsCounter.count(Group.Status.ACTIVE);
+        long inactive = statsCounter.count(Group.Status.INACTIVE);
         return new GroupStats(total, active, inactive);
     }
 
@@ -0,0 +1,27 @@
+package com.example.iusj_group_service.services;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.iusj_group_service.entities.Group;
+import com.example.iusj_group_service.repositories.GroupRepository;
+
+/**
+ * Nombre de groupes, au total et par {@link Group.Status statut}.
+ */
+@Component
+public class GroupStatsCounter extends StatusCounter<Group.Status> {
+
+    private final GroupRepository repository;
+
+    public GroupStatsCounter(GroupRepository repository) {
+        super(Group.Status.class);
+        this.repository = repository;
+    }
+
+    @Override
+    protected List<Object[]> countGroupedByStatus() {
+        return repository.countGroupedByStatus();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.iusj_room_service.controller;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -18,7 +19,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.iusj_room_service.entities.Room;
+import com.example.iusj_room_service.services.RoomAssignmentService;
 import com.example.iusj_room_service.services.RoomService;
+import com.example.iusj_room_service.services.RoomUtilizationService;
 
 import jakarta.validation.Valid;
 
@@ -27,9 +30,14 @@ import jakarta.validation.Valid;
 public class RoomController {
 
     private final RoomService roomService;
+    private final RoomAssignmentService roomAssignmentService;
+    private final RoomUtilizationService roomUtilizationService;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, RoomAssignmentService roomAssignmentService,
+                          RoomUtilizationService roomUtilizationService) {
         this.roomService = roomService;
+        this.roomAssignmentService = roomAssignmentService;
+        this.roomUtilizationService = roomUtilizationService;
     }
 
     @GetMapping
@@ -79,4 +87,14 @@ public class RoomController {
                 : Collections.emptyList();
         return roomService.findAvailable(start, end, minCapacity, equipmentsList);
     }
+
+    @PostMapping("/assign")
+    public RoomAssignmentService.Result assignRooms(@RequestBody RoomAssignmentService.Request request) {
+        return roomAssignmentService.assign(request);
+    }
+
+    @GetMapping("/utilization")
+    public RoomUtilizationService.Report utilization(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return roomUtilizationService.utilization(date);
+    }
 }
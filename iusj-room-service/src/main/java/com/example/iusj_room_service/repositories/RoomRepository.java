@@ -1,9 +1,15 @@
 package com.example.iusj_room_service.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.iusj_room_service.entities.Room;
 
 public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room> {
+
+    @Query("select distinct r from Room r left join fetch r.equipments")
+    List<Room> findAllWithEquipments();
 }
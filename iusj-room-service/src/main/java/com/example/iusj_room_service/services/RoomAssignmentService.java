@@ -0,0 +1,274 @@
+package com.example.iusj_room_service.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.example.iusj_room_service.entities.Room;
+
+/**
+ * Attribution groupée des salles à une vague de séances, en gaspillant le moins de places
+ * possible.
+ *
+ * Les séances qui se chevauchent, directement ou de proche en proche, forment un créneau ; les
+ * créneaux sont indépendants et résolus en parallèle. Dans un créneau, les séances sont traitées
+ * par heure de début : celles qui commencent ensemble se partagent les salles actives, libres,
+ * assez grandes et équipées qu'aucune séance encore en cours n'occupe. Une salle n'est donc
+ * exclusive qu'entre séances qui se chevauchent directement : libérée à la fin d'une séance, elle
+ * peut recevoir la suivante. À chaque heure de début, l'attribution est un couplage biparti de
+ * coût minimal (méthode hongroise) : le coût d'un couple est le nombre de places vides, et laisser
+ * une séance sans salle coûte plus que tout le gaspillage possible. Le résultat est optimal pour
+ * chaque heure de début prise seule : le plus grand nombre de ses séances est placé, puis le
+ * gaspillage est minimal. Il ne l'est pas forcément pour le créneau entier, les heures
+ * précédentes n'étant jamais remises en cause.
+ */
+@Service
+public class RoomAssignmentService {
+
+    private static final int MAX_SESSIONS = 1000;
+
+    private final RoomService roomService;
+    private final RoomOccupancyIndex occupancyIndex;
+
+    public RoomAssignmentService(RoomService roomService, RoomOccupancyIndex occupancyIndex) {
+        this.roomService = roomService;
+        this.occupancyIndex = occupancyIndex;
+    }
+
+    /**
+     * Séance à placer ; {@code id} est libre et recopié dans la réponse.
+     */
+    public record Session(String id, LocalDateTime start, LocalDateTime end, Integer groupSize, List<String> equipments) {}
+
+    public record Request(List<Session> sessions) {}
+
+    public record Assignment(String sessionId, Long roomId, String roomName, int capacity, int waste) {}
+
+    public record Unplaced(String sessionId, String reason) {}
+
+    public record Result(List<Assignment> assignments, List<Unplaced> unplaced, long totalWaste) {}
+
+    public Result assign(Request request) {
+        if (request == null || request.sessions() == null || request.sessions().isEmpty()) {
+            throw new IllegalArgumentException("Au moins une séance est requise");
+        }
+        List<Session> sessions = request.sessions();
+        if (sessions.size() > MAX_SESSIONS) {
+            throw new IllegalArgumentException("Au plus " + MAX_SESSIONS + " séances par attribution");
+        }
+        for (int i = 0; i < sessions.size(); i++) {
+            Session session = sessions.get(i);
+            if (session == null || session.start() == null || session.end() == null || !session.end().isAfter(session.start())) {
+                throw new IllegalArgumentException("Séance " + (i + 1) + " : un intervalle avec start < end est requis");
+            }
+            if (session.groupSize() == null || session.groupSize() < 1) {
+                throw new IllegalArgumentException("Séance " + (i + 1) + " : l'effectif doit être au moins 1");
+            }
+        }
+        occupancyIndex.ensureLoaded();
+        List<Room> rooms = roomService.getAll(null, null, Room.RoomStatus.ACTIVE, null, null);
+
+        Assignment[] assignments = new Assignment[sessions.size()];
+        String[] reasons = new String[sessions.size()];
+        slots(sessions).parallelStream().forEach(slot -> solve(sessions, slot, rooms, assignments, reasons));
+
+        List<Assignment> assigned = new ArrayList<>();
+        List<Unplaced> unplaced = new ArrayList<>();
+        long totalWaste = 0;
+        for (int i = 0; i < sessions.size(); i++) {
+            if (assignments[i] != null) {
+                assigned.add(assignments[i]);
+                totalWaste += assignments[i].waste();
+            } else {
+                unplaced.add(new Unplaced(idOf(sessions, i), reasons[i]));
+            }
+        }
+        return new Result(assigned, unplaced, totalWaste);
+    }
+
+    /**
+     * Regroupe les séances qui se chevauchent de proche en proche.
+     */
+    private static List<int[]> slots(List<Session> sessions) {
+        Integer[] order = new Integer[sessions.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> sessions.get(i).start()));
+        List<int[]> slots = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        LocalDateTime reached = null;
+        for (int i : order) {
+            Session session = sessions.get(i);
+            if (reached != null && !session.start().isBefore(reached)) {
+                slots.add(current.stream().mapToInt(Integer::intValue).toArray());
+                current.clear();
+                reached = null;
+            }
+            current.add(i);
+            reached = reached == null || session.end().isAfter(reached) ? session.end() : reached;
+        }
+        slots.add(current.stream().mapToInt(Integer::intValue).toArray());
+        return slots;
+    }
+
+    /**
+     * Attribue les salles d'un créneau, heure de début par heure de début ; une salle reste
+     * occupée jusqu'à la fin de la séance qui l'a reçue.
+     */
+    private void solve(List<Session> sessions, int[] slot, List<Room> rooms,
+                       Assignment[] assignments, String[] reasons) {
+        // Les séances d'un créneau sont rangées par heure de début, voir slots
+        Map<Long, LocalDateTime> busyUntil = new HashMap<>();
+        int first = 0;
+        while (first < slot.length) {
+            LocalDateTime start = sessions.get(slot[first]).start();
+            int last = first;
+            while (last < slot.length && sessions.get(slot[last]).start().isEqual(start)) {
+                last++;
+            }
+            int[] wave = Arrays.copyOfRange(slot, first, last);
+            match(sessions, wave, rooms, busyUntil, assignments, reasons);
+            for (int session : wave) {
+                if (assignments[session] != null) {
+                    busyUntil.put(assignments[session].roomId(), sessions.get(session).end());
+                }
+            }
+            first = last;
+        }
+    }
+
+    private void match(List<Session> sessions, int[] wave, List<Room> rooms, Map<Long, LocalDateTime> busyUntil,
+                       Assignment[] assignments, String[] reasons) {
+        LocalDateTime start = sessions.get(wave[0]).start();
+        // Salles compatibles avec au moins une séance et non occupées, seules colonnes du problème
+        List<Room> columns = new ArrayList<>();
+        List<boolean[]> fits = new ArrayList<>();
+        boolean[] compatible = new boolean[wave.length];
+        long maxWaste = 0;
+        for (Room room : rooms) {
+            LocalDateTime until = busyUntil.get(room.getId());
+            boolean busy = until != null && until.isAfter(start);
+            boolean[] fit = new boolean[wave.length];
+            boolean any = false;
+            for (int s = 0; s < wave.length; s++) {
+                Session session = sessions.get(wave[s]);
+                if (fits(room, session)) {
+                    compatible[s] = true;
+                    fit[s] = !busy;
+                }
+                if (fit[s]) {
+                    any = true;
+                    maxWaste = Math.max(maxWaste, room.getCapacity() - session.groupSize());
+                }
+            }
+            if (any) {
+                columns.add(room);
+                fits.add(fit);
+            }
+        }
+
+        // Une colonne fictive par séance pour la laisser sans salle
+        int n = wave.length;
+        int m = columns.size() + n;
+        long unplacedCost = (maxWaste + 1) * n;
+        long forbidden = unplacedCost * (n + 1);
+        long[][] cost = new long[n][m];
+        for (int s = 0; s < n; s++) {
+            int groupSize = sessions.get(wave[s]).groupSize();
+            for (int r = 0; r < columns.size(); r++) {
+                cost[s][r] = fits.get(r)[s] ? columns.get(r).getCapacity() - groupSize : forbidden;
+            }
+            Arrays.fill(cost[s], columns.size(), m, unplacedCost);
+        }
+
+        int[] match = hungarian(cost, n, m);
+        for (int s = 0; s < n; s++) {
+            int session = wave[s];
+            int r = match[s];
+            if (r < columns.size()) {
+                Room room = columns.get(r);
+                int waste = room.getCapacity() - sessions.get(session).groupSize();
+                assignments[session] = new Assignment(idOf(sessions, session), room.getId(), room.getName(), room.getCapacity(), waste);
+            } else {
+                reasons[session] = compatible[s]
+                        ? "Salles compatibles déjà attribuées aux séances simultanées"
+                        : "Aucune salle active, libre, assez grande et équipée";
+            }
+        }
+    }
+
+    private boolean fits(Room room, Session session) {
+        return room.getCapacity() != null
+                && room.getCapacity() >= session.groupSize()
+                && (session.equipments() == null || room.getEquipments() != null && room.getEquipments().containsAll(session.equipments()))
+                && occupancyIndex.isFree(room, session.start(), session.end());
+    }
+
+    /**
+     * Couplage de coût minimal des {@code n} lignes sur {@code m >= n} colonnes, par la méthode
+     * hongroise avec potentiels, en O(n²m). Renvoie la colonne de chaque ligne.
+     */
+    private static int[] hungarian(long[][] cost, int n, int m) {
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            long[] minv = new long[m + 1];
+            Arrays.fill(minv, Long.MAX_VALUE);
+            boolean[] used = new boolean[m + 1];
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                long delta = Long.MAX_VALUE;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        long cur = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        int[] match = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                match[p[j] - 1] = j - 1;
+            }
+        }
+        return match;
+    }
+
+    private static String idOf(List<Session> sessions, int index) {
+        String id = sessions.get(index).id();
+        return id != null ? id : String.valueOf(index + 1);
+    }
+}
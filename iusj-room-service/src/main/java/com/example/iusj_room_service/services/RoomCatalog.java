@@ -0,0 +1,327 @@
+package com.example.iusj_room_service.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.example.iusj_room_service.entities.Room;
+import com.example.iusj_room_service.repositories.RoomRepository;
+
+/**
+ * Copie en mémoire des salles, avec un index inversé pour les filtres de recherche.
+ *
+ * Chaque salle reçoit un numéro d'ordre (réutilisé après une suppression). Pour chaque
+ * équipement, chaque type et chaque statut, un {@link BitSet} marque les salles concernées :
+ * un filtre sur plusieurs équipements devient un ET de bitmaps, au lieu d'une sous-requête
+ * {@code member of} par équipement.
+ *
+ * Les deux autres filtres, qu'aucun index de la base ne sert, ont aussi le leur :
+ * - la capacité : les bitmaps sont rangés par capacité, une capacité minimale est l'union de
+ *   ceux de la fin de l'intervalle ;
+ * - le nom : chaque trigramme du nom et du lieu (en minuscules) a son bitmap. Les salles qui
+ *   contiennent tous les trigrammes du texte cherché sont les seules candidates, la sous-chaîne
+ *   n'est vérifiée que sur elles. Un texte de moins de trois caractères est cherché directement.
+ *
+ * La base reste la référence. Le catalogue est chargé au démarrage puis tenu à jour par {@link RoomService} après chaque
+ * création, modification ou suppression validée. Tant qu'il n'est pas chargé,
+ * {@link #isReady()} est faux et les recherches passent par la base.
+ */
+@Component
+public class RoomCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomCatalog.class);
+
+    private static final int GRAM = 3;
+
+    private static final Comparator<Room> ORDER = Comparator.comparing(Room::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final RoomRepository roomRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Room> rooms = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> byEquipment = new HashMap<>();
+    private final Map<Room.RoomType, BitSet> byType = new EnumMap<>(Room.RoomType.class);
+    private final Map<Room.RoomStatus, BitSet> byStatus = new EnumMap<>(Room.RoomStatus.class);
+    private final NavigableMap<Integer, BitSet> byCapacity = new TreeMap<>();
+    private final Map<String, BitSet> byTrigram = new HashMap<>();
+    private volatile boolean ready;
+
+    public RoomCatalog(RoomRepository roomRepository) {
+        this.roomRepository = roomRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // Verrou tenu pendant la lecture : les écritures validées entre-temps s'appliquent après
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            rooms.clear();
+            ordinals.clear();
+            freeOrdinals.clear();
+            live.clear();
+            byEquipment.clear();
+            byType.clear();
+            byStatus.clear();
+            byCapacity.clear();
+            byTrigram.clear();
+            roomRepository.findAllWithEquipments().forEach(room -> putUnlocked(copyOf(room)));
+            ready = true;
+            logger.info("Catalogue des salles chargé : {} salles, {} équipements", ordinals.size(), byEquipment.size());
+        } catch (RuntimeException e) {
+            logger.warn("Catalogue des salles non chargé, recherches en base : {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Salle d'identifiant donné, copie propre au catalogue à ne pas modifier.
+     */
+    public Optional<Room> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            return ordinal != null ? Optional.of(rooms.get(ordinal)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Salles répondant aux mêmes filtres que {@link RoomSpecifications#withFilters}, triées par
+     * nom. Les salles renvoyées sont des copies propres au catalogue, à ne pas modifier.
+     */
+    public List<Room> find(String name, Room.RoomType type, Room.RoomStatus status, Integer minCapacity, List<String> equipments) {
+        String pattern = StringUtils.hasText(name) ? name.toLowerCase(Locale.ROOT) : null;
+        List<Room> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet matching = (BitSet) live.clone();
+            if (type != null) {
+                matching.and(byType.getOrDefault(type, new BitSet()));
+            }
+            if (status != null) {
+                matching.and(byStatus.getOrDefault(status, new BitSet()));
+            }
+            if (!CollectionUtils.isEmpty(equipments)) {
+                for (String equipment : equipments) {
+                    BitSet rows = byEquipment.get(equipment);
+                    if (rows == null) {
+                        return result;
+                    }
+                    matching.and(rows);
+                }
+            }
+            if (minCapacity != null) {
+                BitSet large = new BitSet();
+                byCapacity.tailMap(minCapacity, true).values().forEach(large::or);
+                matching.and(large);
+            }
+            if (pattern != null) {
+                for (String trigram : trigrams(pattern)) {
+                    BitSet rows = byTrigram.get(trigram);
+                    if (rows == null) {
+                        return result;
+                    }
+                    matching.and(rows);
+                }
+            }
+            for (int ordinal = matching.nextSetBit(0); ordinal >= 0; ordinal = matching.nextSetBit(ordinal + 1)) {
+                Room room = rooms.get(ordinal);
+                if (pattern == null || contains(room.getName(), pattern) || contains(room.getLocation(), pattern)) {
+                    result.add(room);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(ORDER);
+        return result;
+    }
+
+    /**
+     * Enregistre l'état d'une salle, une fois la transaction en cours validée.
+     */
+    public void put(Room room) {
+        Room copy = copyOf(room);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(copy.getId());
+                putUnlocked(copy);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retire une salle, une fois la transaction en cours validée.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void putUnlocked(Room room) {
+        if (room.getId() == null) {
+            return;
+        }
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = rooms.size();
+            rooms.add(room);
+        } else {
+            ordinal = freeOrdinals.pop();
+            rooms.set(ordinal, room);
+        }
+        ordinals.put(room.getId(), ordinal);
+        live.set(ordinal);
+        if (room.getType() != null) {
+            byType.computeIfAbsent(room.getType(), t -> new BitSet()).set(ordinal);
+        }
+        if (room.getStatus() != null) {
+            byStatus.computeIfAbsent(room.getStatus(), s -> new BitSet()).set(ordinal);
+        }
+        if (room.getCapacity() != null) {
+            byCapacity.computeIfAbsent(room.getCapacity(), c -> new BitSet()).set(ordinal);
+        }
+        for (String trigram : trigrams(room)) {
+            byTrigram.computeIfAbsent(trigram, t -> new BitSet()).set(ordinal);
+        }
+        if (room.getEquipments() != null) {
+            for (String equipment : room.getEquipments()) {
+                byEquipment.computeIfAbsent(equipment, e -> new BitSet()).set(ordinal);
+            }
+        }
+    }
+
+    private void removeUnlocked(Long id) {
+        Integer ordinal = id != null ? ordinals.remove(id) : null;
+        if (ordinal == null) {
+            return;
+        }
+        Room room = rooms.set(ordinal, null);
+        live.clear(ordinal);
+        if (room.getType() != null) {
+            byType.get(room.getType()).clear(ordinal);
+        }
+        if (room.getStatus() != null) {
+            byStatus.get(room.getStatus()).clear(ordinal);
+        }
+        if (room.getCapacity() != null) {
+            clear(byCapacity, room.getCapacity(), ordinal);
+        }
+        if (room.getEquipments() != null) {
+            for (String equipment : room.getEquipments()) {
+                clear(byEquipment, equipment, ordinal);
+            }
+        }
+        for (String trigram : trigrams(room)) {
+            clear(byTrigram, trigram, ordinal);
+        }
+        freeOrdinals.push(ordinal);
+    }
+
+    private static <K> void clear(Map<K, BitSet> index, K key, int ordinal) {
+        BitSet rows = index.get(key);
+        if (rows != null) {
+            rows.clear(ordinal);
+            if (rows.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> trigrams(Room room) {
+        Set<String> trigrams = new HashSet<>();
+        if (room.getName() != null) {
+            trigrams.addAll(trigrams(room.getName().toLowerCase(Locale.ROOT)));
+        }
+        if (room.getLocation() != null) {
+            trigrams.addAll(trigrams(room.getLocation().toLowerCase(Locale.ROOT)));
+        }
+        return trigrams;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+
+    private static boolean contains(String value, String pattern) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(pattern);
+    }
+
+    private static Room copyOf(Room room) {
+        return new Room(
+                room.getId(),
+                room.getName(),
+                room.getCapacity(),
+                room.getType(),
+                room.getStatus(),
+                room.getLocation(),
+                room.getDescription(),
+                room.getEquipments() != null ? room.getEquipments().stream().filter(Objects::nonNull).toList() : List.of()
+        );
+    }
+
+    /**
+     * Applique la modification après la validation de la transaction en cours, ou tout de suite
+     * s'il n'y en a pas.
+     */
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.iusj_room_service.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.iusj_room_service.entities.Room;
+
+/**
+ * Index local des créneaux occupés de chaque salle, pour trouver les salles libres sans
+ * interroger les autres services à chaque recherche.
+ *
+ * Deux sources l'alimentent :
+ * - les séances du service de planning, chargées une première fois puis tenues à jour en
+ *   suivant son flux de modifications (/api/schedule/changes) ; les occurrences des règles
+ *   récurrentes, qui ne sont pas stockées comme séances, sont chargées pour les
+ *   {@code ruleDays} jours à venir, remplacées à chaque modification d'une règle signalée par le
+ *   flux, et rechargées régulièrement pour suivre l'avancée de cette période ;
+ * - les cours du service des cours, qui n'a pas de flux : les cours de la période à venir sont
+ *   rechargés régulièrement et remplacent ceux connus.
+ *
+ * Les séances annulées et les cours annulés ou reportés ne bloquent pas la salle. Les créneaux
+ * d'une salle sont triés par début, et aucun ne dure plus que {@code maxDuration} : un test de
+ * chevauchement ne parcourt donc que les créneaux qui commencent dans cette marge.
+ */
+@Component
+public class RoomOccupancyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomOccupancyIndex.class);
+
+    private static final String SCHEDULE_PREFIX = "seance-";
+    private static final String RULE_PREFIX = "regle-";
+    private static final String COURSE_PREFIX = "cours-";
+    private static final int FEED_LIMIT = 5000;
+    private static final Comparator<Booking> ORDER =
+            Comparator.comparing(Booking::start).thenComparing(Booking::id);
+
+    private final RestTemplate restTemplate;
+    private final String scheduleUrl;
+    private final String courseUrl;
+    private final int courseDays;
+    private final int ruleDays;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Booking> bookings = new HashMap<>();
+    private final Map<String, NavigableSet<Booking>> byRoom = new HashMap<>();
+    private Duration maxDuration = Duration.ZERO;
+
+    // Position dans le flux du planning, -1 tant que les séances n'ont pas été chargées
+    private volatile long scheduleSeq = -1;
+    private volatile boolean coursesLoaded;
+
+    /**
+     * Créneau occupé d'une salle ; {@code room} est l'identifiant ou le nom de la salle.
+     */
+    record Booking(String id, String room, LocalDateTime start, LocalDateTime end) {}
+
+    // Vues partielles des réponses des autres services
+    // Les listes du planning incluent les occurrences des règles, sans id mais avec ruleId et occurrenceDate
+    record ScheduleEntryView(Long id, String roomId, LocalDateTime startTime, LocalDateTime endTime, String status,
+                             Long ruleId, LocalDate occurrenceDate) {}
+
+    record OccurrenceView(Long ruleId, LocalDate date, String roomId, LocalDateTime start, LocalDateTime end) {}
+
+    record ChangeView(long seq, String type, Long entryId, ScheduleEntryView entry, Long ruleId, List<OccurrenceView> occurrences) {}
+
+    record FeedView(long since, long next, boolean hasMore, boolean resync, List<ChangeView> changes) {}
+
+    record PositionView(long next) {}
+
+    record CourseView(Long id, Long roomId, LocalDate date, LocalTime startTime, LocalTime endTime, String status) {}
+
+    public RoomOccupancyIndex(RestTemplate restTemplate,
+                              @Value("${rooms.occupancy.schedule-url:http://iusj-schedule-service}") String scheduleUrl,
+                              @Value("${rooms.occupancy.course-url:http://iusj-course-service}") String courseUrl,
+                              @Value("${rooms.occupancy.course-days:180}") int courseDays,
+                              @Value("${rooms.occupancy.rule-days:180}") int ruleDays) {
+        this.restTemplate = restTemplate;
+        this.scheduleUrl = scheduleUrl;
+        this.courseUrl = courseUrl;
+        this.courseDays = courseDays;
+        this.ruleDays = ruleDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        pollSchedule();
+        refreshCourses();
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.occupancy.schedule-poll-ms:5000}",
+            initialDelayString = "${rooms.occupancy.schedule-poll-ms:5000}")
+    public void pollSchedule() {
+        try {
+            syncSchedule();
+        } catch (RestClientException e) {
+            logger.warn("Séances du planning non synchronisées : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.occupancy.course-refresh-ms:60000}",
+            initialDelayString = "${rooms.occupancy.course-refresh-ms:60000}")
+    public void refreshCourses() {
+        try {
+            syncCourses();
+        } catch (RestClientException e) {
+            logger.warn("Cours non synchronisés : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.occupancy.rule-refresh-ms:3600000}",
+            initialDelayString = "${rooms.occupancy.rule-refresh-ms:3600000}")
+    public void refreshRules() {
+        if (scheduleSeq < 0) {
+            return;
+        }
+        try {
+            syncRules();
+        } catch (RestClientException e) {
+            logger.warn("Occurrences des règles non synchronisées : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Vrai si aucun créneau connu de la salle, par identifiant ou par nom, ne chevauche
+     * {@code [start, end)}.
+     */
+    public boolean isFree(Room room, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return isFree(String.valueOf(room.getId()), start, end)
+                    && (room.getName() == null || isFree(room.getName(), start, end));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Synchronise les sources qui ne l'ont encore jamais été ; échoue si l'une d'elles reste
+     * injoignable, l'occupation des salles étant alors inconnue.
+     */
+    public void ensureLoaded() {
+        if (scheduleSeq < 0) {
+            try {
+                syncSchedule();
+            } catch (RestClientException e) {
+                throw new IllegalStateException("Occupation des salles inconnue : service de planning injoignable", e);
+            }
+        }
+        if (!coursesLoaded) {
+            try {
+                syncCourses();
+            } catch (RestClientException e) {
+                throw new IllegalStateException("Occupation des salles inconnue : service des cours injoignable", e);
+            }
+        }
+    }
+
+    private synchronized void syncSchedule() {
+        if (scheduleSeq < 0) {
+            // Position actuelle du flux d'abord : les modifications faites pendant le chargement
+            // seront relues ensuite, ce qui est sans effet pour celles déjà chargées
+            PositionView position = restTemplate.getForObject(
+                    scheduleUrl + "/api/schedule/changes/position", PositionView.class);
+            ScheduleEntryView[] entries = restTemplate.getForObject(
+                    scheduleUrl + "/api/schedule?startFrom={from}", ScheduleEntryView[].class,
+                    LocalDate.now().minusDays(1).atStartOfDay().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            List<Booking> loaded = new ArrayList<>();
+            for (ScheduleEntryView entry : entries != null ? entries : new ScheduleEntryView[0]) {
+                // Les occurrences des règles sont chargées par syncRules, pour la période suivie
+                Booking booking = entry.ruleId() == null ? booking(entry) : null;
+                if (booking != null) {
+                    loaded.add(booking);
+                }
+            }
+            replace(SCHEDULE_PREFIX, loaded);
+            syncRules();
+            scheduleSeq = position.next();
+            logger.info("{} séances du planning chargées dans l'index d'occupation", loaded.size());
+        }
+        while (true) {
+            FeedView feed = restTemplate.getForObject(
+                    scheduleUrl + "/api/schedule/changes?since={since}&limit={limit}", FeedView.class, scheduleSeq, FEED_LIMIT);
+            if (feed.resync()) {
+                logger.info("Flux du planning à reprendre depuis le début, rechargement des séances");
+                scheduleSeq = -1;
+                syncSchedule();
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                for (ChangeView change : feed.changes()) {
+                    if (change.ruleId() != null) {
+                        replaceRuleUnlocked(change.ruleId(), change.occurrences());
+                        continue;
+                    }
+                    removeUnlocked(SCHEDULE_PREFIX + change.entryId());
+                    Booking booking = change.entry() != null ? booking(change.entry()) : null;
+                    if (booking != null) {
+                        addUnlocked(booking);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            scheduleSeq = feed.next();
+            if (!feed.hasMore()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Recharge les occurrences des règles de la veille aux {@code ruleDays} jours à venir.
+     */
+    private synchronized void syncRules() {
+        LocalDateTime from = LocalDate.now().minusDays(1).atStartOfDay();
+        OccurrenceView[] occurrences = restTemplate.getForObject(
+                scheduleUrl + "/api/schedule/rules/occurrences?from={from}&to={to}", OccurrenceView[].class,
+                from.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                from.plusDays(ruleDays).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        List<Booking> loaded = new ArrayList<>();
+        for (OccurrenceView occurrence : occurrences != null ? occurrences : new OccurrenceView[0]) {
+            Booking booking = booking(occurrence);
+            if (booking != null) {
+                loaded.add(booking);
+            }
+        }
+        replace(RULE_PREFIX, loaded);
+    }
+
+    private synchronized void syncCourses() {
+        LocalDate today = LocalDate.now();
+        CourseView[] courses = restTemplate.getForObject(
+                courseUrl + "/api/courses/date-range?startDate={from}&endDate={to}", CourseView[].class,
+                today.minusDays(1), today.plusDays(courseDays));
+        List<Booking> loaded = new ArrayList<>();
+        for (CourseView course : courses != null ? courses : new CourseView[0]) {
+            Booking booking = booking(course);
+            if (booking != null) {
+                loaded.add(booking);
+            }
+        }
+        replace(COURSE_PREFIX, loaded);
+        coursesLoaded = true;
+    }
+
+    /**
+     * Remplace les créneaux d'une source, et oublie au passage ceux terminés depuis plus d'un jour.
+     */
+    private void replace(String prefix, List<Booking> loaded) {
+        LocalDateTime expired = LocalDateTime.now().minusDays(1);
+        lock.writeLock().lock();
+        try {
+            List<String> stale = new ArrayList<>();
+            for (Booking booking : bookings.values()) {
+                if (booking.id().startsWith(prefix) || booking.end().isBefore(expired)) {
+                    stale.add(booking.id());
+                }
+            }
+            stale.forEach(this::removeUnlocked);
+            loaded.forEach(this::addUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace les occurrences connues d'une règle par celles du flux, limitées à la période
+     * chargée ; une règle supprimée n'en a plus.
+     */
+    private void replaceRuleUnlocked(Long ruleId, List<OccurrenceView> occurrences) {
+        String prefix = RULE_PREFIX + ruleId + "-";
+        List<String> stale = new ArrayList<>();
+        for (String id : bookings.keySet()) {
+            if (id.startsWith(prefix)) {
+                stale.add(id);
+            }
+        }
+        stale.forEach(this::removeUnlocked);
+        LocalDateTime horizon = LocalDate.now().minusDays(1).atStartOfDay().plusDays(ruleDays);
+        for (OccurrenceView occurrence : occurrences != null ? occurrences : List.<OccurrenceView>of()) {
+            Booking booking = booking(occurrence);
+            if (booking != null && booking.start().isBefore(horizon)
+                    && booking.end().isAfter(LocalDateTime.now().minusDays(1))) {
+                addUnlocked(booking);
+            }
+        }
+    }
+
+    private boolean isFree(String room, LocalDateTime start, LocalDateTime end) {
+        NavigableSet<Booking> slots = byRoom.get(room);
+        if (slots == null) {
+            return true;
+        }
+        Booking from = new Booking("", room, start.minus(maxDuration), start);
+        Booking to = new Booking("", room, end, end);
+        for (Booking booking : slots.subSet(from, true, to, false)) {
+            if (booking.end().isAfter(start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addUnlocked(Booking booking) {
+        bookings.put(booking.id(), booking);
+        byRoom.computeIfAbsent(booking.room(), r -> new TreeSet<>(ORDER)).add(booking);
+        Duration duration = Duration.between(booking.start(), booking.end());
+        if (duration.compareTo(maxDuration) > 0) {
+            maxDuration = duration;
+        }
+    }
+
+    private void removeUnlocked(String id) {
+        Booking booking = bookings.remove(id);
+        if (booking == null) {
+            return;
+        }
+        NavigableSet<Booking> slots = byRoom.get(booking.room());
+        slots.remove(booking);
+        if (slots.isEmpty()) {
+            byRoom.remove(booking.room());
+        }
+    }
+
+    /**
+     * Créneau occupé par une séance ou une occurrence de règle du planning, ou null si elle ne
+     * bloque pas de salle.
+     */
+    static Booking booking(ScheduleEntryView entry) {
+        if (entry.roomId() == null || entry.startTime() == null || entry.endTime() == null
+                || "CANCELLED".equals(entry.status()) || !entry.endTime().isAfter(entry.startTime())) {
+            return null;
+        }
+        if (entry.id() != null) {
+            return new Booking(SCHEDULE_PREFIX + entry.id(), entry.roomId(), entry.startTime(), entry.endTime());
+        }
+        if (entry.ruleId() != null && entry.occurrenceDate() != null) {
+            return new Booking(RULE_PREFIX + entry.ruleId() + "-" + entry.occurrenceDate(), entry.roomId(),
+                    entry.startTime(), entry.endTime());
+        }
+        return null;
+    }
+
+    /**
+     * Créneau occupé par une occurrence de règle, ou null si elle ne bloque pas de salle.
+     */
+    static Booking booking(OccurrenceView occurrence) {
+        if (occurrence.ruleId() == null || occurrence.date() == null || occurrence.roomId() == null
+                || occurrence.start() == null || occurrence.end() == null || !occurrence.end().isAfter(occurrence.start())) {
+            return null;
+        }
+        return new Booking(RULE_PREFIX + occurrence.ruleId() + "-" + occurrence.date(), occurrence.roomId(),
+                occurrence.start(), occurrence.end());
+    }
+
+    /**
+     * Créneau occupé par un cours, ou null s'il ne bloque pas de salle.
+     */
+    static Booking booking(CourseView course) {
+        if (course.roomId() == null || course.date() == null || course.startTime() == null || course.endTime() == null
+                || "CANCELLED".equals(course.status()) || "POSTPONED".equals(course.status())) {
+            return null;
+        }
+        LocalDateTime start = course.date().atTime(course.startTime());
+        LocalDateTime end = course.date().atTime(course.endTime());
+        if (!end.isAfter(start)) {
+            return null;
+        }
+        return new Booking(COURSE_PREFIX + course.id(), String.valueOf(course.roomId()), start, end);
+    }
+}
@@ -7,9 +7,11 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.iusj_room_service.entities.Room;
 import com.example.iusj_room_service.repositories.RoomRepository;
@@ -17,46 +19,74 @@ import com.example.iusj_room_service.repositories.RoomRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
-@Transactional
 public class RoomService {
 
     private final RoomRepository roomRepository;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final RoomCatalog catalog;
 
-    public RoomService(RoomRepository roomRepository) {
+    public RoomService(RoomRepository roomRepository, RoomOccupancyIndex occupancyIndex, RoomCatalog catalog) {
         this.roomRepository = roomRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.catalog = catalog;
     }
 
+    @Transactional(readOnly = true)
     public List<Room> getAll(String name, Room.RoomType type, Room.RoomStatus status, Integer minCapacity, List<String> equipments) {
+        if (catalog.isReady()) {
+            return catalog.find(name, type, status, minCapacity, equipments);
+        }
         Specification<Room> spec = RoomSpecifications.withFilters(name, type, status, minCapacity, equipments);
         return roomRepository.findAll(spec, Sort.by(Sort.Direction.ASC, "name"));
     }
 
+    @Transactional(readOnly = true)
     public Optional<Room> getById(Long id) {
+        if (catalog.isReady()) {
+            return catalog.findById(id);
+        }
         return roomRepository.findById(id);
     }
 
+    @Transactional
     public Room create(Room room) {
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        catalog.put(saved);
+        return saved;
     }
 
+    @Transactional
     public Optional<Room> update(Long id, Room room) {
         return roomRepository.findById(id).map(existing -> {
             room.setId(id);
-            return roomRepository.save(room);
+            Room saved = roomRepository.save(room);
+            catalog.put(saved);
+            return saved;
         });
     }
 
+    @Transactional
     public void delete(Long id) {
         if (!roomRepository.existsById(id)) {
             throw new EntityNotFoundException("Room not found with id " + id);
         }
         roomRepository.deleteById(id);
+        catalog.remove(id);
     }
 
+    /**
+     * Salles actives répondant aux critères et libres sur tout l'intervalle {@code [start, end)},
+     * d'après l'index d'occupation local. Sans transaction : l'index peut devoir interroger les
+     * autres services avant de répondre, ce qui ne doit pas retenir de connexion à la base.
+     */
     public List<Room> findAvailable(LocalDateTime start, LocalDateTime end, Integer minCapacity, List<String> equipments) {
-        // En attendant l'intégration du service de planning, on renvoie les salles actives filtrées
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Un intervalle avec start < end est requis");
+        }
+        occupancyIndex.ensureLoaded();
         List<String> eq = CollectionUtils.isEmpty(equipments) ? Collections.emptyList() : equipments;
-        Specification<Room> spec = RoomSpecifications.withFilters(null, null, Room.RoomStatus.ACTIVE, minCapacity, eq);
-        return roomRepository.findAll(spec, Sort.by(Sort.Direction.ASC, "name"));
+        List<Room> candidates = getAll(null, null, Room.RoomStatus.ACTIVE, minCapacity, eq);
+        candidates.removeIf(room -> !occupancyIndex.isFree(room, start, end));
+        return candidates;
     }
 }
@@ -0,0 +1,309 @@
+package com.example.iusj_room_service.services;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.iusj_room_service.entities.Room;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Taux d'occupation des salles sur un semestre : par salle, par type de salle et par heure de la
+ * semaine, avec la liste des salles actives les moins occupées.
+ *
+ * Les séances du planning (flux /api/schedule/stream, occurrences des règles comprises) et les
+ * cours du semestre sont lus au fil de l'eau, un créneau à la fois, sans jamais être gardés ; ceux
+ * qui ne bloquent pas de salle (annulés, sans salle ou sans durée) sont comptés à part. Chaque créneau est marqué, au quart
+ * d'heure près, dans le bitmap de sa salle, de taille fixe pour le semestre : les créneaux qui se
+ * recouvrent, par exemple un cours et la séance correspondante, ne comptent qu'une fois. Les
+ * histogrammes sont ensuite des tableaux de compteurs remplis en un passage sur les bitmaps.
+ *
+ * Seules les heures d'ouverture sont comptées. Un rapport est gardé en cache par semestre :
+ * définitivement pour un semestre terminé, {@code rooms.analytics.cache-ttl-ms} sinon.
+ */
+@Service
+public class RoomUtilizationService {
+
+    private static final int QUARTER_MINUTES = 15;
+    private static final int QUARTERS_PER_HOUR = 60 / QUARTER_MINUTES;
+    private static final int QUARTERS_PER_DAY = 24 * QUARTERS_PER_HOUR;
+
+    private final RoomService roomService;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final String scheduleUrl;
+    private final String courseUrl;
+    private final int dayStart;
+    private final int dayEnd;
+    private final Set<DayOfWeek> openDays;
+    private final double underusedRate;
+    private final long cacheTtlMs;
+
+    private final Map<LocalDate, Report> cache = new ConcurrentHashMap<>();
+
+    public record RoomUsage(Long roomId, String name, Room.RoomType type, Room.RoomStatus status, long bookedMinutes, double occupancyRate) {}
+
+    public record TypeUsage(Room.RoomType type, int rooms, long bookedMinutes, double occupancyRate) {}
+
+    public record HourUsage(DayOfWeek day, int hour, long bookedMinutes, double occupancyRate) {}
+
+    public record Report(LocalDate semesterStart, LocalDate semesterEnd, LocalDateTime computedAt,
+                         long openMinutesPerRoom, long bookings, long unknownRoomBookings, long ignoredEntries, double occupancyRate,
+                         List<RoomUsage> rooms, List<TypeUsage> types, List<HourUsage> hours, List<RoomUsage> underused) {}
+
+    public RoomUtilizationService(RoomService roomService,
+                                  RestTemplate restTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${rooms.occupancy.schedule-url:http://iusj-schedule-service}") String scheduleUrl,
+                                  @Value("${rooms.occupancy.course-url:http://iusj-course-service}") String courseUrl,
+                                  @Value("${rooms.analytics.day-start:8}") int dayStart,
+                                  @Value("${rooms.analytics.day-end:20}") int dayEnd,
+                                  @Value("${rooms.analytics.open-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY}") String openDays,
+                                  @Value("${rooms.analytics.underused-rate:0.25}") double underusedRate,
+                                  @Value("${rooms.analytics.cache-ttl-ms:600000}") long cacheTtlMs) {
+        if (dayStart < 0 || dayEnd > 24 || dayStart >= dayEnd) {
+            throw new IllegalArgumentException("Heures d'ouverture invalides : " + dayStart + "h-" + dayEnd + "h");
+        }
+        this.roomService = roomService;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.scheduleUrl = scheduleUrl;
+        this.courseUrl = courseUrl;
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+        this.openDays = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : openDays.split(",")) {
+            this.openDays.add(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+        }
+        this.underusedRate = underusedRate;
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    /**
+     * Rapport du semestre contenant {@code date} : septembre à janvier, puis février à août.
+     */
+    public Report utilization(LocalDate date) {
+        LocalDate start = semesterStart(date != null ? date : LocalDate.now());
+        Report cached = cache.get(start);
+        if (cached != null && (!cached.computedAt().toLocalDate().isBefore(cached.semesterEnd())
+                || Duration.between(cached.computedAt(), LocalDateTime.now()).toMillis() < cacheTtlMs)) {
+            return cached;
+        }
+        Report report = compute(start, nextSemester(start));
+        cache.put(start, report);
+        return report;
+    }
+
+    private Report compute(LocalDate start, LocalDate end) {
+        LocalDateTime computedAt = LocalDateTime.now();
+        List<Room> rooms = roomService.getAll(null, null, null, null, null);
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            ordinals.put(String.valueOf(room.getId()), i);
+            if (room.getName() != null) {
+                ordinals.putIfAbsent(room.getName(), i);
+            }
+        }
+
+        int days = (int) Duration.between(start.atStartOfDay(), end.atStartOfDay()).toDays();
+        int quarters = days * QUARTERS_PER_DAY;
+        LocalDateTime origin = start.atStartOfDay();
+        BitSet[] booked = new BitSet[rooms.size()];
+        Arrays.setAll(booked, i -> new BitSet(quarters));
+        long[] counts = new long[3];
+
+        // Reçoit null pour une séance ou un cours qui ne bloque pas de salle
+        Consumer<RoomOccupancyIndex.Booking> mark = booking -> {
+            if (booking == null) {
+                counts[2]++;
+                return;
+            }
+            Integer ordinal = ordinals.get(booking.room());
+            if (ordinal == null) {
+                counts[1]++;
+                return;
+            }
+            counts[0]++;
+            int from = quarterOf(origin, booking.start(), quarters);
+            int to = quarterOf(origin, booking.end(), quarters);
+            if (from < to) {
+                booked[ordinal].set(from, to);
+            }
+        };
+        try {
+            streamSchedule(start, end, mark);
+            streamCourses(start, end.minusDays(1), mark);
+        } catch (RestClientException e) {
+            throw new IllegalStateException("Occupation des salles inconnue : " + e.getMessage(), e);
+        }
+
+        // Quarts d'heure d'ouverture du semestre, et nombre d'occurrences de chaque heure de la semaine
+        BitSet open = new BitSet(quarters);
+        int[] hourOccurrences = new int[7 * 24];
+        DayOfWeek[] dayOfWeek = new DayOfWeek[days];
+        for (int day = 0; day < days; day++) {
+            dayOfWeek[day] = start.plusDays(day).getDayOfWeek();
+            if (openDays.contains(dayOfWeek[day])) {
+                open.set(day * QUARTERS_PER_DAY + dayStart * QUARTERS_PER_HOUR, day * QUARTERS_PER_DAY + dayEnd * QUARTERS_PER_HOUR);
+                for (int hour = dayStart; hour < dayEnd; hour++) {
+                    hourOccurrences[hourOfWeek(dayOfWeek[day], hour)]++;
+                }
+            }
+        }
+        long openQuarters = open.cardinality();
+
+        long[] byRoom = new long[rooms.size()];
+        long[] byType = new long[Room.RoomType.values().length + 1];
+        int[] roomsByType = new int[byType.length];
+        long[] byHour = new long[7 * 24];
+        for (int i = 0; i < rooms.size(); i++) {
+            BitSet quartersBooked = booked[i];
+            quartersBooked.and(open);
+            byRoom[i] = quartersBooked.cardinality();
+            int type = typeIndex(rooms.get(i).getType());
+            byType[type] += byRoom[i];
+            roomsByType[type]++;
+            for (int q = quartersBooked.nextSetBit(0); q >= 0; q = quartersBooked.nextSetBit(q + 1)) {
+                byHour[hourOfWeek(dayOfWeek[q / QUARTERS_PER_DAY], (q % QUARTERS_PER_DAY) / QUARTERS_PER_HOUR)]++;
+            }
+        }
+
+        List<RoomUsage> roomUsages = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            roomUsages.add(new RoomUsage(room.getId(), room.getName(), room.getType(), room.getStatus(),
+                    byRoom[i] * QUARTER_MINUTES, rate(byRoom[i], openQuarters)));
+            total += byRoom[i];
+        }
+        List<TypeUsage> typeUsages = new ArrayList<>();
+        for (int type = 0; type < byType.length; type++) {
+            if (roomsByType[type] > 0) {
+                typeUsages.add(new TypeUsage(type < Room.RoomType.values().length ? Room.RoomType.values()[type] : null,
+                        roomsByType[type], byType[type] * QUARTER_MINUTES, rate(byType[type], openQuarters * roomsByType[type])));
+            }
+        }
+        List<HourUsage> hourUsages = new ArrayList<>();
+        for (DayOfWeek day : openDays) {
+            for (int hour = dayStart; hour < dayEnd; hour++) {
+                int slot = hourOfWeek(day, hour);
+                hourUsages.add(new HourUsage(day, hour, byHour[slot] * QUARTER_MINUTES,
+                        rate(byHour[slot], (long) hourOccurrences[slot] * QUARTERS_PER_HOUR * rooms.size())));
+            }
+        }
+        List<RoomUsage> underused = roomUsages.stream()
+                .filter(usage -> usage.status() == Room.RoomStatus.ACTIVE && usage.occupancyRate() < underusedRate)
+                .sorted(Comparator.comparingDouble(RoomUsage::occupancyRate))
+                .toList();
+
+        return new Report(start, end, computedAt, openQuarters * QUARTER_MINUTES, counts[0], counts[1], counts[2],
+                rate(total, openQuarters * rooms.size()), roomUsages, typeUsages, hourUsages, underused);
+    }
+
+    /**
+     * Lit le flux NDJSON des séances du semestre, une ligne à la fois.
+     */
+    private void streamSchedule(LocalDate start, LocalDate end, Consumer<RoomOccupancyIndex.Booking> action) {
+        restTemplate.execute(
+                scheduleUrl + "/api/schedule/stream?startFrom={from}&endTo={to}",
+                HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.isBlank()) {
+                                action.accept(RoomOccupancyIndex.booking(objectMapper.readValue(line, RoomOccupancyIndex.ScheduleEntryView.class)));
+                            }
+                        }
+                    }
+                    return null;
+                },
+                start.atStartOfDay(), end.atStartOfDay());
+    }
+
+    /**
+     * Lit le tableau JSON des cours du semestre élément par élément.
+     */
+    private void streamCourses(LocalDate start, LocalDate last, Consumer<RoomOccupancyIndex.Booking> action) {
+        restTemplate.execute(
+                courseUrl + "/api/courses/date-range?startDate={from}&endDate={to}",
+                HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                response -> {
+                    try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                            return null;
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            action.accept(RoomOccupancyIndex.booking(objectMapper.readValue(parser, RoomOccupancyIndex.CourseView.class)));
+                        }
+                    }
+                    return null;
+                },
+                start, last);
+    }
+
+    /**
+     * Quart d'heure le plus proche de {@code time}, borné au semestre.
+     */
+    private static int quarterOf(LocalDateTime origin, LocalDateTime time, int quarters) {
+        long minutes = Duration.between(origin, time).toMinutes();
+        long quarter = Math.floorDiv(minutes + QUARTER_MINUTES / 2, QUARTER_MINUTES);
+        return (int) Math.max(0, Math.min(quarters, quarter));
+    }
+
+    private static int hourOfWeek(DayOfWeek day, int hour) {
+        return (day.getValue() - 1) * 24 + hour;
+    }
+
+    private static int typeIndex(Room.RoomType type) {
+        return type != null ? type.ordinal() : Room.RoomType.values().length;
+    }
+
+    private static double rate(long booked, long available) {
+        return available > 0 ? (double) booked / available : 0;
+    }
+
+    private static LocalDate semesterStart(LocalDate date) {
+        if (date.getMonthValue() >= 9) {
+            return LocalDate.of(date.getYear(), 9, 1);
+        }
+        if (date.getMonthValue() >= 2) {
+            return LocalDate.of(date.getYear(), 2, 1);
+        }
+        return LocalDate.of(date.getYear() - 1, 9, 1);
+    }
+
+    private static LocalDate nextSemester(LocalDate semesterStart) {
+        return semesterStart.getMonthValue() == 9
+                ? LocalDate.of(semesterStart.getYear() + 1, 2, 1)
+                : LocalDate.of(semesterStart.getYear(), 9, 1);
+    }
+}
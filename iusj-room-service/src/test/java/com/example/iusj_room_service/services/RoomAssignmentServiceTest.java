@@ -0,0 +1,90 @@
+package com.example.iusj_room_service.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.iusj_room_service.entities.Room;
+
+class RoomAssignmentServiceTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2024, 9, 2, 9, 0);
+
+    @Test
+    void simultaneousSessionsGetTheLeastWastefulRooms() {
+        // Optimum vérifié à la main : 25 -> 30, 35 -> 40, 50 -> 60, soit 5 + 5 + 10 places vides
+        RoomAssignmentService service = service(room(1L, 100), room(2L, 30), room(3L, 60), room(4L, 40));
+
+        RoomAssignmentService.Result result = service.assign(new RoomAssignmentService.Request(List.of(
+                session("a", NINE, 60, 25),
+                session("b", NINE, 60, 50),
+                session("c", NINE, 60, 35))));
+
+        assertThat(roomsBySession(result)).containsExactlyInAnyOrderEntriesOf(Map.of("a", 2L, "b", 3L, "c", 4L));
+        assertThat(result.unplaced()).isEmpty();
+        assertThat(result.totalWaste()).isEqualTo(20);
+    }
+
+    @Test
+    void placingEverySessionComesBeforeWaste() {
+        // La salle de 35 places gaspille moins pour « a », mais « b » ne tient que dans celle-ci
+        RoomAssignmentService service = service(room(1L, 35), room(2L, 80));
+
+        RoomAssignmentService.Result result = service.assign(new RoomAssignmentService.Request(List.of(
+                session("a", NINE, 60, 30),
+                new RoomAssignmentService.Session("b", NINE, NINE.plusHours(1), 20, List.of("projecteur")))));
+
+        assertThat(roomsBySession(result)).containsExactlyInAnyOrderEntriesOf(Map.of("a", 2L, "b", 1L));
+        assertThat(result.totalWaste()).isEqualTo(50 + 15);
+    }
+
+    @Test
+    void roomIsFreedAtTheEndOfItsSession() {
+        RoomAssignmentService service = service(room(1L, 30));
+
+        RoomAssignmentService.Result result = service.assign(new RoomAssignmentService.Request(List.of(
+                session("a", NINE, 60, 20),
+                session("b", NINE.plusMinutes(30), 60, 20),
+                session("c", NINE.plusHours(1), 60, 20))));
+
+        assertThat(roomsBySession(result)).containsExactlyInAnyOrderEntriesOf(Map.of("a", 1L, "c", 1L));
+        assertThat(result.unplaced()).singleElement().satisfies(unplaced -> {
+            assertThat(unplaced.sessionId()).isEqualTo("b");
+            assertThat(unplaced.reason()).isEqualTo("Salles compatibles déjà attribuées aux séances simultanées");
+        });
+    }
+
+    private static Map<String, Long> roomsBySession(RoomAssignmentService.Result result) {
+        return result.assignments().stream()
+                .collect(Collectors.toMap(RoomAssignmentService.Assignment::sessionId, RoomAssignmentService.Assignment::roomId));
+    }
+
+    private static RoomAssignmentService service(Room... rooms) {
+        RoomService roomService = mock(RoomService.class);
+        when(roomService.getAll(null, null, Room.RoomStatus.ACTIVE, null, null)).thenReturn(List.of(rooms));
+        RoomOccupancyIndex occupancyIndex = mock(RoomOccupancyIndex.class);
+        when(occupancyIndex.isFree(any(), any(), any())).thenReturn(true);
+        return new RoomAssignmentService(roomService, occupancyIndex);
+    }
+
+    private static Room room(Long id, int capacity) {
+        Room room = new Room();
+        room.setId(id);
+        room.setName("Salle " + id);
+        room.setCapacity(capacity);
+        room.setEquipments(id == 1L ? List.of("projecteur") : List.of());
+        return room;
+    }
+
+    private static RoomAssignmentService.Session session(String id, LocalDateTime start, int minutes, int groupSize) {
+        return new RoomAssignmentService.Session(id, start, start.plusMinutes(minutes), groupSize, null);
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.schedule.controllers;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,12 +25,27 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import com.example.schedule.entities.RuleException;
 import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.ScheduleRule;
 import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.services.CalendarFeedVersions;
+import com.example.schedule.services.FreeSlotFinder;
+import com.example.schedule.services.Recurrence;
+import com.example.schedule.services.ScheduleArchive;
+import com.example.schedule.services.ScheduleChangeLog;
 import com.example.schedule.services.ScheduleService;
+import com.example.schedule.services.ScheduleSimulator;
+import com.example.schedule.services.TimetableGenerator;
+import com.example.schedule.services.TimetableOptimizer;
+import com.example.schedule.services.TimetableRepairer;
+import com.example.schedule.services.TimetableView;
+import com.example.schedule.services.WeeklyTimetableCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -33,7 +58,64 @@ public class ScheduleController {
     private final ScheduleService scheduleService;
 
     @GetMapping
-    public List<ScheduleEntry> getAll(
+    public ResponseEntity<List<ScheduleEntry>> getAll(
+        @RequestParam(required = false) String courseId,
+        @RequestParam(required = false) String teacherId,
+        @RequestParam(required = false) String roomId,
+        @RequestParam(required = false) String groupId,
+        @RequestParam(required = false) SessionStatus status,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTo,
+        WebRequest request
+    ) {
+        String etag = scheduleService.listEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(scheduleService.findAll(courseId, teacherId, roomId, groupId, status, startFrom, endTo));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ScheduleService.CursorPage> getPage(
+        @RequestParam(required = false) String courseId,
+        @RequestParam(required = false) String teacherId,
+        @RequestParam(required = false) String roomId,
+        @RequestParam(required = false) String groupId,
+        @RequestParam(required = false) SessionStatus status,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTo,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        WebRequest request
+    ) {
+        String etag = scheduleService.listEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(scheduleService.findPage(courseId, teacherId, roomId, groupId, status, startFrom, endTo, cursor, limit));
+    }
+
+    @GetMapping("/changes")
+    public ScheduleChangeLog.Feed getChanges(
+        @RequestParam(defaultValue = "0") long since,
+        @RequestParam(required = false) Integer limit
+    ) {
+        return scheduleService.changesSince(since, limit);
+    }
+
+    @GetMapping("/changes/position")
+    public ScheduleChangeLog.Position getChangesPosition() {
+        return scheduleService.changesPosition();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(
         @RequestParam(required = false) String courseId,
         @RequestParam(required = false) String teacherId,
         @RequestParam(required = false) String roomId,
@@ -42,7 +124,134 @@ public class ScheduleController {
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTo
     ) {
-        return scheduleService.findAll(courseId, teacherId, roomId, groupId, status, startFrom, endTo);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(scheduleService.streamAll(courseId, teacherId, roomId, groupId, status, startFrom, endTo));
+    }
+
+    @GetMapping("/week")
+    public List<ScheduleEntry> getWeek(
+        @RequestParam TimetableView type,
+        @RequestParam String id,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return scheduleService.findWeek(type, id, date != null ? date : LocalDate.now());
+    }
+
+    @GetMapping("/week/cache-stats")
+    public WeeklyTimetableCache.Stats getWeekCacheStats() {
+        return scheduleService.weekCacheStats();
+    }
+
+    @GetMapping(value = "/ics/{type}/{id}", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> getCalendarFeed(
+        @PathVariable String type,
+        @PathVariable String id,
+        WebRequest request
+    ) {
+        TimetableView view = viewOf(type);
+        if (view == null) {
+            return ResponseEntity.notFound().build();
+        }
+        CalendarFeedVersions.Validators validators = scheduleService.calendarFeedValidators(view, id);
+        // Also sets the ETag and Last-Modified headers of the response
+        if (request.checkNotModified(validators.etag(), validators.lastModified().toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+            .cacheControl(CacheControl.noCache())
+            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + view.fileNameOf(id) + ".ics")
+            .body(scheduleService.calendarFeed(view, id, validators));
+    }
+
+    @GetMapping("/free-slots")
+    public List<FreeSlotFinder.Slot> getFreeSlots(
+        @RequestParam String teacherId,
+        @RequestParam String groupId,
+        @RequestParam(required = false) String roomId,
+        @RequestParam Integer durationMinutes,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime dayStart,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime dayEnd,
+        @RequestParam(required = false) Integer slotMinutes,
+        @RequestParam(required = false) Integer limit
+    ) {
+        return scheduleService.findFreeSlots(new FreeSlotFinder.Request(
+            teacherId, groupId, roomId, durationMinutes, from, to, dayStart, dayEnd, slotMinutes, limit
+        ));
+    }
+
+    @GetMapping("/rules")
+    public List<ScheduleRule> getRules() {
+        return scheduleService.findRules();
+    }
+
+    @GetMapping("/rules/occurrences")
+    public List<Recurrence.Occurrence> getOccurrences(
+        @RequestParam(required = false) String teacherId,
+        @RequestParam(required = false) String roomId,
+        @RequestParam(required = false) String groupId,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return scheduleService.findOccurrences(teacherId, roomId, groupId, from, to);
+    }
+
+    @GetMapping("/rules/{id}")
+    public ResponseEntity<ScheduleRule> getRule(@PathVariable Long id) {
+        ScheduleRule rule = scheduleService.findRule(id);
+        if (rule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rule);
+    }
+
+    @PostMapping("/rules")
+    public ScheduleRule createRule(@RequestBody ScheduleRule rule) {
+        return scheduleService.createRule(rule);
+    }
+
+    @PutMapping("/rules/{id}")
+    public ResponseEntity<ScheduleRule> updateRule(@PathVariable Long id, @RequestBody ScheduleRule rule) {
+        ScheduleRule updated;
+        try {
+            updated = scheduleService.updateRule(id, rule);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (updated == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(updated);
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
+        scheduleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/rules/{id}/exceptions")
+    public ResponseEntity<ScheduleRule> putRuleException(@PathVariable Long id, @RequestBody RuleException exception) {
+        ScheduleRule rule = scheduleService.putRuleException(id, exception);
+        if (rule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rule);
+    }
+
+    @DeleteMapping("/rules/{id}/exceptions/{date}")
+    public ResponseEntity<ScheduleRule> deleteRuleException(
+        @PathVariable Long id,
+        @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        ScheduleRule rule = scheduleService.deleteRuleException(id, date);
+        if (rule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rule);
     }
 
     @GetMapping("/{id}")
@@ -61,26 +270,108 @@ public class ScheduleController {
 
     @PutMapping("/{id}")
     public ResponseEntity<ScheduleEntry> update(@PathVariable Long id, @RequestBody ScheduleEntry entry) {
-        ScheduleEntry updated = scheduleService.update(id, entry);
+        ScheduleEntry updated;
+        try {
+            updated = scheduleService.update(id, entry);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         if (updated == null) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(updated);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ScheduleService.ImportResult bulkImport(
+        @RequestBody List<ScheduleEntry> entries,
+        @RequestParam(defaultValue = "false") boolean dryRun
+    ) {
+        return scheduleService.bulkImport(entries, dryRun);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ScheduleService.ImportResult bulkImportCsv(
+        InputStream body,
+        @RequestParam(defaultValue = "false") boolean dryRun
+    ) {
+        return scheduleService.bulkImportCsv(body, dryRun);
+    }
+
     @PostMapping("/generate")
-    public ResponseEntity<?> generateAuto() {
-        return ResponseEntity.ok(scheduleService.generateAuto());
+    public ResponseEntity<?> generateAuto(@RequestBody TimetableGenerator.Request request) {
+        return ResponseEntity.ok(scheduleService.generateAuto(request));
+    }
+
+    @PostMapping("/optimize")
+    public ScheduleService.OptimizationResult optimize(@RequestBody TimetableOptimizer.Request request) {
+        return scheduleService.optimize(request);
+    }
+
+    @PostMapping("/repair")
+    public ScheduleService.RepairResult repair(@RequestBody TimetableRepairer.Request request) {
+        return scheduleService.repair(request);
+    }
+
+    @PostMapping("/simulate")
+    public ScheduleService.SimulationResult simulate(@RequestBody ScheduleSimulator.Request request) {
+        return scheduleService.simulate(request);
+    }
+
+    @PostMapping("/archive")
+    public ScheduleService.ArchiveResult archive(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before
+    ) {
+        return scheduleService.archive(before);
+    }
+
+    @GetMapping("/archive/segments")
+    public List<ScheduleArchive.Segment> archiveSegments() {
+        return scheduleService.archiveSegments();
     }
 
+    @GetMapping(value = "/export/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPdf(
+        @RequestParam TimetableView type,
+        @RequestParam String id,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return scheduleService.exportPdf(type, id, from, to);
+    }
+
+    @GetMapping(value = "/export/excel", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    public ResponseEntity<StreamingResponseBody> exportExcel(
+        @RequestParam(required = false) TimetableView type,
+        @RequestParam(required = false) String id,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return scheduleService.exportExcel(type, id, from, to);
+    }
+
+    /**
+     * Former per-entry exports, kept for existing clients: the timetable of the group of the entry
+     * for the week of the entry.
+     */
     @GetMapping(value = "/{id}/export/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> exportPdf(@PathVariable Long id) {
-        return scheduleService.exportPdfStub(id);
+    public ResponseEntity<StreamingResponseBody> exportEntryPdf(@PathVariable Long id) {
+        ScheduleEntry entry = scheduleService.findById(id);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate monday = entry.getStartTime().toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return exportPdf(TimetableView.GROUP, entry.getGroupId(), monday, monday.plusDays(6));
     }
 
     @GetMapping(value = "/{id}/export/excel", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-    public ResponseEntity<byte[]> exportExcel(@PathVariable Long id) {
-        return scheduleService.exportExcelStub(id);
+    public ResponseEntity<StreamingResponseBody> exportEntryExcel(@PathVariable Long id) {
+        ScheduleEntry entry = scheduleService.findById(id);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate monday = entry.getStartTime().toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return exportExcel(TimetableView.GROUP, entry.getGroupId(), monday, monday.plusDays(6));
     }
 
     @DeleteMapping("/{id}")
@@ -93,4 +384,16 @@ public class ScheduleController {
     public com.example.schedule.services.ScheduleService.ScheduleStats stats() {
         return scheduleService.stats();
     }
+
+    /**
+     * Timetable type named in a path, case-insensitively, or null if there is none.
+     */
+    private static TimetableView viewOf(String type) {
+        for (TimetableView view : TimetableView.values()) {
+            if (view.name().equalsIgnoreCase(type)) {
+                return view;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.schedule.entities;
+
+public enum ChangeType {
+    INSERT,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,37 @@
+package com.example.schedule.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Exception to one occurrence of a {@link ScheduleRule}, identified by the date the occurrence
+ * would normally start on: the occurrence is either cancelled or moved to another time and
+ * optionally another room.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleException {
+
+    @NotNull
+    @Column(nullable = false)
+    private LocalDate occurrenceDate;
+
+    private boolean cancelled;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private String roomId;
+}
@@ -0,0 +1,62 @@
+package com.example.schedule.entities;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One write to a schedule entry or, with {@code ruleId} set instead of {@code entryId}, to a
+ * recurrence rule, numbered by a sequence that grows with every write. Changes are only ever
+ * inserted, so they are always new for Spring Data despite their assigned id.
+ */
+@Entity
+@Table(name = "schedule_changes")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ScheduleChange implements Persistable<Long> {
+
+    @Id
+    private Long seq;
+
+    private Long entryId;
+
+    private Long ruleId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ChangeType type;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+    public ScheduleChange(Long seq, Long entryId, Long ruleId, ChangeType type, LocalDateTime changedAt) {
+        this.seq = seq;
+        this.entryId = entryId;
+        this.ruleId = ruleId;
+        this.type = type;
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public Long getId() {
+        return seq;
+    }
+
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
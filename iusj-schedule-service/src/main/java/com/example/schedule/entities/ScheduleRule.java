@@ -0,0 +1,69 @@
+package com.example.schedule.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Weekly recurring session: one occurrence every {@code intervalWeeks} weeks from
+ * {@code firstStart} until {@code lastDate}, each lasting {@code durationMinutes}, except for
+ * the occurrences listed in {@code exceptions}.
+ */
+@Entity
+@Table(name = "schedule_rules")
+@Getter
+@Setter
+public class ScheduleRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String courseId;
+
+    @NotBlank
+    private String teacherId;
+
+    @NotBlank
+    private String roomId;
+
+    @NotBlank
+    private String groupId;
+
+    @NotNull
+    private LocalDateTime firstStart;
+
+    @NotNull
+    private Integer durationMinutes;
+
+    private Integer intervalWeeks = 1;
+
+    @NotNull
+    private LocalDate lastDate;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "schedule_rule_exceptions", joinColumns = @JoinColumn(name = "rule_id"))
+    private List<RuleException> exceptions = new ArrayList<>();
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+}
@@ -0,0 +1,32 @@
+package com.example.schedule.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.schedule.entities.ScheduleChange;
+
+public interface ScheduleChangeRepository extends JpaRepository<ScheduleChange, Long> {
+
+	@Query("select max(c.seq) from ScheduleChange c")
+	Long findMaxSeq();
+
+	@Query("select min(c.seq) from ScheduleChange c")
+	Long findMinSeq();
+
+	@Query("select max(c.seq) from ScheduleChange c where c.changedAt < :before")
+	Long findMaxSeqBefore(@Param("before") LocalDateTime before);
+
+	List<ScheduleChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(long since, long until, Pageable pageable);
+
+	@Modifying
+	@Transactional
+	@Query("delete from ScheduleChange c where c.seq <= :seq")
+	int deleteThrough(@Param("seq") long seq);
+}
@@ -1,12 +1,60 @@
 package com.example.schedule.repositories;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.schedule.entities.ScheduleEntry;
 import com.example.schedule.entities.SessionStatus;
 
-public interface ScheduleEntryRepository extends JpaRepository<ScheduleEntry, Long>, JpaSpecificationExecutor<ScheduleEntry> {
+import jakarta.persistence.QueryHint;
+
+public interface ScheduleEntryRepository extends JpaRepository<ScheduleEntry, Long>, JpaSpecificationExecutor<ScheduleEntry>,
+		ScheduleEntryRepositoryCustom {
 
 	long countByStatus(SessionStatus status);
+
+	@Query("select e.status, count(e) from ScheduleEntry e group by e.status")
+	List<Object[]> countGroupedByStatus();
+
+	/**
+	 * Streams the entries overlapping {@code [from, to)}, optionally restricted to a teacher, room
+	 * or group, in start order. MySQL only streams rows instead of buffering the whole result set
+	 * with a fetch size of {@link Integer#MIN_VALUE}; the stream must be consumed inside a
+	 * transaction and closed.
+	 */
+	default Stream<ScheduleEntry> streamOverlapping(LocalDateTime from, LocalDateTime to,
+			String teacherId, String roomId, String groupId) {
+		return streamOverlapping(from.minus(ScheduleEntry.MAX_DURATION), from, to, teacherId, roomId, groupId);
+	}
+
+	/**
+	 * Same as {@link #streamOverlapping(LocalDateTime, LocalDateTime, String, String, String)} with
+	 * an explicit lower bound on the start time, which lets MySQL prune older partitions.
+	 */
+	@Query("select e from ScheduleEntry e where e.startTime < :to and e.startTime > :earliestStart and e.endTime > :from"
+		+ " and (:teacherId is null or e.teacherId = :teacherId)"
+		+ " and (:roomId is null or e.roomId = :roomId)"
+		+ " and (:groupId is null or e.groupId = :groupId)"
+		+ " order by e.startTime, e.id")
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+		@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+	})
+	Stream<ScheduleEntry> streamOverlapping(
+		@Param("earliestStart") LocalDateTime earliestStart,
+		@Param("from") LocalDateTime from,
+		@Param("to") LocalDateTime to,
+		@Param("teacherId") String teacherId,
+		@Param("roomId") String roomId,
+		@Param("groupId") String groupId
+	);
 }
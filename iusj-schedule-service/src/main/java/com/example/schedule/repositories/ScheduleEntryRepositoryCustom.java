@@ -0,0 +1,19 @@
+package com.example.schedule.repositories;
+
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.schedule.entities.ScheduleEntry;
+
+public interface ScheduleEntryRepositoryCustom {
+
+	/**
+	 * Streams the entries matching {@code spec} with a read-only query. Rows are streamed by the
+	 * driver rather than buffered and each entity is detached before it is handed out, so the
+	 * persistence context does not grow with the result. Must be consumed inside a transaction
+	 * and closed.
+	 */
+	Stream<ScheduleEntry> streamAll(Specification<ScheduleEntry> spec, Sort sort);
+}
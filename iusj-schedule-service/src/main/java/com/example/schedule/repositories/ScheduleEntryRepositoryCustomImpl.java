@@ -0,0 +1,40 @@
+package com.example.schedule.repositories;
+
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class ScheduleEntryRepositoryCustomImpl implements ScheduleEntryRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Stream<ScheduleEntry> streamAll(Specification<ScheduleEntry> spec, Sort sort) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ScheduleEntry> query = builder.createQuery(ScheduleEntry.class);
+		Root<ScheduleEntry> root = query.from(ScheduleEntry.class);
+		Predicate predicate = spec != null ? spec.toPredicate(root, query, builder) : null;
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(QueryUtils.toOrders(sort, root, builder));
+		return entityManager.createQuery(query)
+			.setHint(HibernateHints.HINT_FETCH_SIZE, Integer.MIN_VALUE)
+			.setHint(HibernateHints.HINT_READ_ONLY, true)
+			.getResultStream()
+			.peek(entityManager::detach);
+	}
+}
@@ -0,0 +1,8 @@
+package com.example.schedule.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.schedule.entities.ScheduleRule;
+
+public interface ScheduleRuleRepository extends JpaRepository<ScheduleRule, Long> {
+}
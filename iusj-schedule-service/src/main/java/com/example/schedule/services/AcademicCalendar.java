@@ -0,0 +1,37 @@
+package com.example.schedule.services;
+
+import java.time.LocalDate;
+
+/**
+ * Semesters of the academic year: September to January, then February to August.
+ */
+final class AcademicCalendar {
+
+    private AcademicCalendar() {}
+
+    /**
+     * Start of the semester holding {@code date}: the previous or same February 1st or September 1st.
+     */
+    static LocalDate semesterStart(LocalDate date) {
+        if (date.getMonthValue() >= 9) {
+            return LocalDate.of(date.getYear(), 9, 1);
+        }
+        if (date.getMonthValue() >= 2) {
+            return LocalDate.of(date.getYear(), 2, 1);
+        }
+        return LocalDate.of(date.getYear() - 1, 9, 1);
+    }
+
+    /**
+     * Start of the semester after the one holding {@code date}.
+     */
+    static LocalDate nextSemester(LocalDate date) {
+        if (date.getMonthValue() < 2) {
+            return LocalDate.of(date.getYear(), 2, 1);
+        }
+        if (date.getMonthValue() < 9) {
+            return LocalDate.of(date.getYear(), 9, 1);
+        }
+        return LocalDate.of(date.getYear() + 1, 2, 1);
+    }
+}
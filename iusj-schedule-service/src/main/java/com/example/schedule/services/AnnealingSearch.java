@@ -0,0 +1,309 @@
+package com.example.schedule.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel simulated annealing over a timetable laid out on a slot grid.
+ *
+ * Sessions keep their day; a move shifts a session within its day or puts it in another
+ * candidate room, and is only considered when the teacher, group and room are free. The cost is
+ * the soft objective {@code gapWeight * idle slots between the sessions of a group in a day +
+ * roomChangeWeight * room changes between consecutive sessions of a group in a day}. Only the
+ * group-day touched by a move is re-evaluated.
+ *
+ * Several independent searches run on a fork-join pool, each from its own seed, until a shared
+ * deadline; the best solution found by any of them is returned.
+ */
+public final class AnnealingSearch {
+
+    public record Weights(int gap, int roomChange) {}
+
+    public record Score(long cost, int gaps, int roomChanges) {}
+
+    public record Result(int[] start, int[] room, Score initial, Score best, long seed, long iterations) {}
+
+    private final int slotsPerDay;
+    private final int words;
+    private final int teachers;
+    private final int groups;
+    private final int rooms;
+
+    private final List<int[]> sessions = new ArrayList<>();
+    private final List<int[]> candidateRooms = new ArrayList<>();
+
+    private boolean[] movable;
+    private int[][] groupDays;
+    private int[] groupDayOf;
+
+    public AnnealingSearch(int days, int slotsPerDay, int teachers, int groups, int rooms) {
+        this.slotsPerDay = slotsPerDay;
+        this.words = SlotBits.words(days * slotsPerDay);
+        this.teachers = teachers;
+        this.groups = groups;
+        this.rooms = rooms;
+    }
+
+    /**
+     * Adds a session occupying {@code [start, start + length)}. Sessions that cannot move (already
+     * held, not aligned on the grid...) are added with {@code movable = false}; they still occupy
+     * their resources and count in the cost of their group.
+     */
+    public int addSession(int teacher, int group, int room, int start, int length, int[] candidates, boolean movable) {
+        sessions.add(new int[] {teacher, group, room, start, length, movable ? 1 : 0});
+        candidateRooms.add(candidates != null ? candidates : new int[0]);
+        return sessions.size() - 1;
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public Result optimize(ForkJoinPool pool, int threads, long budgetMillis, long seed, Weights weights) {
+        prepare();
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int[] initialStart = sessions.stream().mapToInt(s -> s[3]).toArray();
+        int[] initialRoom = sessions.stream().mapToInt(s -> s[2]).toArray();
+        Score initial = new Search(initialStart, initialRoom, weights, seed).score();
+
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long taskSeed = seed + t * 0x9E3779B97F4A7C15L;
+            tasks.add(pool.submit(() -> new Search(initialStart.clone(), initialRoom.clone(), weights, taskSeed).run(deadline, initial)));
+        }
+        return tasks.stream()
+            .map(ForkJoinTask::join)
+            .min(Comparator.comparingLong((Result r) -> r.best().cost()).thenComparingLong(Result::seed))
+            .orElse(new Result(initialStart, initialRoom, initial, initial, seed, 0));
+    }
+
+    /**
+     * Marks sessions overlapping another session on the same resource as fixed, so that moving a
+     * session never releases slots held by someone else, and indexes sessions by group-day.
+     */
+    private void prepare() {
+        int n = sessions.size();
+        movable = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            movable[i] = sessions.get(i)[5] == 1;
+        }
+        for (int column = 0; column < 3; column++) {
+            int resource = column;
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt((Integer i) -> sessions.get(i)[resource])
+                .thenComparingInt(i -> sessions.get(i)[3]));
+            int runEnd = -1;
+            int runOwner = -1;
+            int previous = -1;
+            for (int i : order) {
+                int[] s = sessions.get(i);
+                if (previous < 0 || sessions.get(previous)[resource] != s[resource]) {
+                    runEnd = -1;
+                    runOwner = -1;
+                }
+                if (s[3] < runEnd) {
+                    movable[i] = false;
+                    movable[runOwner] = false;
+                }
+                if (s[3] + s[4] > runEnd) {
+                    runEnd = s[3] + s[4];
+                    runOwner = i;
+                }
+                previous = i;
+            }
+        }
+
+        Map<Long, List<Integer>> byGroupDay = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int[] s = sessions.get(i);
+            long key = (long) s[1] * Integer.MAX_VALUE + s[3] / slotsPerDay;
+            byGroupDay.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        groupDays = new int[byGroupDay.size()][];
+        groupDayOf = new int[n];
+        int index = 0;
+        for (List<Integer> members : byGroupDay.values()) {
+            groupDays[index] = members.stream().mapToInt(Integer::intValue).toArray();
+            for (int member : members) {
+                groupDayOf[member] = index;
+            }
+            index++;
+        }
+    }
+
+    private final class Search {
+        final int[] start;
+        final int[] room;
+        final Weights weights;
+        final long seed;
+        final SplittableRandom random;
+        final long[][] teacherBusy = new long[teachers][words];
+        final long[][] groupBusy = new long[groups][words];
+        final long[][] roomBusy = new long[rooms][words];
+        final long[] groupDayCost;
+        final int[] movableSessions;
+        long cost;
+
+        Search(int[] start, int[] room, Weights weights, long seed) {
+            this.start = start;
+            this.room = room;
+            this.weights = weights;
+            this.seed = seed;
+            this.random = new SplittableRandom(seed);
+            for (int i = 0; i < start.length; i++) {
+                occupy(i, true);
+            }
+            groupDayCost = new long[groupDays.length];
+            for (int gd = 0; gd < groupDays.length; gd++) {
+                groupDayCost[gd] = evaluate(gd)[0];
+                cost += groupDayCost[gd];
+            }
+            int count = 0;
+            int[] candidates = new int[start.length];
+            for (int i = 0; i < start.length; i++) {
+                if (movable[i]) {
+                    candidates[count++] = i;
+                }
+            }
+            movableSessions = Arrays.copyOf(candidates, count);
+        }
+
+        Result run(long deadline, Score initial) {
+            int[] bestStart = start.clone();
+            int[] bestRoom = room.clone();
+            long bestCost = cost;
+            long iterations = 0;
+            if (movableSessions.length > 0) {
+                long begin = System.nanoTime();
+                double span = Math.max(1, deadline - begin);
+                double initialTemperature = 2.0 * Math.max(1, Math.max(weights.gap(), weights.roomChange()));
+                double temperature = initialTemperature;
+                while (true) {
+                    if ((iterations & 1023) == 0) {
+                        long now = System.nanoTime();
+                        if (now >= deadline) {
+                            break;
+                        }
+                        // Geometric cooling down to 0.5% of the initial temperature at the deadline
+                        temperature = initialTemperature * Math.pow(0.005, (now - begin) / span);
+                    }
+                    iterations++;
+                    step(temperature);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        System.arraycopy(start, 0, bestStart, 0, start.length);
+                        System.arraycopy(room, 0, bestRoom, 0, room.length);
+                    }
+                }
+            }
+            Search best = new Search(bestStart, bestRoom, weights, seed);
+            return new Result(bestStart, bestRoom, initial, best.score(), seed, iterations);
+        }
+
+        Score score() {
+            long gaps = 0;
+            long changes = 0;
+            for (int gd = 0; gd < groupDays.length; gd++) {
+                long[] value = evaluate(gd);
+                gaps += value[1];
+                changes += value[2];
+            }
+            return new Score(cost, (int) gaps, (int) changes);
+        }
+
+        void step(double temperature) {
+            int i = movableSessions[random.nextInt(movableSessions.length)];
+            int[] session = sessions.get(i);
+            int length = session[4];
+            int dayBase = start[i] / slotsPerDay * slotsPerDay;
+            int[] candidates = candidateRooms.get(i);
+            int newStart = start[i];
+            int newRoom = room[i];
+            if (candidates.length == 0 || random.nextInt(3) != 0) {
+                newStart = dayBase + random.nextInt(slotsPerDay - length + 1);
+            } else {
+                newRoom = candidates[random.nextInt(candidates.length)];
+            }
+            if (newStart == start[i] && newRoom == room[i]) {
+                return;
+            }
+            int oldStart = start[i];
+            int oldRoom = room[i];
+            occupy(i, false);
+            if (SlotBits.anyInRange(teacherBusy[session[0]], newStart, newStart + length)
+                || SlotBits.anyInRange(groupBusy[session[1]], newStart, newStart + length)
+                || SlotBits.anyInRange(roomBusy[newRoom], newStart, newStart + length)) {
+                occupy(i, true);
+                return;
+            }
+            start[i] = newStart;
+            room[i] = newRoom;
+            int gd = groupDayOf[i];
+            long updated = evaluate(gd)[0];
+            long delta = updated - groupDayCost[gd];
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                groupDayCost[gd] = updated;
+                cost += delta;
+            } else {
+                start[i] = oldStart;
+                room[i] = oldRoom;
+            }
+            occupy(i, true);
+        }
+
+        void occupy(int i, boolean taken) {
+            int[] session = sessions.get(i);
+            int from = start[i];
+            int to = from + session[4];
+            if (taken) {
+                SlotBits.setRange(teacherBusy[session[0]], from, to);
+                SlotBits.setRange(groupBusy[session[1]], from, to);
+                SlotBits.setRange(roomBusy[room[i]], from, to);
+            } else {
+                SlotBits.clearRange(teacherBusy[session[0]], from, to);
+                SlotBits.clearRange(groupBusy[session[1]], from, to);
+                SlotBits.clearRange(roomBusy[room[i]], from, to);
+            }
+        }
+
+        /**
+         * Returns {cost, idle slots, room changes} of a group-day.
+         */
+        long[] evaluate(int gd) {
+            int[] members = groupDays[gd].clone();
+            for (int a = 1; a < members.length; a++) {
+                int current = members[a];
+                int b = a - 1;
+                while (b >= 0 && start[members[b]] > start[current]) {
+                    members[b + 1] = members[b];
+                    b--;
+                }
+                members[b + 1] = current;
+            }
+            long gaps = 0;
+            long changes = 0;
+            for (int k = 1; k < members.length; k++) {
+                int previous = members[k - 1];
+                int current = members[k];
+                int previousEnd = start[previous] + sessions.get(previous)[4];
+                if (start[current] > previousEnd) {
+                    gaps += start[current] - previousEnd;
+                }
+                if (room[current] != room[previous]) {
+                    changes++;
+                }
+            }
+            return new long[] {gaps * weights.gap() + changes * weights.roomChange(), gaps, changes};
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.schedule.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+
+/**
+ * Immutable, compressed segment of archived (completed) schedule entries.
+ *
+ * A segment file starts with an uncompressed header (row count, time and id bounds) that is enough
+ * to index it, followed by one deflated body laid out by column: the string dictionary, then ids
+ * and start times delta-encoded in (startTime, id) order, durations, versions and the dictionary
+ * codes of the course, teacher, room and group, all as variable-length integers. Columns of
+ * similar values compress much better than rows. Decoded segments keep that layout, and entries
+ * are only materialized for the rows a query returns.
+ */
+final class ArchiveSegment {
+
+    private static final int MAGIC = 0x49534547; // "ISEG"
+    private static final short FORMAT = 1;
+    private static final int COURSE = 0;
+    private static final int TEACHER = 1;
+    private static final int ROOM = 2;
+    private static final int GROUP = 3;
+
+    /**
+     * Header of a segment: what the archive index keeps about it.
+     */
+    record Header(int rows, LocalDateTime minStart, LocalDateTime maxEnd, long minId, long maxId) {}
+
+    private final Header header;
+    private final String[] dictionary;
+    private final long[] ids;
+    private final long[] starts;
+    private final int[] durations;
+    private final long[] versions;
+    private final int[][] codes;
+
+    private ArchiveSegment(Header header, String[] dictionary, long[] ids, long[] starts, int[] durations,
+                           long[] versions, int[][] codes) {
+        this.header = header;
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.starts = starts;
+        this.durations = durations;
+        this.versions = versions;
+        this.codes = codes;
+    }
+
+    Header header() {
+        return header;
+    }
+
+    /**
+     * Writes the entries, which must have an id and times, to {@code file} and returns its header.
+     */
+    static Header write(List<ScheduleEntry> entries, Path file) throws IOException {
+        List<ScheduleEntry> rows = new ArrayList<>(entries);
+        rows.sort(Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId));
+        ResourceDictionary strings = new ResourceDictionary();
+        int[][] codes = new int[4][rows.size()];
+        LocalDateTime minStart = null;
+        LocalDateTime maxEnd = null;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (int row = 0; row < rows.size(); row++) {
+            ScheduleEntry entry = rows.get(row);
+            codes[COURSE][row] = strings.intern(entry.getCourseId());
+            codes[TEACHER][row] = strings.intern(entry.getTeacherId());
+            codes[ROOM][row] = strings.intern(entry.getRoomId());
+            codes[GROUP][row] = strings.intern(entry.getGroupId());
+            minStart = minStart == null ? entry.getStartTime() : minStart;
+            maxEnd = maxEnd == null || entry.getEndTime().isAfter(maxEnd) ? entry.getEndTime() : maxEnd;
+            minId = Math.min(minId, entry.getId());
+            maxId = Math.max(maxId, entry.getId());
+        }
+        Header header = new Header(rows.size(), minStart, maxEnd, minId, maxId);
+
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            writeHeader(out, header);
+            out.flush();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                DataOutputStream body = new DataOutputStream(new DeflaterOutputStream(out, deflater, 1 << 16));
+                writeVarLong(body, strings.size());
+                for (int code = 0; code < strings.size(); code++) {
+                    body.writeUTF(strings.valueOf(code));
+                }
+                long previousId = 0;
+                long previousStart = rows.isEmpty() ? 0 : seconds(minStart);
+                for (ScheduleEntry entry : rows) {
+                    writeVarLong(body, zigZag(entry.getId() - previousId));
+                    previousId = entry.getId();
+                }
+                for (ScheduleEntry entry : rows) {
+                    long start = seconds(entry.getStartTime());
+                    writeVarLong(body, start - previousStart);
+                    previousStart = start;
+                }
+                for (ScheduleEntry entry : rows) {
+                    writeVarLong(body, seconds(entry.getEndTime()) - seconds(entry.getStartTime()));
+                }
+                for (ScheduleEntry entry : rows) {
+                    writeVarLong(body, entry.getVersion() != null ? entry.getVersion() : 0);
+                }
+                for (int[] column : codes) {
+                    for (int code : column) {
+                        writeVarLong(body, code);
+                    }
+                }
+                body.close();
+            } finally {
+                deflater.end();
+            }
+        }
+        return header;
+    }
+
+    static Header readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64))) {
+            return readHeader(in);
+        }
+    }
+
+    static ArchiveSegment read(Path file) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            Header header = readHeader(in);
+            DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 1 << 16));
+            int rows = header.rows();
+            String[] dictionary = new String[(int) readVarLong(body)];
+            for (int code = 0; code < dictionary.length; code++) {
+                dictionary[code] = body.readUTF();
+            }
+            long[] ids = new long[rows];
+            long[] starts = new long[rows];
+            int[] durations = new int[rows];
+            long[] versions = new long[rows];
+            int[][] codes = new int[4][rows];
+            long id = 0;
+            for (int row = 0; row < rows; row++) {
+                id += unZigZag(readVarLong(body));
+                ids[row] = id;
+            }
+            long start = rows == 0 ? 0 : seconds(header.minStart());
+            for (int row = 0; row < rows; row++) {
+                start += readVarLong(body);
+                starts[row] = start;
+            }
+            for (int row = 0; row < rows; row++) {
+                durations[row] = (int) readVarLong(body);
+            }
+            for (int row = 0; row < rows; row++) {
+                versions[row] = readVarLong(body);
+            }
+            for (int[] column : codes) {
+                for (int row = 0; row < rows; row++) {
+                    column[row] = (int) readVarLong(body);
+                }
+            }
+            return new ArchiveSegment(header, dictionary, ids, starts, durations, versions, codes);
+        }
+    }
+
+    /**
+     * Rows matching the filters of the entry list: start at or after {@code startFrom}, end at or
+     * before {@code endTo}, and the given resources; null filters match everything.
+     */
+    void find(String courseId, String teacherId, String roomId, String groupId,
+              LocalDateTime startFrom, LocalDateTime endTo, List<ScheduleEntry> result) {
+        IntPredicate resources = resources(courseId, teacherId, roomId, groupId);
+        if (resources == null) {
+            return;
+        }
+        int from = startFrom == null ? 0 : lowerBound(seconds(startFrom));
+        int to = endTo == null ? ids.length : lowerBound(seconds(endTo));
+        long endLimit = endTo == null ? Long.MAX_VALUE : seconds(endTo);
+        for (int row = from; row < to; row++) {
+            if (starts[row] + durations[row] <= endLimit && resources.test(row)) {
+                result.add(entry(row));
+            }
+        }
+    }
+
+    /**
+     * Rows overlapping {@code [from, to)} of a group, teacher or room, or of all of them when
+     * {@code view} is null.
+     */
+    void overlapping(TimetableView view, String resourceId, LocalDateTime from, LocalDateTime to, List<ScheduleEntry> result) {
+        IntPredicate resources = view == null ? row -> true : switch (view) {
+            case GROUP -> resources(null, null, null, resourceId);
+            case TEACHER -> resources(null, resourceId, null, null);
+            case ROOM -> resources(null, null, resourceId, null);
+        };
+        if (resources == null) {
+            return;
+        }
+        long fromSeconds = seconds(from);
+        int first = lowerBound(fromSeconds - ScheduleEntry.MAX_DURATION.toSeconds());
+        int last = lowerBound(seconds(to));
+        for (int row = first; row < last; row++) {
+            if (starts[row] + durations[row] > fromSeconds && resources.test(row)) {
+                result.add(entry(row));
+            }
+        }
+    }
+
+    ScheduleEntry findById(long id) {
+        for (int row = 0; row < ids.length; row++) {
+            if (ids[row] == id) {
+                return entry(row);
+            }
+        }
+        return null;
+    }
+
+    void forEachId(LongConsumer action) {
+        for (long id : ids) {
+            action.accept(id);
+        }
+    }
+
+    /**
+     * Predicate on the rows holding the given resources, or null if one of them does not appear
+     * in the segment.
+     */
+    private IntPredicate resources(String courseId, String teacherId, String roomId, String groupId) {
+        String[] keys = {courseId, teacherId, roomId, groupId};
+        int[] wanted = new int[4];
+        for (int column = 0; column < 4; column++) {
+            if (keys[column] == null || keys[column].isBlank()) {
+                wanted[column] = -1;
+            } else {
+                wanted[column] = Arrays.asList(dictionary).indexOf(keys[column]);
+                if (wanted[column] < 0) {
+                    return null;
+                }
+            }
+        }
+        return row -> {
+            for (int column = 0; column < 4; column++) {
+                if (wanted[column] >= 0 && codes[column][row] != wanted[column]) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * First row starting at or after {@code seconds}.
+     */
+    private int lowerBound(long seconds) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < seconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private ScheduleEntry entry(int row) {
+        ScheduleEntry entry = new ScheduleEntry();
+        entry.setId(ids[row]);
+        entry.setCourseId(dictionary[codes[COURSE][row]]);
+        entry.setTeacherId(dictionary[codes[TEACHER][row]]);
+        entry.setRoomId(dictionary[codes[ROOM][row]]);
+        entry.setGroupId(dictionary[codes[GROUP][row]]);
+        entry.setStartTime(time(starts[row]));
+        entry.setEndTime(time(starts[row] + durations[row]));
+        entry.setStatus(SessionStatus.COMPLETED);
+        entry.setVersion(versions[row]);
+        return entry;
+    }
+
+    private static void writeHeader(DataOutputStream out, Header header) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT);
+        out.writeInt(header.rows());
+        out.writeLong(header.rows() == 0 ? 0 : seconds(header.minStart()));
+        out.writeLong(header.rows() == 0 ? 0 : seconds(header.maxEnd()));
+        out.writeLong(header.minId());
+        out.writeLong(header.maxId());
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an archive segment");
+        }
+        short format = in.readShort();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported archive segment format " + format);
+        }
+        int rows = in.readInt();
+        LocalDateTime minStart = time(in.readLong());
+        LocalDateTime maxEnd = time(in.readLong());
+        return new Header(rows, minStart, maxEnd, in.readLong(), in.readLong());
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime time(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.schedule.services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version and modification time of the calendar feed of each group, teacher and room, from which
+ * the feeds' ETag and Last-Modified headers are derived.
+ *
+ * {@link ScheduleService} touches the resources of every committed write, so a feed only changes
+ * when one of its own sessions does and polling clients get 304s otherwise. Versions are kept in
+ * memory: a restart changes every ETag once, and a write whose resources are not known touches
+ * all feeds at once.
+ *
+ * A feed covers a window that moves with the current day, so the day is part of both validators:
+ * occurrences entering or leaving the window change the feed even without a write.
+ */
+@Component
+public class CalendarFeedVersions {
+
+    // Distinguishes the ETags of two runs of the service
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final ZoneId zone;
+    private final Map<Resource, Version> versions = new HashMap<>();
+    private long counter;
+    private Instant latest = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private Version all = new Version(0, latest);
+
+    private record Resource(TimetableView view, String resourceId) {}
+
+    private record Version(long number, Instant modified) {}
+
+    /**
+     * Validator pair of a feed: a strong ETag and the time of its last change, to the second, with
+     * the day the window of the feed starts from.
+     */
+    public record Validators(String etag, Instant lastModified, LocalDate today) {}
+
+    public CalendarFeedVersions(@Value("${schedule.ics.time-zone:Europe/Paris}") String zone) {
+        this.zone = ZoneId.of(zone);
+    }
+
+    public synchronized Validators of(TimetableView view, String resourceId) {
+        Version version = versions.getOrDefault(new Resource(view, resourceId), all);
+        LocalDate today = LocalDate.now(zone);
+        Instant dayStart = today.atStartOfDay(zone).toInstant();
+        Instant modified = version.modified().isAfter(dayStart) ? version.modified() : dayStart;
+        return new Validators("\"" + instance + "-" + version.number() + "-" + today + "\"", modified, today);
+    }
+
+    /**
+     * Marks the feeds of the resources of the given timetable weeks as changed.
+     */
+    public void touch(Collection<WeeklyTimetableCache.Key> weeks) {
+        Version version = next();
+        synchronized (this) {
+            for (WeeklyTimetableCache.Key week : weeks) {
+                versions.put(new Resource(week.view(), week.resourceId()), version);
+            }
+        }
+    }
+
+    public synchronized void touchAll() {
+        all = next();
+        versions.clear();
+    }
+
+    private synchronized Version next() {
+        // Last-Modified has a one second resolution; it never goes back, even if the clock does
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if (now.isAfter(latest)) {
+            latest = now;
+        }
+        return new Version(++counter, latest);
+    }
+}
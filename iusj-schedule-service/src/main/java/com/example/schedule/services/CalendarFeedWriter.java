@@ -0,0 +1,174 @@
+package com.example.schedule.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import jakarta.persistence.EntityManager;
+import net.fortuna.ical4j.data.FoldingWriter;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.Description;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStamp;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.Location;
+import net.fortuna.ical4j.model.property.Method;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Sequence;
+import net.fortuna.ical4j.model.property.Status;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+import net.fortuna.ical4j.model.property.XProperty;
+
+/**
+ * Writes the iCalendar subscription feed of a group, teacher or room.
+ *
+ * The calendar is never built as a whole: the header is written, then each session is turned
+ * into a {@link VEvent} and written through a {@link FoldingWriter} on its own, entries being
+ * streamed from the database, merged with the archived ones, and detached once written,
+ * followed by the occurrences of the recurrence rules. Feeds cover {@value #PAST_DAYS} days
+ * back and {@value #FUTURE_DAYS} days ahead of the day of their {@link CalendarFeedVersions}. Times are converted from the local time of the institution to UTC, so that no
+ * VTIMEZONE component is needed.
+ */
+@Component
+public class CalendarFeedWriter {
+
+    private static final int PAST_DAYS = 90;
+    private static final int FUTURE_DAYS = 365;
+    private static final String CRLF = "\r\n";
+    private static final String UID_DOMAIN = "@iusj-schedule";
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleArchive archive;
+    private final ScheduleRuleIndex ruleIndex;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ZoneId zone;
+
+    public CalendarFeedWriter(ScheduleEntryRepository repository,
+                              ScheduleArchive archive,
+                              ScheduleRuleIndex ruleIndex,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${schedule.ics.time-zone:Europe/Paris}") String zone) {
+        this.repository = repository;
+        this.archive = archive;
+        this.ruleIndex = ruleIndex;
+        this.entityManager = entityManager;
+        this.transactionManager = transactionManager;
+        this.zone = ZoneId.of(zone);
+    }
+
+    /**
+     * Writes the feed described by {@code validators}: the window starts from their day, and their
+     * modification time is the DTSTAMP of every event. The stream is flushed and left open.
+     */
+    public void write(TimetableView view, String resourceId, CalendarFeedVersions.Validators validators, OutputStream out) throws IOException {
+        LocalDate today = validators.today();
+        LocalDateTime from = today.minusDays(PAST_DAYS).atStartOfDay();
+        LocalDateTime to = today.plusDays(FUTURE_DAYS + 1).atStartOfDay();
+        DateTime dtStamp = utc(validators.lastModified());
+
+        Writer writer = new FoldingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("BEGIN:VCALENDAR" + CRLF);
+        writer.write(new ProdId("-//IUSJ//Emploi du temps//FR").toString());
+        writer.write(Version.VERSION_2_0.toString());
+        writer.write(CalScale.GREGORIAN.toString());
+        writer.write(Method.PUBLISH.toString());
+        writer.write(new XProperty("X-WR-CALNAME", "Emploi du temps - " + view.label() + " " + resourceId).toString());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<ScheduleEntry> entries = repository.streamOverlapping(
+                from,
+                to,
+                view == TimetableView.TEACHER ? resourceId : null,
+                view == TimetableView.ROOM ? resourceId : null,
+                view == TimetableView.GROUP ? resourceId : null
+            )) {
+                Iterator<ScheduleEntry> merged = ScheduleArchive.merge(entries.iterator(), archive.overlapping(view, resourceId, from, to));
+                while (merged.hasNext()) {
+                    ScheduleEntry entry = merged.next();
+                    writer.write(event(view, entry, "entry-" + entry.getId(), dtStamp).toString());
+                    if (entityManager.contains(entry)) {
+                        entityManager.detach(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        for (Recurrence.Occurrence occurrence : ruleIndex.occurrences(
+            view == TimetableView.TEACHER ? resourceId : null,
+            view == TimetableView.ROOM ? resourceId : null,
+            view == TimetableView.GROUP ? resourceId : null,
+            from,
+            to
+        )) {
+            ScheduleEntry entry = Recurrence.toEntry(occurrence);
+            writer.write(event(view, entry, "rule-" + occurrence.ruleId() + "-" + occurrence.date(), dtStamp).toString());
+        }
+
+        writer.write("END:VCALENDAR" + CRLF);
+        writer.flush();
+    }
+
+    private VEvent event(TimetableView view, ScheduleEntry entry, String uid, DateTime dtStamp) {
+        // Without initialisation, so that DTSTAMP is the time of the feed rather than of the request
+        VEvent event = new VEvent(false);
+        event.getProperties().add(new Uid(uid + UID_DOMAIN));
+        event.getProperties().add(new DtStamp(dtStamp));
+        event.getProperties().add(new DtStart(utc(entry.getStartTime())));
+        event.getProperties().add(new DtEnd(utc(entry.getEndTime())));
+        event.getProperties().add(new Summary(entry.getCourseId()));
+        event.getProperties().add(new Location("Salle " + entry.getRoomId()));
+        event.getProperties().add(new Description(details(view, entry)));
+        if (entry.getVersion() != null) {
+            event.getProperties().add(new Sequence(entry.getVersion().intValue()));
+        }
+        event.getProperties().add(entry.getStatus() == SessionStatus.CANCELLED ? Status.VEVENT_CANCELLED : Status.VEVENT_CONFIRMED);
+        return event;
+    }
+
+    private static String details(TimetableView view, ScheduleEntry entry) {
+        return switch (view) {
+            case GROUP -> "Enseignant " + entry.getTeacherId();
+            case TEACHER -> "Groupe " + entry.getGroupId();
+            case ROOM -> "Groupe " + entry.getGroupId() + " - Enseignant " + entry.getTeacherId();
+        };
+    }
+
+    private DateTime utc(LocalDateTime time) {
+        return utc(time.atZone(zone).toInstant());
+    }
+
+    private static DateTime utc(Instant instant) {
+        DateTime time = new DateTime(Date.from(instant));
+        time.setUtc(true);
+        return time;
+    }
+}
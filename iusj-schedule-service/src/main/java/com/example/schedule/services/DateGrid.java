@@ -0,0 +1,92 @@
+package com.example.schedule.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Slot grid over consecutive calendar days: {@code days x slotsPerDay} slots of
+ * {@code slotMinutes} between {@code dayStart} and {@code dayEnd}. Slot {@code i} is slot
+ * {@code i % slotsPerDay} of day {@code firstDay + i / slotsPerDay}. Grids come from request
+ * parameters, so an invalid one is rejected as a bad request.
+ */
+record DateGrid(LocalDate firstDay, int days, LocalTime dayStart, LocalTime dayEnd, int slotMinutes) {
+
+    DateGrid {
+        if (days <= 0 || slotMinutes <= 0 || !dayEnd.isAfter(dayStart)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid grid bounds or slot length");
+        }
+        if (Duration.between(dayStart, dayEnd).toMinutes() < slotMinutes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The day hours must hold at least one slot");
+        }
+    }
+
+    static DateGrid between(LocalDate from, LocalDate to, LocalTime dayStart, LocalTime dayEnd, int slotMinutes) {
+        return new DateGrid(from, (int) ChronoUnit.DAYS.between(from, to) + 1, dayStart, dayEnd, slotMinutes);
+    }
+
+    int slotsPerDay() {
+        return (int) (Duration.between(dayStart, dayEnd).toMinutes() / slotMinutes);
+    }
+
+    int size() {
+        return days * slotsPerDay();
+    }
+
+    LocalDateTime lowerBound() {
+        return firstDay.atTime(dayStart);
+    }
+
+    LocalDateTime upperBound() {
+        return firstDay.plusDays(days - 1L).atTime(dayEnd);
+    }
+
+    LocalDateTime timeOf(int slot) {
+        int spd = slotsPerDay();
+        return firstDay.plusDays(slot / spd).atTime(dayStart).plusMinutes((long) (slot % spd) * slotMinutes);
+    }
+
+    /**
+     * Grid range {@code [from, to)} of the slots the interval touches, widened to whole slots and
+     * clipped to the grid, or null if it touches none.
+     */
+    int[] rangeOf(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return null;
+        }
+        int from = slotIndex(start, false);
+        int to = slotIndex(end, true);
+        return from < to ? new int[] {from, to} : null;
+    }
+
+    /**
+     * True if the interval lies in one grid day and starts and ends on slot boundaries.
+     */
+    boolean isAligned(LocalDateTime start, LocalDateTime end) {
+        int[] range = rangeOf(start, end);
+        return range != null
+            && start.toLocalDate().equals(end.toLocalDate())
+            && (range[1] - 1) / slotsPerDay() == range[0] / slotsPerDay()
+            && timeOf(range[0]).equals(start)
+            && timeOf(range[1] - 1).plusMinutes(slotMinutes).equals(end);
+    }
+
+    private int slotIndex(LocalDateTime time, boolean roundUp) {
+        int spd = slotsPerDay();
+        long day = ChronoUnit.DAYS.between(firstDay, time.toLocalDate());
+        if (day < 0) {
+            return 0;
+        }
+        if (day >= days) {
+            return size();
+        }
+        long minutes = Duration.between(dayStart, time.toLocalTime()).toMinutes();
+        long slot = roundUp ? Math.floorDiv(minutes + slotMinutes - 1, slotMinutes) : Math.floorDiv(minutes, slotMinutes);
+        return (int) (day * spd + Math.max(0, Math.min(spd, slot)));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.schedule.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Finds the earliest slots where a teacher, a group and optionally a room are all free.
+ *
+ * The period is laid out as a {@link DateGrid}; the entries of each resource mark their slots in
+ * a busy bitset, the free slots are the complement of the OR of these bitsets, and the slots
+ * starting a long enough run are found with {@link SlotBits#runStarts}. Occurrences of recurrence
+ * rules are marked like entries. Entries are read from
+ * {@link ScheduleConflictIndex} when it is loaded, so a slot returned here passes the conflict
+ * check of a create made right after.
+ */
+@Component
+@RequiredArgsConstructor
+public class FreeSlotFinder {
+
+    private static final LocalTime DEFAULT_DAY_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_DAY_END = LocalTime.of(18, 0);
+    private static final int DEFAULT_SLOT_MINUTES = 15;
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 200;
+    private static final long MAX_DAYS = 366;
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleConflictIndex conflictIndex;
+    private final ScheduleRuleIndex ruleIndex;
+
+    public record Request(
+        String teacherId,
+        String groupId,
+        String roomId,
+        Integer durationMinutes,
+        LocalDate from,
+        LocalDate to,
+        LocalTime dayStart,
+        LocalTime dayEnd,
+        Integer slotMinutes,
+        Integer limit
+    ) {}
+
+    public record Slot(LocalDateTime start, LocalDateTime end) {}
+
+    public List<Slot> find(Request request) {
+        validate(request);
+        DateGrid grid = DateGrid.between(
+            request.from(),
+            request.to(),
+            request.dayStart() != null ? request.dayStart() : DEFAULT_DAY_START,
+            request.dayEnd() != null ? request.dayEnd() : DEFAULT_DAY_END,
+            request.slotMinutes() != null ? request.slotMinutes() : DEFAULT_SLOT_MINUTES
+        );
+        int spd = grid.slotsPerDay();
+        int length = (request.durationMinutes() + grid.slotMinutes() - 1) / grid.slotMinutes();
+        if (spd == 0 || length > spd) {
+            throw new IllegalArgumentException("The duration does not fit in the day hours");
+        }
+
+        long[] busy = new long[SlotBits.words(grid.size())];
+        markBusy(busy, grid, TimetableView.TEACHER, request.teacherId());
+        markBusy(busy, grid, TimetableView.GROUP, request.groupId());
+        if (StringUtils.hasText(request.roomId())) {
+            markBusy(busy, grid, TimetableView.ROOM, request.roomId());
+        }
+        long[] free = new long[busy.length];
+        for (int w = 0; w < busy.length; w++) {
+            free[w] = ~busy[w];
+        }
+        SlotBits.clearRange(free, grid.size(), free.length << 6);
+        long[] starts = SlotBits.runStarts(free, length);
+
+        int limit = Math.min(MAX_LIMIT, request.limit() != null && request.limit() > 0 ? request.limit() : DEFAULT_LIMIT);
+        LocalDateTime now = LocalDateTime.now();
+        List<Slot> slots = new ArrayList<>();
+        for (int slot = SlotBits.nextSetBit(starts, 0); slot >= 0 && slots.size() < limit; slot = SlotBits.nextSetBit(starts, slot + 1)) {
+            // Runs are contiguous across midnight in the grid but a session has to fit in one day
+            if (slot % spd + length > spd) {
+                continue;
+            }
+            LocalDateTime start = grid.timeOf(slot);
+            if (start.isBefore(now)) {
+                continue;
+            }
+            slots.add(new Slot(start, start.plusMinutes(request.durationMinutes())));
+        }
+        return slots;
+    }
+
+    private void markBusy(long[] busy, DateGrid grid, TimetableView view, String resourceId) {
+        LocalDateTime from = grid.lowerBound();
+        LocalDateTime to = grid.upperBound();
+        ruleIndex.forEachOverlap(view, resourceId, from, to, (start, end) -> mark(busy, grid, start, end));
+        if (conflictIndex.isReady()) {
+            conflictIndex.forEachOverlap(view, resourceId, from, to, (start, end) -> mark(busy, grid, start, end));
+            return;
+        }
+        for (ScheduleEntry entry : repository.findAll(ScheduleSpecifications.overlapFor(view.field(), resourceId, from, to, null))) {
+            mark(busy, grid, entry.getStartTime(), entry.getEndTime());
+        }
+    }
+
+    private static void mark(long[] busy, DateGrid grid, LocalDateTime start, LocalDateTime end) {
+        int[] range = grid.rangeOf(start, end);
+        if (range != null) {
+            SlotBits.setRange(busy, range[0], range[1]);
+        }
+    }
+
+    private void validate(Request request) {
+        if (request == null || !StringUtils.hasText(request.teacherId()) || !StringUtils.hasText(request.groupId())) {
+            throw new IllegalArgumentException("A teacherId and a groupId are required");
+        }
+        if (request.durationMinutes() == null || request.durationMinutes() <= 0) {
+            throw new IllegalArgumentException("A positive duration in minutes is required");
+        }
+        if (request.from() == null || request.to() == null || request.to().isBefore(request.from())) {
+            throw new IllegalArgumentException("A search period with from <= to is required");
+        }
+        if (ChronoUnit.DAYS.between(request.from(), request.to()) > MAX_DAYS) {
+            throw new IllegalArgumentException("Search period cannot exceed " + MAX_DAYS + " days");
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.schedule.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.example.schedule.entities.RuleException;
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.ScheduleRule;
+import com.example.schedule.entities.SessionStatus;
+
+/**
+ * Expansion of {@link ScheduleRule} occurrences.
+ *
+ * Occurrences are never stored: the ones overlapping a window are computed from the offset of
+ * the window to the first occurrence, so the cost depends on the size of the window and the
+ * number of exceptions, not on the length of the rule.
+ */
+public final class Recurrence {
+
+    private static final long SECONDS_PER_WEEK = 7L * 24 * 3600;
+
+    private Recurrence() {}
+
+    /**
+     * One occurrence of a rule; {@code date} is the date it normally starts on, which identifies it
+     * even when it has been moved.
+     */
+    public record Occurrence(
+        Long ruleId,
+        LocalDate date,
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        LocalDateTime start,
+        LocalDateTime end,
+        boolean moved
+    ) {}
+
+    /**
+     * Occurrences of the rule overlapping {@code [from, to)}, where a null bound is open, in start
+     * order.
+     */
+    public static List<Occurrence> between(ScheduleRule rule, LocalDateTime from, LocalDateTime to) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        int last = lastIndex(rule);
+        if (last < 0) {
+            return occurrences;
+        }
+        if (from == null) {
+            from = firstStartOf(rule);
+        }
+        if (to == null) {
+            to = lastEndOf(rule);
+        }
+        long period = SECONDS_PER_WEEK * intervalOf(rule);
+        long duration = rule.getDurationMinutes() * 60L;
+        long fromOffset = ChronoUnit.SECONDS.between(rule.getFirstStart(), from);
+        long toOffset = ChronoUnit.SECONDS.between(rule.getFirstStart(), to);
+        // Occurrence k overlaps the window if k * period < toOffset and k * period + duration > fromOffset
+        long first = Math.max(0, Math.floorDiv(fromOffset - duration, period) + 1);
+        long lastInWindow = Math.min(last, -Math.floorDiv(-toOffset, period) - 1);
+        Map<LocalDate, RuleException> exceptions = exceptionsByDate(rule);
+        for (long k = first; k <= lastInWindow; k++) {
+            LocalDateTime start = rule.getFirstStart().plusWeeks(k * intervalOf(rule));
+            if (!exceptions.containsKey(start.toLocalDate())) {
+                occurrences.add(occurrence(rule, start.toLocalDate(), start, start.plusMinutes(rule.getDurationMinutes()), rule.getRoomId(), false));
+            }
+        }
+        for (RuleException exception : exceptions.values()) {
+            if (isMoved(exception) && exception.getStartTime().isBefore(to) && exception.getEndTime().isAfter(from)) {
+                occurrences.add(moved(rule, exception));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Occurrence::start));
+        return occurrences;
+    }
+
+    /**
+     * Moved occurrences of the rule, in start order.
+     */
+    public static List<Occurrence> movedOccurrences(ScheduleRule rule) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        for (RuleException exception : exceptionsByDate(rule).values()) {
+            if (isMoved(exception)) {
+                occurrences.add(moved(rule, exception));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Occurrence::start));
+        return occurrences;
+    }
+
+    /**
+     * Start of the earliest occurrence of the rule, or null if it has none.
+     */
+    public static LocalDateTime firstStartOf(ScheduleRule rule) {
+        LocalDateTime first = lastIndex(rule) < 0 ? null : rule.getFirstStart();
+        for (Occurrence occurrence : movedOccurrences(rule)) {
+            if (first == null || occurrence.start().isBefore(first)) {
+                first = occurrence.start();
+            }
+        }
+        return first;
+    }
+
+    /**
+     * End of the latest occurrence of the rule, or null if it has none.
+     */
+    public static LocalDateTime lastEndOf(ScheduleRule rule) {
+        int last = lastIndex(rule);
+        LocalDateTime end = last < 0 ? null
+            : rule.getFirstStart().plusWeeks((long) last * intervalOf(rule)).plusMinutes(rule.getDurationMinutes());
+        for (Occurrence occurrence : movedOccurrences(rule)) {
+            if (end == null || occurrence.end().isAfter(end)) {
+                end = occurrence.end();
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Date of the first regular occurrence of {@code a} overlapping a regular occurrence of
+     * {@code b}, or null, found from the periods and phases of the rules instead of their
+     * expansion. Occurrence j of b starts {@code j * ib - k * ia} weeks plus the offset of the
+     * first starts after occurrence k of a, and {@code j * ib - k * ia} ranges over the multiples
+     * of gcd(ia, ib): since a session lasts at most a day, at most one of them makes the two
+     * occurrences overlap, and its solutions (k, j) form a progression clipped to both date ranges.
+     */
+    static LocalDate firstRegularOverlap(ScheduleRule a, ScheduleRule b) {
+        int lastA = lastIndex(a);
+        int lastB = lastIndex(b);
+        if (lastA < 0 || lastB < 0) {
+            return null;
+        }
+        long intervalA = intervalOf(a);
+        long intervalB = intervalOf(b);
+        long gcd = gcd(intervalA, intervalB);
+        long step = SECONDS_PER_WEEK * gcd;
+        long offset = ChronoUnit.SECONDS.between(a.getFirstStart(), b.getFirstStart());
+        long durationA = a.getDurationMinutes() * 60L;
+        long durationB = b.getDurationMinutes() * 60L;
+        // Occurrence j of b starts offset + m * step after occurrence k of a: they overlap if
+        // -durationB < offset + m * step < durationA
+        long lowest = Math.floorDiv(-durationB - offset, step) + 1;
+        long highest = Math.floorDiv(durationA - offset - 1, step);
+        if (lowest > highest) {
+            return null;
+        }
+        Set<Long> skippedA = exceptionIndexes(a);
+        Set<Long> skippedB = exceptionIndexes(b);
+        long periodA = intervalA / gcd;
+        long periodB = intervalB / gcd;
+        long[] bezout = bezout(periodB, periodA);
+        for (long m = lowest; m <= highest; m++) {
+            // j * periodB - k * periodA = m for j = j0 + s * periodA and k = k0 + s * periodB
+            long j0 = m * bezout[0];
+            long k0 = -m * bezout[1];
+            long first = Math.max(ceilDiv(-j0, periodA), ceilDiv(-k0, periodB));
+            long last = Math.min(Math.floorDiv(lastB - j0, periodA), Math.floorDiv(lastA - k0, periodB));
+            // Each skipped solution is an exception, so this stops after a few of them
+            for (long s = first; s <= last; s++) {
+                long k = k0 + s * periodB;
+                if (!skippedA.contains(k) && !skippedB.contains(j0 + s * periodA)) {
+                    return a.getFirstStart().plusWeeks(k * intervalA).toLocalDate();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True if the rule has a regular occurrence starting on {@code date}.
+     */
+    public static boolean isOccurrenceDate(ScheduleRule rule, LocalDate date) {
+        long days = ChronoUnit.DAYS.between(rule.getFirstStart().toLocalDate(), date);
+        long step = 7L * intervalOf(rule);
+        return days >= 0 && days % step == 0 && days / step <= lastIndex(rule);
+    }
+
+    /**
+     * Transient entry with the resources and times of an occurrence, for conflict checks and for
+     * the lists, where it has no id but the rule and date of the occurrence.
+     */
+    static ScheduleEntry toEntry(Occurrence occurrence) {
+        ScheduleEntry entry = new ScheduleEntry();
+        entry.setRuleId(occurrence.ruleId());
+        entry.setOccurrenceDate(occurrence.date());
+        entry.setCourseId(occurrence.courseId());
+        entry.setTeacherId(occurrence.teacherId());
+        entry.setRoomId(occurrence.roomId());
+        entry.setGroupId(occurrence.groupId());
+        entry.setStartTime(occurrence.start());
+        entry.setEndTime(occurrence.end());
+        entry.setStatus(SessionStatus.SCHEDULED);
+        return entry;
+    }
+
+    /**
+     * Entries in (startTime, id) order merged with occurrence entries in (startTime, ruleId) order,
+     * each occurrence before the entries starting at the same time: the order of
+     * {@link ScheduleCursor}.
+     */
+    static List<ScheduleEntry> merge(List<ScheduleEntry> entries, List<ScheduleEntry> occurrences) {
+        if (occurrences.isEmpty()) {
+            return entries;
+        }
+        List<ScheduleEntry> merged = new ArrayList<>(entries.size() + occurrences.size());
+        merge(entries.iterator(), occurrences).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Same as {@link #merge(List, List)} over an entry iterator, for streamed reads.
+     */
+    static Iterator<ScheduleEntry> merge(Iterator<ScheduleEntry> entries, List<ScheduleEntry> occurrences) {
+        if (occurrences.isEmpty()) {
+            return entries;
+        }
+        return new Iterator<>() {
+            private ScheduleEntry nextEntry = entries.hasNext() ? entries.next() : null;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return nextEntry != null || index < occurrences.size();
+            }
+
+            @Override
+            public ScheduleEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (index < occurrences.size()
+                    && (nextEntry == null || !occurrences.get(index).getStartTime().isAfter(nextEntry.getStartTime()))) {
+                    return occurrences.get(index++);
+                }
+                ScheduleEntry result = nextEntry;
+                nextEntry = entries.hasNext() ? entries.next() : null;
+                return result;
+            }
+        };
+    }
+
+    static int intervalOf(ScheduleRule rule) {
+        return rule.getIntervalWeeks() != null ? rule.getIntervalWeeks() : 1;
+    }
+
+    /**
+     * Index of the last regular occurrence, or -1 if the rule has none.
+     */
+    private static int lastIndex(ScheduleRule rule) {
+        long days = ChronoUnit.DAYS.between(rule.getFirstStart().toLocalDate(), rule.getLastDate());
+        return days < 0 ? -1 : (int) (days / (7L * intervalOf(rule)));
+    }
+
+    /**
+     * Indexes of the regular occurrences replaced by an exception.
+     */
+    private static Set<Long> exceptionIndexes(ScheduleRule rule) {
+        Set<Long> indexes = new HashSet<>();
+        for (LocalDate date : exceptionsByDate(rule).keySet()) {
+            indexes.add(ChronoUnit.DAYS.between(rule.getFirstStart().toLocalDate(), date) / (7L * intervalOf(rule)));
+        }
+        return indexes;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Coefficients (x, y) with {@code a * x + b * y = gcd(a, b)}.
+     */
+    private static long[] bezout(long a, long b) {
+        if (b == 0) {
+            return new long[] {1, 0};
+        }
+        long[] next = bezout(b, a % b);
+        return new long[] {next[1], next[0] - (a / b) * next[1]};
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    private static boolean isMoved(RuleException exception) {
+        return !exception.isCancelled() && exception.getStartTime() != null && exception.getEndTime() != null;
+    }
+
+    private static Map<LocalDate, RuleException> exceptionsByDate(ScheduleRule rule) {
+        Map<LocalDate, RuleException> exceptions = new HashMap<>();
+        if (rule.getExceptions() != null) {
+            for (RuleException exception : rule.getExceptions()) {
+                if (isOccurrenceDate(rule, exception.getOccurrenceDate())) {
+                    exceptions.put(exception.getOccurrenceDate(), exception);
+                }
+            }
+        }
+        return exceptions;
+    }
+
+    private static Occurrence moved(ScheduleRule rule, RuleException exception) {
+        String roomId = exception.getRoomId() != null && !exception.getRoomId().isBlank() ? exception.getRoomId() : rule.getRoomId();
+        return occurrence(rule, exception.getOccurrenceDate(), exception.getStartTime(), exception.getEndTime(), roomId, true);
+    }
+
+    private static Occurrence occurrence(ScheduleRule rule, LocalDate date, LocalDateTime start, LocalDateTime end, String roomId, boolean moved) {
+        return new Occurrence(rule.getId(), date, rule.getCourseId(), rule.getTeacherId(), roomId, rule.getGroupId(), start, end, moved);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.schedule.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns resource ids (course, teacher, room, group...) into dense int codes so that entries
+ * can refer to them from primitive arrays. Null is encoded as -1.
+ *
+ * Not thread-safe; dictionaries are filled while a snapshot is built and only read afterwards.
+ */
+final class ResourceDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Code of {@code value}, or -1 if it has never been interned.
+     */
+    int codeOf(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String valueOf(int code) {
+        return code >= 0 ? values.get(code) : null;
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.schedule.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+
+/**
+ * Cold storage of completed schedule entries, as append-only {@link ArchiveSegment} files in a
+ * local directory.
+ *
+ * A small text index ({@value #INDEX_FILE}) lists each segment with its semester, row count and
+ * time and id bounds, so that lookups only decode the segments that can match; segments missing
+ * from it (a crash between writing a segment and the index) are picked up from their header.
+ * Segment files are written to a temporary file, synced and then moved into place, and never
+ * modified afterwards. The last {@value #CACHED_SEGMENTS} decoded segments are kept in memory.
+ *
+ * A segment is appended pending, while its entries are still in the live table, and published by
+ * the {@link ScheduleArchiver} once their deletion has committed. Reads see pending segments, as
+ * {@link #merge} prefers the live copies, but {@link #size()} only counts published ones, so that
+ * no entry is counted twice.
+ *
+ * Reads return entries in (startTime, id) order; {@link #merge} combines them with live entries.
+ */
+@Component
+public class ScheduleArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleArchive.class);
+
+    private static final String INDEX_FILE = "segments.idx";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String PENDING = "pending";
+    private static final String PUBLISHED = "published";
+    private static final int CACHED_SEGMENTS = 4;
+    private static final Comparator<ScheduleEntry> ORDER =
+        Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId);
+    private static final DateTimeFormatter SEMESTER_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final Path directory;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, ArchiveSegment> decoded = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArchiveSegment> eldest) {
+            return size() > CACHED_SEGMENTS;
+        }
+    };
+    private volatile boolean loaded;
+
+    /**
+     * A segment as listed in the index.
+     */
+    public record Segment(String file, LocalDate semester, int rows, LocalDateTime minStart, LocalDateTime maxEnd,
+                          long minId, long maxId, boolean pending) {}
+
+    public ScheduleArchive(@Value("${schedule.archive.dir:data/archive}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public List<Segment> segments() {
+        ensureLoaded();
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Number of archived entries no longer in the live table, i.e. in published segments.
+     */
+    public long size() {
+        ensureLoaded();
+        return segments.stream().filter(s -> !s.pending()).mapToLong(Segment::rows).sum();
+    }
+
+    /**
+     * Number of published segments, which changes whenever entries have left the live table.
+     */
+    public long version() {
+        ensureLoaded();
+        return segments.stream().filter(s -> !s.pending()).count();
+    }
+
+    public List<Segment> pending() {
+        ensureLoaded();
+        return segments.stream().filter(Segment::pending).toList();
+    }
+
+    /**
+     * True if archived entries may overlap {@code [from, to)}, where a null bound is open, i.e. a
+     * query over that window may need the archive.
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return !candidates(from, to).isEmpty();
+    }
+
+    /**
+     * Archived entries matching the filters of the entry list (see {@link ScheduleSpecifications#filter}).
+     */
+    public List<ScheduleEntry> find(String courseId, String teacherId, String roomId, String groupId,
+                                    SessionStatus status, LocalDateTime startFrom, LocalDateTime endTo) {
+        List<ScheduleEntry> result = new ArrayList<>();
+        if (status != null && status != SessionStatus.COMPLETED) {
+            return result;
+        }
+        for (Segment segment : candidates(startFrom, endTo)) {
+            decode(segment).find(courseId, teacherId, roomId, groupId, startFrom, endTo, result);
+        }
+        result.sort(ORDER);
+        return result;
+    }
+
+    /**
+     * Archived entries overlapping {@code [from, to)} of a group, teacher or room, or of every
+     * resource when {@code view} is null.
+     */
+    public List<ScheduleEntry> overlapping(TimetableView view, String resourceId, LocalDateTime from, LocalDateTime to) {
+        List<ScheduleEntry> result = new ArrayList<>();
+        for (Segment segment : candidates(from, to)) {
+            decode(segment).overlapping(view, resourceId, from, to, result);
+        }
+        result.sort(ORDER);
+        return result;
+    }
+
+    public ScheduleEntry findById(Long id) {
+        ensureLoaded();
+        if (id == null) {
+            return null;
+        }
+        for (Segment segment : segments) {
+            if (id >= segment.minId() && id <= segment.maxId()) {
+                ScheduleEntry entry = decode(segment).findById(id);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a pending segment holding the given entries of one semester. The segment is durable
+     * and visible to reads when this returns.
+     */
+    public synchronized Segment append(LocalDate semester, List<ScheduleEntry> entries) {
+        ensureLoaded();
+        try {
+            Files.createDirectories(directory);
+            String name = "segment-" + semester.format(SEMESTER_FORMAT) + "-"
+                + String.format("%06d", segments.size() + 1) + SEGMENT_SUFFIX;
+            Path temporary = directory.resolve(name + ".tmp");
+            ArchiveSegment.Header header = ArchiveSegment.write(entries, temporary);
+            sync(temporary);
+            Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            Segment segment = segment(name, semester, header, true);
+            segments.add(segment);
+            writeIndex();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment", e);
+        }
+    }
+
+    /**
+     * Publishes pending segments, once their entries have been deleted from the live table.
+     */
+    public synchronized void publish(List<Segment> published) {
+        ensureLoaded();
+        boolean changed = false;
+        for (Segment segment : published) {
+            int index = segments.indexOf(segment);
+            if (index >= 0 && segment.pending()) {
+                segments.set(index, new Segment(segment.file(), segment.semester(), segment.rows(), segment.minStart(),
+                    segment.maxEnd(), segment.minId(), segment.maxId(), false));
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+        try {
+            writeIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the archive index", e);
+        }
+    }
+
+    public Set<Long> idsOf(Segment segment) {
+        Set<Long> ids = new HashSet<>();
+        decode(segment).forEachId(ids::add);
+        return ids;
+    }
+
+    /**
+     * Ids among {@code ids} that are already archived, e.g. by a run interrupted before it could
+     * delete them from the live table.
+     */
+    public Set<Long> archivedAmong(Set<Long> ids) {
+        ensureLoaded();
+        Set<Long> archived = new HashSet<>();
+        if (ids.isEmpty()) {
+            return archived;
+        }
+        long min = Collections.min(ids);
+        long max = Collections.max(ids);
+        for (Segment segment : segments) {
+            if (segment.maxId() >= min && segment.minId() <= max) {
+                decode(segment).forEachId(id -> {
+                    if (ids.contains(id)) {
+                        archived.add(id);
+                    }
+                });
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Live and archived entries, both in (startTime, id) order, merged in that order. An entry
+     * present in both, while it is being archived, is taken from the live side.
+     */
+    public static List<ScheduleEntry> merge(List<ScheduleEntry> live, List<ScheduleEntry> archived) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<ScheduleEntry> merged = new ArrayList<>(live.size() + archived.size());
+        merge(live.iterator(), archived).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Same as {@link #merge(List, List)} over a live iterator, for streamed reads.
+     */
+    public static Iterator<ScheduleEntry> merge(Iterator<ScheduleEntry> live, List<ScheduleEntry> archived) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        return new Iterator<>() {
+            private ScheduleEntry nextLive = live.hasNext() ? live.next() : null;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return nextLive != null || index < archived.size();
+            }
+
+            @Override
+            public ScheduleEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextLive == null ? 1 : index == archived.size() ? -1 : ORDER.compare(nextLive, archived.get(index));
+                if (order > 0) {
+                    return archived.get(index++);
+                }
+                if (order == 0) {
+                    index++;
+                }
+                ScheduleEntry result = nextLive;
+                nextLive = live.hasNext() ? live.next() : null;
+                return result;
+            }
+        };
+    }
+
+    private List<Segment> candidates(LocalDateTime from, LocalDateTime to) {
+        ensureLoaded();
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if ((from == null || segment.maxEnd().isAfter(from)) && (to == null || segment.minStart().isBefore(to))) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    private ArchiveSegment decode(Segment segment) {
+        synchronized (decoded) {
+            ArchiveSegment cached = decoded.get(segment.file());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try {
+            ArchiveSegment read = ArchiveSegment.read(directory.resolve(segment.file()));
+            synchronized (decoded) {
+                decoded.put(segment.file(), read);
+            }
+            return read;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + segment.file(), e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        try {
+            Map<String, Segment> indexed = new LinkedHashMap<>();
+            Path index = directory.resolve(INDEX_FILE);
+            if (Files.exists(index)) {
+                for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        Segment segment = parse(line);
+                        indexed.put(segment.file(), segment);
+                    }
+                }
+            }
+            boolean missing = false;
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (!indexed.containsKey(name)) {
+                            // Written by a run interrupted before its index update, hence before its deletion
+                            ArchiveSegment.Header header = ArchiveSegment.readHeader(file);
+                            indexed.put(name, segment(name, AcademicCalendar.semesterStart(header.minStart().toLocalDate()), header, true));
+                            missing = true;
+                        }
+                    }
+                }
+            }
+            indexed.values().removeIf(segment -> !Files.exists(directory.resolve(segment.file())));
+            segments.addAll(indexed.values().stream().sorted(Comparator.comparing(Segment::file)).toList());
+            loaded = true;
+            if (missing) {
+                writeIndex();
+            }
+            logger.info("Schedule archive loaded with {} segments", segments.size());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not load the schedule archive from " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        Path temporary = directory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Segment segment : segments) {
+                writer.write(String.join("\t",
+                    segment.file(),
+                    segment.semester().toString(),
+                    Integer.toString(segment.rows()),
+                    segment.minStart().toString(),
+                    segment.maxEnd().toString(),
+                    Long.toString(segment.minId()),
+                    Long.toString(segment.maxId()),
+                    segment.pending() ? PENDING : PUBLISHED));
+                writer.newLine();
+            }
+        }
+        sync(temporary);
+        Files.move(temporary, directory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Segment parse(String line) {
+        String[] fields = line.split("\t");
+        return new Segment(
+            fields[0],
+            LocalDate.parse(fields[1]),
+            Integer.parseInt(fields[2]),
+            LocalDateTime.parse(fields[3]),
+            LocalDateTime.parse(fields[4]),
+            Long.parseLong(fields[5]),
+            Long.parseLong(fields[6]),
+            PENDING.equals(fields[7])
+        );
+    }
+
+    private static Segment segment(String file, LocalDate semester, ArchiveSegment.Header header, boolean pending) {
+        return new Segment(file, semester, header.rows(), header.minStart(), header.maxEnd(), header.minId(), header.maxId(), pending);
+    }
+
+    private static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.example.schedule.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Moves completed sessions of past semesters from the schedule_entries table to the
+ * {@link ScheduleArchive}.
+ *
+ * Entries are archived by batches of {@value #BATCH_SIZE}, oldest first, each batch holding every
+ * resource lock: the batch is written as one pending segment per semester, then deleted from the
+ * table and from the conflict index, and the segments are published. A run interrupted before
+ * publishing leaves pending segments whose entries may still be live; reads take the live copy,
+ * and {@link #publishPending} deletes them, at startup or before the next run, then publishes the
+ * segments. The statistics only count published segments, so no entry is counted twice.
+ * Reads query the table before the archive, so that an entry being moved is always found in one
+ * of them. Reads that include the archive (see {@link ScheduleService#findAll}) and the weekly
+ * timetables return the same entries before and after a run, so archiving is not recorded in the
+ * change log and cached weeks stay valid; unbounded lists, which skip the archive, are told by the
+ * list ETag.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleArchiver.class);
+
+    private static final int BATCH_SIZE = 5000;
+    private static final Sort ORDER = Sort.by("startTime", "id").ascending();
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleArchive archive;
+    private final ScheduleLocks locks;
+    private final ScheduleConflictIndex conflictIndex;
+    private final ScheduleStatsCounter statsCounter;
+    private final PlatformTransactionManager transactionManager;
+
+    public record Result(int segments, long rows) {}
+
+    /**
+     * Archives the completed sessions of the semesters before the current one.
+     */
+    @Scheduled(cron = "${schedule.archive.cron:0 0 5 2 * *}")
+    public void archivePastSemesters() {
+        Result result = archive(AcademicCalendar.semesterStart(LocalDate.now()));
+        logger.info("Archived {} completed sessions into {} segments", result.rows(), result.segments());
+    }
+
+    /**
+     * Archives the completed sessions ending on or before {@code before}.
+     */
+    public Result archive(LocalDate before) {
+        if (before == null) {
+            throw new IllegalArgumentException("An archive date is required");
+        }
+        if (before.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Only past sessions can be archived");
+        }
+        publishPending();
+        Specification<ScheduleEntry> spec = ScheduleSpecifications.filter(
+            null, null, null, null, SessionStatus.COMPLETED, null, before.atStartOfDay()
+        );
+        int segments = 0;
+        long rows = 0;
+        while (true) {
+            Result batch = locks.withAll(() -> archiveBatch(spec));
+            if (batch.rows() == 0) {
+                return new Result(segments, rows);
+            }
+            segments += batch.segments();
+            rows += batch.rows();
+        }
+    }
+
+    private Result archiveBatch(Specification<ScheduleEntry> spec) {
+        List<ScheduleEntry> entries = repository.findBy(spec, query -> query.sortBy(ORDER).limit(BATCH_SIZE).all());
+        if (entries.isEmpty()) {
+            return new Result(0, 0);
+        }
+        Set<Long> ids = new HashSet<>();
+        entries.forEach(entry -> ids.add(entry.getId()));
+        Set<Long> archived = archive.archivedAmong(ids);
+
+        Map<LocalDate, List<ScheduleEntry>> bySemester = new TreeMap<>();
+        for (ScheduleEntry entry : entries) {
+            if (!archived.contains(entry.getId())) {
+                bySemester.computeIfAbsent(AcademicCalendar.semesterStart(entry.getStartTime().toLocalDate()), s -> new ArrayList<>())
+                    .add(entry);
+            }
+        }
+        List<ScheduleArchive.Segment> written = new ArrayList<>();
+        bySemester.forEach((semester, semesterEntries) -> written.add(archive.append(semester, semesterEntries)));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            repository.deleteAllByIdInBatch(ids);
+            entries.forEach(entry -> statsCounter.deleted(SessionStatus.COMPLETED));
+        });
+        ids.forEach(conflictIndex::remove);
+        archive.publish(written);
+        return new Result(bySemester.size(), entries.size());
+    }
+
+    /**
+     * Completes the runs interrupted before publishing their segments: the entries of a pending
+     * segment still in the table are deleted, then the segment is published.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishPending() {
+        List<ScheduleArchive.Segment> pending = archive.pending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        locks.withAll(() -> {
+            for (ScheduleArchive.Segment segment : pending) {
+                List<ScheduleEntry> live = repository.findAllById(archive.idsOf(segment));
+                Set<Long> ids = new HashSet<>();
+                live.forEach(entry -> ids.add(entry.getId()));
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    repository.deleteAllByIdInBatch(ids);
+                    live.forEach(entry -> statsCounter.deleted(entry.getStatus()));
+                });
+                ids.forEach(conflictIndex::remove);
+                archive.publish(List.of(segment));
+            }
+            return null;
+        });
+        logger.info("Published {} pending archive segments", pending.size());
+    }
+}
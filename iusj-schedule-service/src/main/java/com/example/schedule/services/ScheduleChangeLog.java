@@ -0,0 +1,266 @@
+package com.example.schedule.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.schedule.entities.ChangeType;
+import com.example.schedule.entities.ScheduleChange;
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.ScheduleRule;
+import com.example.schedule.repositories.ScheduleChangeRepository;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Log of the writes made to schedule entries and recurrence rules, which lets clients fetch what
+ * changed since the last sequence number they saw instead of reloading whole lists.
+ *
+ * Sequence numbers are assigned here, in the transaction of the write. Transactions do not
+ * necessarily commit in sequence order, so changes are only published up to the
+ * {@link #watermark()}: the last number below every write still in progress. A client reading up
+ * to the watermark can therefore never skip a change that commits later. The numbers of a write
+ * are released in afterCompletion, which Spring runs after every afterCommit callback: writers
+ * update their in-memory views in afterCommit, so the watermark, and the list ETag with it, never
+ * moves before these views do. Changes are kept
+ * {@value #RETENTION_DAYS} days; a client that is further behind is told to reload.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleChangeLog.class);
+
+    private static final int RETENTION_DAYS = 30;
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 5000;
+
+    private final ScheduleChangeRepository repository;
+    private final ScheduleEntryRepository entryRepository;
+    private final ScheduleRuleIndex ruleIndex;
+
+    // Distinguishes the ETags of two runs of the service, whose JSON output may differ
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final NavigableSet<Long> inFlight = new TreeSet<>();
+    private boolean initialized;
+    private long sequence;
+    private volatile long purgedThrough;
+
+    /**
+     * Change of an entry, or of a rule when {@code ruleId} is set; {@code occurrences} then lists
+     * every occurrence of the rule.
+     */
+    public record Change(
+        long seq,
+        ChangeType type,
+        Long entryId,
+        ScheduleEntry entry,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long ruleId,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<Recurrence.Occurrence> occurrences
+    ) {}
+
+    /**
+     * Changes after {@code since} up to {@code next}, at most one per entry or rule with its
+     * current state ({@code entry} and {@code occurrences} are null for deletions). When
+     * {@code hasMore} is set, the client should ask again from {@code next}; when {@code resync}
+     * is set, {@code since} is no longer covered by the log and the client has to reload its lists.
+     */
+    public record Feed(long since, long next, boolean hasMore, boolean resync, List<Change> changes) {}
+
+    /**
+     * Current position of the feed, from which a client that has just loaded a full copy reads on.
+     */
+    public record Position(long next) {}
+
+    /**
+     * Assigns sequence numbers to writes of the given entries and stores them with the current
+     * transaction, if any.
+     */
+    public void record(ChangeType type, Collection<ScheduleEntry> entries) {
+        List<Target> targets = new ArrayList<>(entries.size());
+        for (ScheduleEntry entry : entries) {
+            targets.add(new Target(entry.getId(), null));
+        }
+        record(type, targets);
+    }
+
+    /**
+     * Same as {@link #record(ChangeType, Collection)} for a write to a recurrence rule.
+     */
+    public void recordRule(ChangeType type, ScheduleRule rule) {
+        record(type, List.of(new Target(null, rule.getId())));
+    }
+
+    // Entry or rule a change is about
+    private record Target(Long entryId, Long ruleId) {}
+
+    private void record(ChangeType type, List<Target> targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        long first;
+        long last;
+        synchronized (inFlight) {
+            initialize();
+            first = sequence + 1;
+            sequence += targets.size();
+            last = sequence;
+            for (long seq = first; seq <= last; seq++) {
+                inFlight.add(seq);
+            }
+        }
+        Runnable release = () -> {
+            synchronized (inFlight) {
+                inFlight.subSet(first, true, last, true).clear();
+            }
+        };
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<ScheduleChange> changes = new ArrayList<>(targets.size());
+            long seq = first;
+            for (Target target : targets) {
+                changes.add(new ScheduleChange(seq++, target.entryId(), target.ruleId(), type, now));
+            }
+            repository.saveAll(changes);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
+    }
+
+    /**
+     * Highest sequence number up to which every change is committed or rolled back.
+     */
+    public long watermark() {
+        synchronized (inFlight) {
+            initialize();
+            return inFlight.isEmpty() ? sequence : inFlight.first() - 1;
+        }
+    }
+
+    /**
+     * Strong ETag of the list responses: any write moves the watermark, and any archive run moves
+     * {@code archiveVersion}.
+     */
+    public String etag(long archiveVersion) {
+        return "\"" + instance + "-" + watermark() + "-" + archiveVersion + "\"";
+    }
+
+    public Position position() {
+        return new Position(watermark());
+    }
+
+    public Feed since(long since, Integer limit) {
+        long until = watermark();
+        if (since < purgedThrough || since > until) {
+            return new Feed(since, until, false, true, List.of());
+        }
+        if (since == until) {
+            return new Feed(since, until, false, false, List.of());
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, limit));
+        List<ScheduleChange> rows = repository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(
+            since, until, PageRequest.of(0, size + 1)
+        );
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        long next = hasMore ? rows.get(size - 1).getSeq() : until;
+
+        // Latest change of each entry and rule, remembering those inserted within the window
+        Map<Target, ScheduleChange> latest = new LinkedHashMap<>();
+        Set<Target> inserted = new HashSet<>();
+        for (ScheduleChange row : rows) {
+            Target target = new Target(row.getEntryId(), row.getRuleId());
+            latest.remove(target);
+            latest.put(target, row);
+            if (row.getType() == ChangeType.INSERT) {
+                inserted.add(target);
+            }
+        }
+        Map<Long, ScheduleEntry> current = new HashMap<>();
+        List<Long> live = latest.values().stream()
+            .filter(c -> c.getType() != ChangeType.DELETE && c.getEntryId() != null)
+            .map(ScheduleChange::getEntryId)
+            .toList();
+        entryRepository.findAllById(live).forEach(e -> current.put(e.getId(), e));
+
+        List<Change> changes = new ArrayList<>(latest.size());
+        for (Map.Entry<Target, ScheduleChange> change : latest.entrySet()) {
+            ScheduleChange row = change.getValue();
+            ScheduleEntry entry = row.getEntryId() != null ? current.get(row.getEntryId()) : null;
+            List<Recurrence.Occurrence> occurrences = row.getRuleId() != null && row.getType() != ChangeType.DELETE
+                ? ruleIndex.occurrencesOf(row.getRuleId())
+                : null;
+            ChangeType type = row.getType();
+            if (type != ChangeType.DELETE && entry == null && occurrences == null) {
+                // Deleted after the watermark; its own change will follow
+                type = ChangeType.DELETE;
+            } else if (type == ChangeType.UPDATE && inserted.contains(change.getKey())) {
+                type = ChangeType.INSERT;
+            }
+            boolean deleted = type == ChangeType.DELETE;
+            changes.add(new Change(row.getSeq(), type, row.getEntryId(), deleted ? null : entry,
+                row.getRuleId(), deleted ? null : occurrences));
+        }
+        return new Feed(since, next, hasMore, false, changes);
+    }
+
+    /**
+     * Deletes the changes older than the retention period.
+     */
+    @Scheduled(cron = "${schedule.changes.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        try {
+            Long through = repository.findMaxSeqBefore(LocalDateTime.now().minusDays(RETENTION_DAYS));
+            // The latest change is always kept so that the sequence resumes from it after a restart
+            if (through != null) {
+                through = Math.min(through, repository.findMaxSeq() - 1);
+                int deleted = repository.deleteThrough(through);
+                purgedThrough = Math.max(purgedThrough, through);
+                logger.info("Purged {} schedule changes up to sequence {}", deleted, through);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Schedule changes could not be purged: {}", e.getMessage());
+        }
+    }
+
+    private void initialize() {
+        if (!initialized) {
+            Long max = repository.findMaxSeq();
+            Long min = repository.findMinSeq();
+            sequence = max != null ? max : 0;
+            purgedThrough = min != null ? min - 1 : sequence;
+            initialized = true;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.schedule.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory copy of the schedule entries, used by {@link ScheduleService} to detect conflicts and
+ * answer filtered reads without querying the database.
+ *
+ * Most entries live in a compact, immutable {@link ScheduleSnapshot}. Entries saved or deleted
+ * since it was built are kept in a small delta of interval trees per room, teacher and group, and
+ * the snapshot rows they replace are marked as removed; once the delta grows past a fraction of
+ * the snapshot, both are merged into a new snapshot.
+ *
+ * The index is loaded once the application is ready and kept in sync by the service on every
+ * save and delete. Until it is loaded, {@link #isReady()} returns false and callers fall back
+ * to the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleConflictIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleConflictIndex.class);
+
+    private static final int MIN_COMPACTION_CHANGES = 1024;
+    private static final Comparator<ScheduleEntry> ORDER =
+        Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId);
+
+    private final ScheduleEntryRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduleSnapshot snapshot = ScheduleSnapshot.empty();
+    private BitSet removed = new BitSet();
+    private int removedCount;
+    private final Map<String, IntervalTree> rooms = new HashMap<>();
+    private final Map<String, IntervalTree> teachers = new HashMap<>();
+    private final Map<String, IntervalTree> groups = new HashMap<>();
+    private final Map<Long, ScheduleEntry> delta = new HashMap<>();
+    private int changesSinceCompaction;
+    private volatile boolean ready;
+
+    /**
+     * Consistent, private copy of the index: the immutable snapshot is shared, while the rows
+     * removed from it and the delta are copied.
+     */
+    record View(ScheduleSnapshot snapshot, BitSet removed, List<ScheduleEntry> delta) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // The write lock is held across the read so that writes saved meanwhile are applied after it
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            rebuild(repository.findAll());
+            ready = true;
+            logger.info("Schedule index loaded with {} entries ({} in the snapshot, about {} KB of columns)",
+                sizeUnlocked(), snapshot.size(), snapshot.arrayBytes() / 1024);
+        } catch (RuntimeException e) {
+            logger.warn("Schedule index could not be loaded, falling back to database queries: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return sizeUnlocked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasConflict(ScheduleEntry entry, Long excludeId) {
+        if (entry.getStartTime() == null || entry.getEndTime() == null) {
+            return false;
+        }
+        long start = toKey(entry.getStartTime());
+        long end = toKey(entry.getEndTime());
+        long exclude = excludeId != null ? excludeId : Long.MIN_VALUE;
+        lock.readLock().lock();
+        try {
+            return overlaps(ScheduleSnapshot.Column.ROOM, rooms, entry.getRoomId(), entry, start, end, excludeId, exclude)
+                || overlaps(ScheduleSnapshot.Column.TEACHER, teachers, entry.getTeacherId(), entry, start, end, excludeId, exclude)
+                || overlaps(ScheduleSnapshot.Column.GROUP, groups, entry.getGroupId(), entry, start, end, excludeId, exclude);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of the indexed state of an entry, or null if it is not indexed.
+     */
+    public ScheduleEntry find(Long id) {
+        if (id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            ScheduleEntry entry = delta.get(id);
+            if (entry != null) {
+                return copyOf(entry);
+            }
+            int row = snapshot.rowOf(id);
+            return row >= 0 && !removed.get(row) ? snapshot.toEntry(row) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries matching the filters of {@link ScheduleSpecifications#filter}, in (startTime, id)
+     * order. The entries returned are detached copies.
+     */
+    public List<ScheduleEntry> findAll(
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo
+    ) {
+        List<ScheduleEntry> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ScheduleSnapshot base = snapshot;
+            base.forEachMatch(courseId, teacherId, roomId, groupId, status, startFrom, endTo, removed,
+                row -> result.add(base.toEntry(row)));
+            int fromSnapshot = result.size();
+            for (ScheduleEntry entry : delta.values()) {
+                if (matches(entry, courseId, teacherId, roomId, groupId, status, startFrom, endTo)) {
+                    result.add(copyOf(entry));
+                }
+            }
+            if (result.size() > fromSnapshot) {
+                result.sort(ORDER);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Visits the start and end of the entries of a group, teacher or room overlapping
+     * {@code [from, to)}, in no particular order.
+     */
+    public void forEachOverlap(TimetableView view, String key, LocalDateTime from, LocalDateTime to,
+                               BiConsumer<LocalDateTime, LocalDateTime> action) {
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        ScheduleSnapshot.Column column = switch (view) {
+            case GROUP -> ScheduleSnapshot.Column.GROUP;
+            case TEACHER -> ScheduleSnapshot.Column.TEACHER;
+            case ROOM -> ScheduleSnapshot.Column.ROOM;
+        };
+        Map<String, IntervalTree> trees = switch (view) {
+            case GROUP -> groups;
+            case TEACHER -> teachers;
+            case ROOM -> rooms;
+        };
+        lock.readLock().lock();
+        try {
+            ScheduleSnapshot base = snapshot;
+            base.forEachOverlap(column, key, from, to, removed, row -> action.accept(base.startOf(row), base.endOf(row)));
+            IntervalTree tree = trees.get(key);
+            if (tree != null) {
+                tree.forEachOverlap(toKey(from), toKey(to), id -> {
+                    ScheduleEntry entry = delta.get(id);
+                    action.accept(entry.getStartTime(), entry.getEndTime());
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of the current state, which later writes do not change. Only the removed rows and the
+     * delta are copied, both bounded by the compaction threshold.
+     */
+    View view() {
+        lock.readLock().lock();
+        try {
+            List<ScheduleEntry> copies = new ArrayList<>(delta.size());
+            for (ScheduleEntry entry : delta.values()) {
+                copies.add(copyOf(entry));
+            }
+            return new View(snapshot, (BitSet) removed.clone(), copies);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(ScheduleEntry entry) {
+        if (entry.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeById(entry.getId());
+            addToDelta(copyOf(entry));
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeById(id);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private int sizeUnlocked() {
+        return snapshot.size() - removedCount + delta.size();
+    }
+
+    private void changed() {
+        changesSinceCompaction++;
+        if (changesSinceCompaction > Math.max(MIN_COMPACTION_CHANGES, snapshot.size() / 16)) {
+            List<ScheduleEntry> live = new ArrayList<>(sizeUnlocked());
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (!removed.get(row)) {
+                    live.add(snapshot.toEntry(row));
+                }
+            }
+            live.addAll(delta.values());
+            rebuild(live);
+        }
+    }
+
+    /**
+     * Replaces the snapshot and the delta by {@code entries}; entries that cannot be stored in a
+     * snapshot stay in the delta.
+     */
+    private void rebuild(List<ScheduleEntry> entries) {
+        rooms.clear();
+        teachers.clear();
+        groups.clear();
+        delta.clear();
+        List<ScheduleEntry> storable = new ArrayList<>(entries.size());
+        for (ScheduleEntry entry : entries) {
+            if (ScheduleSnapshot.isStorable(entry)) {
+                storable.add(entry);
+            } else {
+                addToDelta(copyOf(entry));
+            }
+        }
+        snapshot = ScheduleSnapshot.of(storable);
+        removed = new BitSet(snapshot.size());
+        removedCount = 0;
+        changesSinceCompaction = 0;
+    }
+
+    private void addToDelta(ScheduleEntry entry) {
+        if (entry.getId() == null || entry.getStartTime() == null || entry.getEndTime() == null) {
+            return;
+        }
+        delta.put(entry.getId(), entry);
+        insert(rooms, entry.getRoomId(), entry);
+        insert(teachers, entry.getTeacherId(), entry);
+        insert(groups, entry.getGroupId(), entry);
+    }
+
+    private void removeById(Long id) {
+        int row = snapshot.rowOf(id);
+        if (row >= 0 && !removed.get(row)) {
+            removed.set(row);
+            removedCount++;
+        }
+        ScheduleEntry entry = delta.remove(id);
+        if (entry == null) {
+            return;
+        }
+        delete(rooms, entry.getRoomId(), entry);
+        delete(teachers, entry.getTeacherId(), entry);
+        delete(groups, entry.getGroupId(), entry);
+    }
+
+    private boolean overlaps(ScheduleSnapshot.Column column, Map<String, IntervalTree> trees, String key,
+                             ScheduleEntry entry, long start, long end, Long excludeId, long exclude) {
+        if (key == null || key.isBlank()) {
+            return false;
+        }
+        if (snapshot.overlaps(column, key, entry.getStartTime(), entry.getEndTime(), exclude, removed)) {
+            return true;
+        }
+        IntervalTree tree = trees.get(key);
+        return tree != null && tree.overlaps(start, end, excludeId);
+    }
+
+    private static boolean matches(
+        ScheduleEntry entry,
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo
+    ) {
+        return (!StringUtils.hasText(courseId) || courseId.equals(entry.getCourseId()))
+            && (!StringUtils.hasText(teacherId) || teacherId.equals(entry.getTeacherId()))
+            && (!StringUtils.hasText(roomId) || roomId.equals(entry.getRoomId()))
+            && (!StringUtils.hasText(groupId) || groupId.equals(entry.getGroupId()))
+            && (status == null || status == entry.getStatus())
+            && (startFrom == null || !entry.getStartTime().isBefore(startFrom))
+            && (endTo == null || !entry.getEndTime().isAfter(endTo));
+    }
+
+    private static ScheduleEntry copyOf(ScheduleEntry entry) {
+        ScheduleEntry copy = new ScheduleEntry();
+        copy.setId(entry.getId());
+        copy.setCourseId(entry.getCourseId());
+        copy.setTeacherId(entry.getTeacherId());
+        copy.setRoomId(entry.getRoomId());
+        copy.setGroupId(entry.getGroupId());
+        copy.setStartTime(entry.getStartTime());
+        copy.setEndTime(entry.getEndTime());
+        copy.setStatus(entry.getStatus());
+        copy.setVersion(entry.getVersion());
+        return copy;
+    }
+
+    private static void insert(Map<String, IntervalTree> trees, String key, ScheduleEntry entry) {
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        trees.computeIfAbsent(key, k -> new IntervalTree())
+            .insert(toKey(entry.getStartTime()), toKey(entry.getEndTime()), entry.getId());
+    }
+
+    private static void delete(Map<String, IntervalTree> trees, String key, ScheduleEntry entry) {
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        IntervalTree tree = trees.get(key);
+        if (tree != null) {
+            tree.remove(toKey(entry.getStartTime()), entry.getId());
+            if (tree.isEmpty()) {
+                trees.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.schedule.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.example.schedule.entities.ScheduleEntry;
+
+/**
+ * Position of a schedule entry in (startTime, id) order, or of a rule occurrence when
+ * {@code ruleId} is set, exchanged with clients as an opaque URL-safe token. Occurrences come
+ * before the entries starting at the same time, in ruleId order (see {@link Recurrence#merge}).
+ */
+record ScheduleCursor(LocalDateTime startTime, Long id, Long ruleId) {
+
+    private static final String RULE_PREFIX = "r";
+
+    static ScheduleCursor of(ScheduleEntry entry) {
+        return new ScheduleCursor(entry.getStartTime(), entry.getId(), entry.getRuleId());
+    }
+
+    /**
+     * True if the entry or occurrence comes after this position.
+     */
+    boolean isBefore(ScheduleEntry entry) {
+        int order = entry.getStartTime().compareTo(startTime);
+        if (order != 0) {
+            return order > 0;
+        }
+        if (entry.getRuleId() != null) {
+            return ruleId != null && entry.getRuleId() > ruleId;
+        }
+        return ruleId != null || entry.getId() > id;
+    }
+
+    /**
+     * Id after which the stored entries starting at {@link #startTime} come after this position.
+     */
+    long entryIdAfter() {
+        return ruleId != null ? Long.MIN_VALUE : id;
+    }
+
+    String encode() {
+        String raw = startTime + "|" + (ruleId != null ? RULE_PREFIX + ruleId : id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ScheduleCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            LocalDateTime startTime = LocalDateTime.parse(raw.substring(0, separator));
+            String position = raw.substring(separator + 1);
+            return position.startsWith(RULE_PREFIX)
+                ? new ScheduleCursor(startTime, null, Long.parseLong(position.substring(RULE_PREFIX.length())))
+                : new ScheduleCursor(startTime, Long.parseLong(position), null);
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.schedule.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bulk import of schedule entries from a JSON array or a CSV stream.
+ *
+ * Rows are validated one by one, then checked for conflicts with a sort-and-sweep per resource
+ * (room, teacher, group): first against the entries already stored over the period of the batch,
+ * loaded with a single query, then between the rows themselves, and finally against the
+ * occurrences of the recurrence rules. Inside the batch, the row that
+ * starts first keeps the slot (the earlier row on ties). Accepted rows are written with a JDBC
+ * batch insert, bypassing JPA whose identity ids disable batching.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleImporter {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL = "INSERT INTO schedule_entries "
+        + "(course_id, teacher_id, room_id, group_id, start_time, end_time, status, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final List<String> CSV_COLUMNS = List.of(
+        "courseId", "teacherId", "roomId", "groupId", "startTime", "endTime", "status"
+    );
+
+    private final ScheduleEntryRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleRuleIndex ruleIndex;
+
+    public record RowResult(int row, boolean accepted, Long id, List<String> errors) {}
+
+    /**
+     * Entries and errors of the imported rows, in row order; a row is accepted if it has no error.
+     */
+    public record Plan(List<ScheduleEntry> entries, List<List<String>> errors) {
+
+        public List<ScheduleEntry> accepted() {
+            List<ScheduleEntry> accepted = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                if (errors.get(i).isEmpty()) {
+                    accepted.add(entries.get(i));
+                }
+            }
+            return accepted;
+        }
+
+        public List<RowResult> rows() {
+            List<RowResult> rows = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                boolean ok = errors.get(i).isEmpty();
+                rows.add(new RowResult(i + 1, ok, ok ? entries.get(i).getId() : null, errors.get(i)));
+            }
+            return rows;
+        }
+    }
+
+    private record Row(int row, ScheduleEntry entry, List<String> errors) {}
+
+    private record Resource(String name, Function<ScheduleEntry, String> key) {}
+
+    private static final List<Resource> RESOURCES = List.of(
+        new Resource("room", ScheduleEntry::getRoomId),
+        new Resource("teacher", ScheduleEntry::getTeacherId),
+        new Resource("group", ScheduleEntry::getGroupId)
+    );
+
+    public Plan plan(List<ScheduleEntry> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("A list of schedule entries is required");
+        }
+        List<Row> rows = new ArrayList<>(entries.size());
+        for (ScheduleEntry entry : entries) {
+            Row row = new Row(rows.size() + 1, entry != null ? entry : new ScheduleEntry(), new ArrayList<>());
+            validate(row);
+            rows.add(row);
+        }
+        return check(rows);
+    }
+
+    /**
+     * Reads CSV rows with the columns {@code courseId,teacherId,roomId,groupId,startTime,endTime[,status]},
+     * in that order or in the order given by a header line. Times are ISO local date-times.
+     */
+    public Plan planCsv(InputStream input) {
+        List<Row> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int[] columns = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (columns == null && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = split(line);
+                if (columns == null) {
+                    columns = header(fields);
+                    if (columns != null) {
+                        continue;
+                    }
+                    columns = new int[] {0, 1, 2, 3, 4, 5, 6};
+                }
+                rows.add(parse(rows.size() + 1, fields, columns));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return check(rows);
+    }
+
+    /**
+     * Inserts the entries with batched statements and sets their generated ids.
+     */
+    @Transactional
+    public void insert(List<ScheduleEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+                    List<ScheduleEntry> chunk = entries.subList(from, Math.min(entries.size(), from + BATCH_SIZE));
+                    for (ScheduleEntry entry : chunk) {
+                        statement.setString(1, entry.getCourseId());
+                        statement.setString(2, entry.getTeacherId());
+                        statement.setString(3, entry.getRoomId());
+                        statement.setString(4, entry.getGroupId());
+                        statement.setTimestamp(5, Timestamp.valueOf(entry.getStartTime()));
+                        statement.setTimestamp(6, Timestamp.valueOf(entry.getEndTime()));
+                        statement.setString(7, entry.getStatus().name());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (ScheduleEntry entry : chunk) {
+                            if (!keys.next()) {
+                                throw new IllegalStateException("Missing generated id for imported schedule entry");
+                            }
+                            entry.setId(keys.getLong(1));
+                            entry.setVersion(0L);
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private Plan check(List<Row> rows) {
+        List<Row> valid = rows.stream().filter(r -> r.errors().isEmpty()).toList();
+        if (!valid.isEmpty()) {
+            LocalDateTime from = valid.stream().map(r -> r.entry().getStartTime()).min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime to = valid.stream().map(r -> r.entry().getEndTime()).max(Comparator.naturalOrder()).orElseThrow();
+            List<ScheduleEntry> existing = repository.findAll(ScheduleSpecifications.overlapping(from, to));
+            for (Resource resource : RESOURCES) {
+                sweepExisting(resource, valid, existing);
+            }
+            sweepBatch(valid.stream().filter(r -> r.errors().isEmpty()).toList());
+            for (Row row : valid) {
+                if (row.errors().isEmpty() && ruleIndex.hasConflict(row.entry(), null)) {
+                    row.errors().add("Conflict with a recurring session");
+                }
+            }
+        }
+        return new Plan(rows.stream().map(Row::entry).toList(), rows.stream().map(Row::errors).toList());
+    }
+
+    /**
+     * Rejects the rows overlapping a stored entry on the resource. Stored entries and rows are
+     * swept together in (key, start) order, stored entries first on ties: a row conflicts with
+     * the stored entries started before it if their latest end is after its start, and a stored
+     * entry conflicts with every row still running at its start.
+     */
+    private static void sweepExisting(Resource resource, List<Row> rows, List<ScheduleEntry> existing) {
+        List<Event> events = new ArrayList<>(rows.size() + existing.size());
+        for (ScheduleEntry entry : existing) {
+            String key = resource.key().apply(entry);
+            if (StringUtils.hasText(key) && entry.getStartTime() != null && entry.getEndTime() != null) {
+                events.add(new Event(key, entry.getStartTime(), entry.getEndTime(), entry.getId(), null));
+            }
+        }
+        for (Row row : rows) {
+            ScheduleEntry entry = row.entry();
+            events.add(new Event(resource.key().apply(entry), entry.getStartTime(), entry.getEndTime(), null, row));
+        }
+        events.sort(Comparator.comparing(Event::key)
+            .thenComparing(Event::start)
+            .thenComparing(e -> e.row() != null));
+
+        String key = null;
+        Event latest = null;
+        PriorityQueue<Event> running = new PriorityQueue<>(Comparator.comparing(Event::end));
+        for (Event event : events) {
+            if (!event.key().equals(key)) {
+                key = event.key();
+                latest = null;
+                running.clear();
+            }
+            if (event.row() == null) {
+                while (!running.isEmpty() && !running.peek().end().isAfter(event.start())) {
+                    running.poll();
+                }
+                for (Event pending : running) {
+                    conflict(pending.row(), resource, "scheduled entry " + event.id());
+                }
+                running.clear();
+                if (latest == null || event.end().isAfter(latest.end())) {
+                    latest = event;
+                }
+            } else if (latest != null && latest.end().isAfter(event.start())) {
+                conflict(event.row(), resource, "scheduled entry " + latest.id());
+            } else {
+                running.add(event);
+            }
+        }
+    }
+
+    private record Event(String key, LocalDateTime start, LocalDateTime end, Long id, Row row) {}
+
+    /**
+     * Resolves conflicts between the rows in one pass over the rows sorted by start: a row is
+     * accepted if, for each resource, the accepted row with the latest end on the same key ends
+     * before it starts.
+     */
+    private static void sweepBatch(List<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing((Row r) -> r.entry().getStartTime()).thenComparingInt(Row::row));
+        List<Map<String, Row>> latest = new ArrayList<>();
+        RESOURCES.forEach(r -> latest.add(new HashMap<>()));
+        for (Row row : sorted) {
+            ScheduleEntry entry = row.entry();
+            for (int r = 0; r < RESOURCES.size(); r++) {
+                Row other = latest.get(r).get(RESOURCES.get(r).key().apply(entry));
+                if (other != null && other.entry().getEndTime().isAfter(entry.getStartTime())) {
+                    conflict(row, RESOURCES.get(r), "row " + other.row());
+                }
+            }
+            if (!row.errors().isEmpty()) {
+                continue;
+            }
+            for (int r = 0; r < RESOURCES.size(); r++) {
+                latest.get(r).merge(RESOURCES.get(r).key().apply(entry), row,
+                    (a, b) -> b.entry().getEndTime().isAfter(a.entry().getEndTime()) ? b : a);
+            }
+        }
+    }
+
+    private static void conflict(Row row, Resource resource, String with) {
+        row.errors().add("Conflict on " + resource.name() + " " + resource.key().apply(row.entry()) + " with " + with);
+    }
+
+    private static void validate(Row row) {
+        ScheduleEntry entry = row.entry();
+        for (String column : CSV_COLUMNS.subList(0, 4)) {
+            if (!StringUtils.hasText(field(entry, column))) {
+                row.errors().add(column + " is required");
+            }
+        }
+        if (entry.getStartTime() == null || entry.getEndTime() == null || !entry.getEndTime().isAfter(entry.getStartTime())) {
+            row.errors().add("End time must be after start time");
+        } else if (entry.getEndTime().isAfter(entry.getStartTime().plus(ScheduleEntry.MAX_DURATION))) {
+            row.errors().add("A session cannot last more than " + ScheduleEntry.MAX_DURATION.toHours() + " hours");
+        }
+        if (entry.getStatus() == null) {
+            entry.setStatus(SessionStatus.SCHEDULED);
+        }
+    }
+
+    private static String field(ScheduleEntry entry, String column) {
+        return switch (column) {
+            case "courseId" -> entry.getCourseId();
+            case "teacherId" -> entry.getTeacherId();
+            case "roomId" -> entry.getRoomId();
+            default -> entry.getGroupId();
+        };
+    }
+
+    private static Row parse(int number, String[] fields, int[] columns) {
+        Row row = new Row(number, new ScheduleEntry(), new ArrayList<>());
+        ScheduleEntry entry = row.entry();
+        entry.setCourseId(value(fields, columns[0]));
+        entry.setTeacherId(value(fields, columns[1]));
+        entry.setRoomId(value(fields, columns[2]));
+        entry.setGroupId(value(fields, columns[3]));
+        entry.setStartTime(parseTime(row, "startTime", value(fields, columns[4])));
+        entry.setEndTime(parseTime(row, "endTime", value(fields, columns[5])));
+        String status = value(fields, columns[6]);
+        if (StringUtils.hasText(status)) {
+            try {
+                entry.setStatus(SessionStatus.valueOf(status.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                row.errors().add("Invalid status '" + status + "'");
+            }
+        }
+        if (row.errors().isEmpty()) {
+            validate(row);
+        }
+        return row;
+    }
+
+    private static LocalDateTime parseTime(Row row, String column, String value) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            row.errors().add("Invalid " + column + " '" + value + "'");
+            return null;
+        }
+    }
+
+    private static String value(String[] fields, int column) {
+        return column >= 0 && column < fields.length ? fields[column] : null;
+    }
+
+    /**
+     * Column positions from a header line, or null if the line is not a header.
+     */
+    private static int[] header(String[] fields) {
+        List<String> names = Arrays.stream(fields).map(f -> f.toLowerCase(Locale.ROOT)).toList();
+        if (!names.contains("courseid")) {
+            return null;
+        }
+        return CSV_COLUMNS.stream().mapToInt(c -> names.indexOf(c.toLowerCase(Locale.ROOT))).toArray();
+    }
+
+    /**
+     * Splits a CSV line on commas or semicolons, honouring double-quoted fields.
+     */
+    private static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if ((c == ',' || c == ';') && !quoted) {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.schedule.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.example.schedule.entities.ScheduleEntry;
+
+/**
+ * Striped locks over the rooms, teachers and groups of schedule entries, held by
+ * {@link ScheduleService} from the conflict check until the write is committed and indexed.
+ *
+ * Each resource maps to one of {@value #STRIPES} locks. The stripes of a write are taken in
+ * ascending order, so two writes can never wait on each other in a cycle; writes whose resources
+ * fall on different stripes run in parallel.
+ */
+@Component
+public class ScheduleLocks {
+
+    private static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ScheduleLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs {@code action} holding the stripes of the room, teacher and group of every given entry.
+     * Null entries are ignored.
+     */
+    public <T> T withResources(Collection<ScheduleEntry> entries, Supplier<T> action) {
+        boolean[] wanted = new boolean[STRIPES];
+        for (ScheduleEntry entry : entries) {
+            if (entry != null) {
+                mark(wanted, "room", entry.getRoomId());
+                mark(wanted, "teacher", entry.getTeacherId());
+                mark(wanted, "group", entry.getGroupId());
+            }
+        }
+        List<ReentrantLock> held = new ArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            if (wanted[i]) {
+                held.add(locks[i]);
+            }
+        }
+        return run(held, action);
+    }
+
+    /**
+     * Runs {@code action} holding every stripe, for batch writes whose resources are only known
+     * once they have been planned.
+     */
+    public <T> T withAll(Supplier<T> action) {
+        return run(List.of(locks), action);
+    }
+
+    private static <T> T run(List<ReentrantLock> held, Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (ReentrantLock lock : held) {
+                lock.lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    private static void mark(boolean[] wanted, String type, String key) {
+        if (key != null && !key.isBlank()) {
+            int hash = (type + ':' + key).hashCode();
+            wanted[Math.floorMod(hash ^ (hash >>> 16), STRIPES)] = true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.schedule.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the semester partitions of schedule_entries ahead of the sessions being planned.
+ *
+ * The table is partitioned by range of start time, one partition per semester (September to
+ * January, February to August) and a last {@code p_future} partition for anything later. So
+ * that new semesters do not all land in {@code p_future}, it is split until the bounded
+ * partitions cover {@value #MONTHS_AHEAD} months ahead. Nothing is done when the table is not
+ * partitioned, e.g. on a database other than MySQL.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchedulePartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulePartitionMaintainer.class);
+
+    private static final String TABLE = "schedule_entries";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final int MONTHS_AHEAD = 18;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${schedule.partitions.cron:0 0 4 1 * *}")
+    public void maintain() {
+        try {
+            LocalDateTime upper = upperBound();
+            if (upper == null) {
+                return;
+            }
+            LocalDateTime horizon = LocalDate.now().plusMonths(MONTHS_AHEAD).atStartOfDay();
+            while (upper.isBefore(horizon)) {
+                LocalDateTime next = AcademicCalendar.nextSemester(upper.toLocalDate()).atStartOfDay();
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                    + "PARTITION " + upper.format(NAME_FORMAT) + " VALUES LESS THAN ('" + next.format(BOUND_FORMAT) + "'), "
+                    + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+                logger.info("Added partition {} of {} up to {}", upper.format(NAME_FORMAT), TABLE, next.toLocalDate());
+                upper = next;
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Partitions of {} could not be maintained: {}", TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Upper bound of the last partition before {@code p_future}, or null if the table is not
+     * partitioned that way.
+     */
+    private LocalDateTime upperBound() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("mysql")) {
+            return null;
+        }
+        List<String> names = jdbcTemplate.queryForList(
+            "SELECT partition_name FROM information_schema.partitions"
+                + " WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL"
+                + " ORDER BY partition_ordinal_position",
+            String.class, TABLE);
+        if (names.size() < 2 || !FUTURE_PARTITION.equals(names.get(names.size() - 1))) {
+            return null;
+        }
+        // RANGE COLUMNS bounds are kept as quoted literals, e.g. '2028-09-01 00:00:00'
+        String bound = jdbcTemplate.queryForObject(
+            "SELECT partition_description FROM information_schema.partitions"
+                + " WHERE table_schema = DATABASE() AND table_name = ? AND partition_name = ?",
+            String.class, TABLE, names.get(names.size() - 2));
+        return bound == null ? null : Timestamp.valueOf(bound.replace("'", "")).toLocalDateTime();
+    }
+}
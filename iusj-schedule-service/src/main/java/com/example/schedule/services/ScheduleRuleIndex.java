@@ -0,0 +1,367 @@
+package com.example.schedule.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.RuleException;
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.ScheduleRule;
+import com.example.schedule.repositories.ScheduleRuleRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory copy of the recurrence rules per room, teacher and group, used to check entries and
+ * rules against the occurrences of the other rules without expanding them in the database.
+ *
+ * Rules are few compared to entries, so they are all kept. The index is loaded once the
+ * application is ready, or on first use, and kept in sync by {@link ScheduleService}. While it
+ * cannot be loaded, every check fails rather than letting writes through unchecked, and the load
+ * is retried at most every {@value #RETRY_MS} ms.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleRuleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleRuleIndex.class);
+
+    private static final long RETRY_MS = 10_000;
+
+    private final ScheduleRuleRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, ScheduleRule> rules = new HashMap<>();
+    private final Map<String, Set<Long>> rooms = new HashMap<>();
+    private final Map<String, Set<Long>> teachers = new HashMap<>();
+    private final Map<String, Set<Long>> groups = new HashMap<>();
+    private volatile boolean ready;
+    private volatile long retryAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            rules.clear();
+            rooms.clear();
+            teachers.clear();
+            groups.clear();
+            repository.findAll().forEach(this::add);
+            ready = true;
+            logger.info("Rule index loaded with {} recurrence rules", rules.size());
+        } catch (RuntimeException e) {
+            retryAt = System.currentTimeMillis() + RETRY_MS;
+            logger.warn("Rule index could not be loaded: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * True if an occurrence of a rule other than {@code excludeRuleId} overlaps the entry and shares
+     * its room, teacher or group.
+     */
+    public boolean hasConflict(ScheduleEntry entry, Long excludeRuleId) {
+        if (entry.getStartTime() == null || entry.getEndTime() == null) {
+            return false;
+        }
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(entry.getRoomId(), entry.getTeacherId(), entry.getGroupId())) {
+                if (id.equals(excludeRuleId)) {
+                    continue;
+                }
+                for (Recurrence.Occurrence occurrence : Recurrence.between(rules.get(id), entry.getStartTime(), entry.getEndTime())) {
+                    if (Objects.equals(occurrence.roomId(), entry.getRoomId())
+                        || Objects.equals(occurrence.teacherId(), entry.getTeacherId())
+                        || Objects.equals(occurrence.groupId(), entry.getGroupId())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Date of an occurrence of the rule overlapping an occurrence of another rule sharing its room,
+     * teacher or group, or null. Regular occurrences are intersected arithmetically (see
+     * {@link Recurrence#firstRegularOverlap}); only moved occurrences are checked one by one,
+     * against the other rule expanded over their own interval.
+     */
+    public LocalDate conflictDate(ScheduleRule rule) {
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (String roomId : roomsOf(rule)) {
+                ids.addAll(rooms.getOrDefault(roomId, Set.of()));
+            }
+            ids.addAll(teachers.getOrDefault(rule.getTeacherId(), Set.of()));
+            ids.addAll(groups.getOrDefault(rule.getGroupId(), Set.of()));
+            for (Long id : ids) {
+                if (id.equals(rule.getId())) {
+                    continue;
+                }
+                ScheduleRule other = rules.get(id);
+                LocalDate date = sharesResource(rule, other) ? Recurrence.firstRegularOverlap(rule, other) : null;
+                if (date == null) {
+                    date = movedOverlap(rule, other);
+                }
+                if (date != null) {
+                    return date;
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Occurrences overlapping {@code [from, to)} of the given teacher, room and group, any of them
+     * when null, in start order.
+     */
+    public List<Recurrence.Occurrence> occurrences(String teacherId, String roomId, String groupId,
+                                                   LocalDateTime from, LocalDateTime to) {
+        ensureReady();
+        List<Recurrence.Occurrence> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Long> ids;
+            if (StringUtils.hasText(roomId)) {
+                ids = rooms.getOrDefault(roomId, Set.of());
+            } else if (StringUtils.hasText(teacherId)) {
+                ids = teachers.getOrDefault(teacherId, Set.of());
+            } else if (StringUtils.hasText(groupId)) {
+                ids = groups.getOrDefault(groupId, Set.of());
+            } else {
+                ids = rules.keySet();
+            }
+            for (Long id : ids) {
+                for (Recurrence.Occurrence occurrence : Recurrence.between(rules.get(id), from, to)) {
+                    if ((!StringUtils.hasText(teacherId) || teacherId.equals(occurrence.teacherId()))
+                        && (!StringUtils.hasText(roomId) || roomId.equals(occurrence.roomId()))
+                        && (!StringUtils.hasText(groupId) || groupId.equals(occurrence.groupId()))) {
+                        result.add(occurrence);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparing(Recurrence.Occurrence::start).thenComparing(Recurrence.Occurrence::ruleId));
+        return result;
+    }
+
+    /**
+     * Occurrences of a group, teacher or room, or of every resource when {@code view} is null,
+     * overlapping {@code [from, to)}, as transient entries in start order (see
+     * {@link Recurrence#toEntry}).
+     */
+    public List<ScheduleEntry> entries(TimetableView view, String key, LocalDateTime from, LocalDateTime to) {
+        List<ScheduleEntry> entries = new ArrayList<>();
+        for (Recurrence.Occurrence occurrence : occurrences(
+            view == TimetableView.TEACHER ? key : null,
+            view == TimetableView.ROOM ? key : null,
+            view == TimetableView.GROUP ? key : null,
+            from,
+            to
+        )) {
+            entries.add(Recurrence.toEntry(occurrence));
+        }
+        return entries;
+    }
+
+    /**
+     * Every occurrence of a rule, or null if it does not exist.
+     */
+    public List<Recurrence.Occurrence> occurrencesOf(Long ruleId) {
+        ensureReady();
+        lock.readLock().lock();
+        try {
+            ScheduleRule rule = rules.get(ruleId);
+            return rule != null ? Recurrence.between(rule, null, null) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits the start and end of the occurrences of a group, teacher or room overlapping
+     * {@code [from, to)}.
+     */
+    public void forEachOverlap(TimetableView view, String key, LocalDateTime from, LocalDateTime to,
+                               BiConsumer<LocalDateTime, LocalDateTime> action) {
+        List<Recurrence.Occurrence> occurrences = switch (view) {
+            case GROUP -> occurrences(null, null, key, from, to);
+            case TEACHER -> occurrences(key, null, null, from, to);
+            case ROOM -> occurrences(null, key, null, from, to);
+        };
+        for (Recurrence.Occurrence occurrence : occurrences) {
+            action.accept(occurrence.start(), occurrence.end());
+        }
+    }
+
+    public void put(ScheduleRule rule) {
+        if (rule.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeById(rule.getId());
+            add(rule);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeById(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureReady() {
+        if (!ready && System.currentTimeMillis() >= retryAt) {
+            load();
+        }
+        if (!ready) {
+            throw new IllegalStateException("The recurrence rules are not loaded, schedule conflicts cannot be checked");
+        }
+    }
+
+    private Set<Long> candidates(String roomId, String teacherId, String groupId) {
+        Set<Long> ids = new LinkedHashSet<>();
+        ids.addAll(rooms.getOrDefault(roomId, Set.of()));
+        ids.addAll(teachers.getOrDefault(teacherId, Set.of()));
+        ids.addAll(groups.getOrDefault(groupId, Set.of()));
+        return ids;
+    }
+
+    private void add(ScheduleRule rule) {
+        ScheduleRule copy = copyOf(rule);
+        rules.put(copy.getId(), copy);
+        for (String roomId : roomsOf(copy)) {
+            rooms.computeIfAbsent(roomId, k -> new LinkedHashSet<>()).add(copy.getId());
+        }
+        teachers.computeIfAbsent(copy.getTeacherId(), k -> new LinkedHashSet<>()).add(copy.getId());
+        groups.computeIfAbsent(copy.getGroupId(), k -> new LinkedHashSet<>()).add(copy.getId());
+    }
+
+    private void removeById(Long id) {
+        ScheduleRule rule = rules.remove(id);
+        if (rule == null) {
+            return;
+        }
+        for (String roomId : roomsOf(rule)) {
+            detach(rooms, roomId, id);
+        }
+        detach(teachers, rule.getTeacherId(), id);
+        detach(groups, rule.getGroupId(), id);
+    }
+
+    /**
+     * Date of an occurrence of {@code rule} overlapping an occurrence of {@code other} that shares
+     * its room, teacher or group, when one of the two is moved.
+     */
+    private static LocalDate movedOverlap(ScheduleRule rule, ScheduleRule other) {
+        for (Recurrence.Occurrence moved : Recurrence.movedOccurrences(rule)) {
+            for (Recurrence.Occurrence occurrence : Recurrence.between(other, moved.start(), moved.end())) {
+                if (sharesResource(moved, occurrence)) {
+                    return moved.date();
+                }
+            }
+        }
+        for (Recurrence.Occurrence moved : Recurrence.movedOccurrences(other)) {
+            for (Recurrence.Occurrence occurrence : Recurrence.between(rule, moved.start(), moved.end())) {
+                if (sharesResource(moved, occurrence)) {
+                    return occurrence.date();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean sharesResource(ScheduleRule a, ScheduleRule b) {
+        return Objects.equals(a.getRoomId(), b.getRoomId())
+            || Objects.equals(a.getTeacherId(), b.getTeacherId())
+            || Objects.equals(a.getGroupId(), b.getGroupId());
+    }
+
+    private static boolean sharesResource(Recurrence.Occurrence a, Recurrence.Occurrence b) {
+        return Objects.equals(a.roomId(), b.roomId())
+            || Objects.equals(a.teacherId(), b.teacherId())
+            || Objects.equals(a.groupId(), b.groupId());
+    }
+
+    /**
+     * Rooms the rule can occupy: its own and those of its moved occurrences.
+     */
+    static Set<String> roomsOf(ScheduleRule rule) {
+        Set<String> roomIds = new LinkedHashSet<>();
+        roomIds.add(rule.getRoomId());
+        for (RuleException exception : rule.getExceptions()) {
+            if (StringUtils.hasText(exception.getRoomId())) {
+                roomIds.add(exception.getRoomId());
+            }
+        }
+        return roomIds;
+    }
+
+    private static void detach(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static ScheduleRule copyOf(ScheduleRule rule) {
+        ScheduleRule copy = new ScheduleRule();
+        copy.setId(rule.getId());
+        copy.setCourseId(rule.getCourseId());
+        copy.setTeacherId(rule.getTeacherId());
+        copy.setRoomId(rule.getRoomId());
+        copy.setGroupId(rule.getGroupId());
+        copy.setFirstStart(rule.getFirstStart());
+        copy.setDurationMinutes(rule.getDurationMinutes());
+        copy.setIntervalWeeks(rule.getIntervalWeeks());
+        copy.setLastDate(rule.getLastDate());
+        copy.setVersion(rule.getVersion());
+        List<RuleException> exceptions = new ArrayList<>();
+        for (RuleException exception : rule.getExceptions()) {
+            exceptions.add(new RuleException(
+                exception.getOccurrenceDate(),
+                exception.isCancelled(),
+                exception.getStartTime(),
+                exception.getEndTime(),
+                exception.getRoomId()
+            ));
+        }
+        copy.setExceptions(exceptions);
+        return copy;
+    }
+}
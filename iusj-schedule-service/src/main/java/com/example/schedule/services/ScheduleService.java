@@ -1,8 +1,23 @@
 package com.example.schedule.services;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
@@ -10,10 +25,21 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.schedule.entities.ChangeType;
+import com.example.schedule.entities.RuleException;
 import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.ScheduleRule;
 import com.example.schedule.entities.SessionStatus;
 import com.example.schedule.repositories.ScheduleEntryRepository;
+import com.example.schedule.repositories.ScheduleRuleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,7 +47,35 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ScheduleService {
 
+    private static final long MAX_EXPORT_DAYS = 366;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_ROWS = 500;
+    private static final long MAX_RULE_DAYS = 366;
+    private static final Sort KEYSET_ORDER = Sort.by("startTime", "id").ascending();
+
     private final ScheduleEntryRepository repository;
+    private final ScheduleConflictIndex conflictIndex;
+    private final TimetableGenerator generator;
+    private final TimetableOptimizer optimizer;
+    private final TimetableRepairer repairer;
+    private final ScheduleImporter importer;
+    private final FreeSlotFinder freeSlotFinder;
+    private final TimetablePdfRenderer pdfRenderer;
+    private final TimetableExcelWriter excelWriter;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ScheduleStatsCounter statsCounter;
+    private final ScheduleLocks locks;
+    private final ScheduleChangeLog changeLog;
+    private final WeeklyTimetableCache weekCache;
+    private final ScheduleRuleRepository ruleRepository;
+    private final ScheduleRuleIndex ruleIndex;
+    private final CalendarFeedVersions feedVersions;
+    private final CalendarFeedWriter feedWriter;
+    private final ScheduleArchive archive;
+    private final ScheduleArchiver archiver;
+    private final ScheduleSimulator simulator;
 
     public List<ScheduleEntry> findAll(
         String courseId,
@@ -32,28 +86,239 @@ public class ScheduleService {
         LocalDateTime startFrom,
         LocalDateTime endTo
     ) {
+        List<ScheduleEntry> live;
+        if (conflictIndex.isReady()) {
+            live = conflictIndex.findAll(courseId, teacherId, roomId, groupId, status, startFrom, endTo);
+        } else {
+            Specification<ScheduleEntry> spec = ScheduleSpecifications.filter(
+                courseId,
+                teacherId,
+                roomId,
+                groupId,
+                status,
+                startFrom,
+                endTo
+            );
+            live = repository.findAll(spec, KEYSET_ORDER);
+        }
+        if (readsArchive(status, startFrom, endTo)) {
+            live = ScheduleArchive.merge(live, archive.find(courseId, teacherId, roomId, groupId, status, startFrom, endTo));
+        }
+        return Recurrence.merge(live, occurrenceEntries(courseId, teacherId, roomId, groupId, status, startFrom, endTo, null));
+    }
+
+    public record CursorPage(List<ScheduleEntry> items, String nextCursor) {}
+
+    /**
+     * One page of {@link #findAll} in (startTime, id) order, rule occurrences first at equal start,
+     * starting after {@code cursor}. The next cursor is null on the last page.
+     */
+    public CursorPage findPage(
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo,
+        String cursor,
+        Integer limit
+    ) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
         Specification<ScheduleEntry> spec = ScheduleSpecifications.filter(
-            courseId,
-            teacherId,
-            roomId,
-            groupId,
-            status,
-            startFrom,
-            endTo
+            courseId, teacherId, roomId, groupId, status, startFrom, endTo
         );
-        return repository.findAll(spec, Sort.by("startTime").ascending());
+        ScheduleCursor after = StringUtils.hasText(cursor) ? ScheduleCursor.decode(cursor) : null;
+        if (after != null) {
+            spec = spec.and(ScheduleSpecifications.after(after.startTime(), after.entryIdAfter()));
+        }
+        List<ScheduleEntry> items = repository.findBy(spec, query -> query.sortBy(KEYSET_ORDER).limit(size + 1).all());
+        LocalDateTime from = after == null ? startFrom : startFrom == null || after.startTime().isAfter(startFrom) ? after.startTime() : startFrom;
+        if (readsArchive(status, startFrom, endTo) && archive.overlaps(from, endTo)) {
+            List<ScheduleEntry> archived = new ArrayList<>();
+            for (ScheduleEntry entry : archive.find(courseId, teacherId, roomId, groupId, status, from, endTo)) {
+                if (after == null || after.isBefore(entry)) {
+                    archived.add(entry);
+                    if (archived.size() > size) {
+                        break;
+                    }
+                }
+            }
+            items = ScheduleArchive.merge(items, archived);
+            if (items.size() > size + 1) {
+                items = items.subList(0, size + 1);
+            }
+        }
+        // Occurrences past the last entry of the page cannot be on it
+        LocalDateTime latestStart = items.size() > size ? items.get(size).getStartTime() : null;
+        List<ScheduleEntry> occurrences = new ArrayList<>();
+        for (ScheduleEntry occurrence : occurrenceEntries(courseId, teacherId, roomId, groupId, status, from, endTo, latestStart)) {
+            if (after == null || after.isBefore(occurrence)) {
+                occurrences.add(occurrence);
+                if (occurrences.size() > size) {
+                    break;
+                }
+            }
+        }
+        if (!occurrences.isEmpty()) {
+            items = Recurrence.merge(items, occurrences);
+            if (items.size() > size + 1) {
+                items = items.subList(0, size + 1);
+            }
+        }
+        if (items.size() <= size) {
+            return new CursorPage(items, null);
+        }
+        ScheduleEntry last = items.get(size - 1);
+        return new CursorPage(items.subList(0, size), ScheduleCursor.of(last).encode());
+    }
+
+    /**
+     * Writes the entries of {@link #findAll} as newline-delimited JSON while they are read from a
+     * streaming, read-only query, flushing every {@value #STREAM_FLUSH_ROWS} rows.
+     */
+    public StreamingResponseBody streamAll(
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo
+    ) {
+        Specification<ScheduleEntry> spec = ScheduleSpecifications.filter(
+            courseId, teacherId, roomId, groupId, status, startFrom, endTo
+        );
+        List<ScheduleEntry> occurrences = occurrenceEntries(courseId, teacherId, roomId, groupId, status, startFrom, endTo, null);
+        return out -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(tx -> {
+                try (Stream<ScheduleEntry> entries = repository.streamAll(spec, KEYSET_ORDER)) {
+                    // The query runs before the archive is read, see ScheduleArchiver
+                    Iterator<ScheduleEntry> merged = readsArchive(status, startFrom, endTo)
+                        ? ScheduleArchive.merge(entries.iterator(), archive.find(courseId, teacherId, roomId, groupId, status, startFrom, endTo))
+                        : entries.iterator();
+                    merged = Recurrence.merge(merged, occurrences);
+                    int pending = 0;
+                    while (merged.hasNext()) {
+                        ScheduleEntry entry = merged.next();
+                        out.write(objectMapper.writeValueAsBytes(entry));
+                        out.write('\n');
+                        if (++pending == STREAM_FLUSH_ROWS) {
+                            out.flush();
+                            pending = 0;
+                        }
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    /**
+     * ETag shared by the list responses, which changes with every committed write and every
+     * archive run: archived entries leave the lists that do not read the archive.
+     */
+    public String listEtag() {
+        return changeLog.etag(archive.version());
+    }
+
+    /**
+     * True if a list read must include the archive: it asks for completed sessions, or its window,
+     * bounded on at least one side, reaches back into the archived range. Unbounded reads of the
+     * timetable stay on the live table and never decode archive segments.
+     */
+    private boolean readsArchive(SessionStatus status, LocalDateTime startFrom, LocalDateTime endTo) {
+        if (status == null) {
+            return (startFrom != null || endTo != null) && archive.overlaps(startFrom, endTo);
+        }
+        return status == SessionStatus.COMPLETED && archive.overlaps(startFrom, endTo);
+    }
+
+    /**
+     * Rule occurrences matching the filters of a list read, as transient entries in start order.
+     * Occurrences are always scheduled; {@code latestStart}, when set, drops those starting after it.
+     */
+    private List<ScheduleEntry> occurrenceEntries(
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo,
+        LocalDateTime latestStart
+    ) {
+        if (status != null && status != SessionStatus.SCHEDULED) {
+            return List.of();
+        }
+        LocalDateTime to = latestStart == null ? endTo
+            : endTo == null || latestStart.isBefore(endTo) ? latestStart.plusNanos(1) : endTo;
+        List<ScheduleEntry> entries = new ArrayList<>();
+        for (Recurrence.Occurrence occurrence : ruleIndex.occurrences(teacherId, roomId, groupId, startFrom, to)) {
+            if ((!StringUtils.hasText(courseId) || courseId.equals(occurrence.courseId()))
+                && (startFrom == null || !occurrence.start().isBefore(startFrom))
+                && (endTo == null || !occurrence.end().isAfter(endTo))
+                && (latestStart == null || !occurrence.start().isAfter(latestStart))) {
+                entries.add(Recurrence.toEntry(occurrence));
+            }
+        }
+        return entries;
+    }
+
+    public ScheduleChangeLog.Position changesPosition() {
+        return changeLog.position();
+    }
+
+    public ScheduleChangeLog.Feed changesSince(long since, Integer limit) {
+        return changeLog.since(since, limit);
+    }
+
+    /**
+     * Timetable of a group, teacher or room for the week of {@code day}, served from the week cache.
+     */
+    public List<ScheduleEntry> findWeek(TimetableView view, String resourceId, LocalDate day) {
+        if (view == null || !StringUtils.hasText(resourceId) || day == null) {
+            throw new IllegalArgumentException("A timetable type, a resource id and a day are required");
+        }
+        return weekCache.week(view, resourceId, day);
+    }
+
+    public WeeklyTimetableCache.Stats weekCacheStats() {
+        return weekCache.stats();
+    }
+
+    public List<FreeSlotFinder.Slot> findFreeSlots(FreeSlotFinder.Request request) {
+        return freeSlotFinder.find(request);
     }
 
     public ScheduleEntry findById(Long id) {
-        return repository.findById(id).orElse(null);
+        return repository.findById(id).orElseGet(() -> archive.findById(id));
     }
 
     public ScheduleEntry create(ScheduleEntry entry) {
         validateTimeRange(entry);
-        checkConflicts(entry, null);
-        return repository.save(entry);
+        return locks.withResources(List.of(entry), () -> {
+            checkConflicts(entry, null);
+            return inTransaction(() -> {
+                ScheduleEntry inserted = repository.save(entry);
+                changeLog.record(ChangeType.INSERT, List.of(inserted));
+                statsCounter.created(inserted.getStatus());
+                return inserted;
+            }, inserted -> {
+                conflictIndex.put(inserted);
+                invalidate(weekCache.keysOf(inserted));
+            });
+        });
     }
 
+    /**
+     * Replaces an entry, or returns null if it does not exist. When {@code updated} carries a
+     * version, the update fails with an optimistic locking exception if the entry has changed since.
+     */
     public ScheduleEntry update(Long id, ScheduleEntry updated) {
         validateTimeRange(updated);
         ScheduleEntry existing = repository.findById(id).orElse(null);
@@ -61,58 +326,656 @@ public class ScheduleService {
             return null;
         }
         updated.setId(existing.getId());
-        checkConflicts(updated, existing.getId());
-        return repository.save(updated);
+        if (updated.getVersion() == null) {
+            updated.setVersion(existing.getVersion());
+        }
+        // Saving merges the new state into the managed existing entry, so its old state is kept first
+        SessionStatus before = existing.getStatus();
+        Set<WeeklyTimetableCache.Key> weeks = weekCache.keysOf(existing);
+        // The old resources are locked too so that the entry does not move under a concurrent write
+        return locks.withResources(List.of(existing, updated), () -> {
+            checkConflicts(updated, existing.getId());
+            return inTransaction(() -> {
+                ScheduleEntry replaced = repository.save(updated);
+                changeLog.record(ChangeType.UPDATE, List.of(replaced));
+                statsCounter.changed(before, replaced.getStatus());
+                return replaced;
+            }, replaced -> {
+                conflictIndex.put(replaced);
+                weeks.addAll(weekCache.keysOf(replaced));
+                invalidate(weeks);
+            });
+        });
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(existing -> locks.withResources(List.of(existing), () -> {
+            inTransaction(() -> {
+                repository.delete(existing);
+                changeLog.record(ChangeType.DELETE, List.of(existing));
+                statsCounter.deleted(existing.getStatus());
+                return existing;
+            }, deleted -> {
+                conflictIndex.remove(id);
+                invalidate(weekCache.keysOf(deleted));
+            });
+            return null;
+        }));
     }
 
     public ScheduleStats stats() {
-        long total = repository.count();
-        long scheduled = repository.countByStatus(SessionStatus.SCHEDULED);
-        long completed = repository.countByStatus(SessionStatus.COMPLETED);
-        long cancelled = repository.countByStatus(SessionStatus.CANCELLED);
-        return new ScheduleStats(total, scheduled, completed, cancelled);
+        long archived = archive.size();
+        return new ScheduleStats(
+            statsCounter.total() + archived,
+            statsCounter.count(SessionStatus.SCHEDULED),
+            statsCounter.count(SessionStatus.COMPLETED) + archived,
+            statsCounter.count(SessionStatus.CANCELLED)
+        );
+    }
+
+    public List<ScheduleRule> findRules() {
+        return ruleRepository.findAll(Sort.by("firstStart", "id").ascending());
+    }
+
+    public ScheduleRule findRule(Long id) {
+        return ruleRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Occurrences of the recurrence rules overlapping {@code [from, to)}, optionally restricted to a
+     * teacher, room and group, expanded for that window only.
+     */
+    public List<Recurrence.Occurrence> findOccurrences(String teacherId, String roomId, String groupId,
+                                                      LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("A period with from < to is required");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RULE_DAYS) {
+            throw new IllegalArgumentException("Period cannot exceed " + MAX_RULE_DAYS + " days");
+        }
+        return ruleIndex.occurrences(teacherId, roomId, groupId, from, to);
+    }
+
+    public ScheduleRule createRule(ScheduleRule rule) {
+        validateRule(rule);
+        rule.setId(null);
+        List<ScheduleEntry> resources = footprint(rule);
+        return locks.withResources(resources, () -> {
+            checkRuleConflicts(rule);
+            return saveRule(rule, new LinkedHashSet<>(), ChangeType.INSERT);
+        });
+    }
+
+    /**
+     * Replaces a rule, or returns null if it does not exist. Like entries, a stale version fails
+     * with an optimistic locking exception.
+     */
+    public ScheduleRule updateRule(Long id, ScheduleRule updated) {
+        validateRule(updated);
+        ScheduleRule existing = ruleRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return null;
+        }
+        updated.setId(existing.getId());
+        if (updated.getVersion() == null) {
+            updated.setVersion(existing.getVersion());
+        }
+        List<ScheduleEntry> resources = new ArrayList<>(footprint(existing));
+        resources.addAll(footprint(updated));
+        return locks.withResources(resources, () -> {
+            checkRuleConflicts(updated);
+            return saveRule(updated, weeksOf(existing), ChangeType.UPDATE);
+        });
+    }
+
+    public void deleteRule(Long id) {
+        ruleRepository.findById(id).ifPresent(existing -> locks.withResources(footprint(existing), () -> {
+            Set<WeeklyTimetableCache.Key> weeks = weeksOf(existing);
+            inTransaction(() -> {
+                ruleRepository.delete(existing);
+                changeLog.recordRule(ChangeType.DELETE, existing);
+                return existing;
+            }, deleted -> {
+                ruleIndex.remove(id);
+                invalidate(weeks);
+            });
+            return null;
+        }));
+    }
+
+    /**
+     * Cancels or moves one occurrence of a rule, replacing any exception already set for it.
+     * Returns null if the rule does not exist.
+     */
+    public ScheduleRule putRuleException(Long id, RuleException exception) {
+        ScheduleRule existing = ruleRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return null;
+        }
+        validateRuleException(existing, exception);
+        List<ScheduleEntry> resources = new ArrayList<>(footprint(existing));
+        if (StringUtils.hasText(exception.getRoomId())) {
+            ScheduleEntry room = new ScheduleEntry();
+            room.setRoomId(exception.getRoomId());
+            resources.add(room);
+        }
+        return locks.withResources(resources, () -> {
+            Set<WeeklyTimetableCache.Key> weeks = weeksOf(existing);
+            existing.getExceptions().removeIf(e -> e.getOccurrenceDate().equals(exception.getOccurrenceDate()));
+            existing.getExceptions().add(exception);
+            checkRuleConflicts(existing);
+            return saveRule(existing, weeks, ChangeType.UPDATE);
+        });
+    }
+
+    /**
+     * Restores an occurrence of a rule to its regular slot. Returns null if the rule does not exist.
+     */
+    public ScheduleRule deleteRuleException(Long id, LocalDate date) {
+        ScheduleRule existing = ruleRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return null;
+        }
+        List<ScheduleEntry> resources = footprint(existing);
+        return locks.withResources(resources, () -> {
+            Set<WeeklyTimetableCache.Key> weeks = weeksOf(existing);
+            if (!existing.getExceptions().removeIf(e -> e.getOccurrenceDate().equals(date))) {
+                return existing;
+            }
+            checkRuleConflicts(existing);
+            return saveRule(existing, weeks, ChangeType.UPDATE);
+        });
+    }
+
+    /**
+     * Saves a rule and logs the change, then updates the rule index and drops the cached weeks
+     * the rule occupied before ({@code weeks}) and after the write.
+     */
+    private ScheduleRule saveRule(ScheduleRule rule, Set<WeeklyTimetableCache.Key> weeks, ChangeType type) {
+        return inTransaction(() -> {
+            ScheduleRule saved = ruleRepository.save(rule);
+            changeLog.recordRule(type, saved);
+            return saved;
+        }, saved -> {
+            ruleIndex.put(saved);
+            weeks.addAll(weeksOf(saved));
+            invalidate(weeks);
+        });
+    }
+
+    /**
+     * Weeks holding an occurrence of the rule, for its room, teacher and group.
+     */
+    private Set<WeeklyTimetableCache.Key> weeksOf(ScheduleRule rule) {
+        List<ScheduleEntry> occurrences = new ArrayList<>();
+        for (Recurrence.Occurrence occurrence : Recurrence.between(rule, null, null)) {
+            occurrences.add(Recurrence.toEntry(occurrence));
+        }
+        return weekCache.keysOf(occurrences);
+    }
+
+    public record GenerationResult(
+        String message,
+        int placed,
+        int unplaced,
+        int entriesCreated,
+        long elapsedMs,
+        List<TimetableGenerator.CourseDemand> unplacedSessions
+    ) {}
+
+    public GenerationResult generateAuto(TimetableGenerator.Request request) {
+        return request.dryRun() ? doGenerateAuto(request) : locks.withAll(() -> doGenerateAuto(request));
     }
 
-    public record GenerationResult(String message) {}
+    private GenerationResult doGenerateAuto(TimetableGenerator.Request request) {
+        long started = System.nanoTime();
+        TimetableGenerator.Plan plan = generator.generate(request);
+        List<ScheduleEntry> entries = plan.entries();
+        if (!request.dryRun()) {
+            List<ScheduleEntry> toSave = entries;
+            entries = inTransaction(() -> {
+                List<ScheduleEntry> saved = repository.saveAll(toSave);
+                changeLog.record(ChangeType.INSERT, saved);
+                saved.forEach(e -> statsCounter.created(e.getStatus()));
+                return saved;
+            }, saved -> {
+                saved.forEach(conflictIndex::put);
+                invalidate(weekCache.keysOf(saved));
+            });
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Génération terminée : %d séances placées, %d non placées%s",
+            plan.placed(), plan.unplaced(), request.dryRun() ? " (simulation, aucun changement appliqué)" : "");
+        return new GenerationResult(message, plan.placed(), plan.unplaced(), entries.size(), elapsedMs, plan.unplacedSessions());
+    }
 
-    public GenerationResult generateAuto() {
-        // Stub: replace with real generation algorithm
-        return new GenerationResult("Auto-generation stub: aucun changement appliqué");
+    public record OptimizationResult(
+        String message,
+        AnnealingSearch.Score initial,
+        AnnealingSearch.Score best,
+        int sessions,
+        int entriesMoved,
+        int threads,
+        long iterations,
+        long seed,
+        long elapsedMs
+    ) {}
+
+    public OptimizationResult optimize(TimetableOptimizer.Request request) {
+        return request.dryRun() ? doOptimize(request) : locks.withAll(() -> doOptimize(request));
     }
 
-    public ResponseEntity<byte[]> exportPdfStub(Long id) {
-        String payload = "PDF export stub for schedule " + id;
-        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    private OptimizationResult doOptimize(TimetableOptimizer.Request request) {
+        long started = System.nanoTime();
+        TimetableOptimizer.Plan plan = optimizer.optimize(request);
+        if (!request.dryRun() && !plan.changed().isEmpty()) {
+            saveChanged(plan.changed());
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Optimisation terminée : coût %d -> %d, %d séances déplacées%s",
+            plan.initial().cost(), plan.best().cost(), plan.changed().size(),
+            request.dryRun() ? " (simulation, aucun changement appliqué)" : "");
+        return new OptimizationResult(message, plan.initial(), plan.best(), plan.sessions(), plan.changed().size(),
+            plan.threads(), plan.iterations(), plan.seed(), elapsedMs);
+    }
+
+    public record RepairResult(
+        String message,
+        int affected,
+        int neighbourhood,
+        List<TimetableRepairer.Change> changes,
+        List<Long> unresolved,
+        long elapsedMs
+    ) {}
+
+    public RepairResult repair(TimetableRepairer.Request request) {
+        return request.dryRun() ? doRepair(request) : locks.withAll(() -> doRepair(request));
+    }
+
+    private RepairResult doRepair(TimetableRepairer.Request request) {
+        long started = System.nanoTime();
+        TimetableRepairer.Plan plan = repairer.repair(request);
+        if (!request.dryRun() && !plan.changed().isEmpty()) {
+            saveChanged(plan.changed());
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Réparation terminée : %d séances touchées, %d déplacées, %d non résolues%s",
+            plan.affected(), plan.changes().size(), plan.unresolved().size(),
+            request.dryRun() ? " (simulation, aucun changement appliqué)" : "");
+        return new RepairResult(message, plan.affected(), plan.neighbourhood(), plan.changes(), plan.unresolved(), elapsedMs);
+    }
+
+    public record SimulationResult(
+        String message,
+        List<ScheduleEntry> moved,
+        List<ScheduleSimulator.Conflict> conflicts,
+        ScheduleSimulator.Metrics before,
+        ScheduleSimulator.Metrics after,
+        long elapsedMs
+    ) {}
+
+    /**
+     * Evaluates hypothetical moves against an in-memory view of the schedule, without any
+     * transaction or lock.
+     */
+    public SimulationResult simulate(ScheduleSimulator.Request request) {
+        long started = System.nanoTime();
+        ScheduleSimulator.Simulation simulation = simulator.simulate(request);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Simulation terminée : %d séances déplacées, %d conflits (aucun changement appliqué)",
+            simulation.moved().size(), simulation.conflicts().size());
+        return new SimulationResult(message, simulation.moved(), simulation.conflicts(), simulation.before(), simulation.after(), elapsedMs);
+    }
+
+    public record ImportResult(
+        String message,
+        int total,
+        int accepted,
+        int rejected,
+        long elapsedMs,
+        List<ScheduleImporter.RowResult> rows
+    ) {}
+
+    public ImportResult bulkImport(List<ScheduleEntry> entries, boolean dryRun) {
+        long started = System.nanoTime();
+        if (dryRun) {
+            return importPlan(importer.plan(entries), true, started);
+        }
+        return locks.withResources(entries, () -> importPlan(importer.plan(entries), false, started));
+    }
+
+    public ImportResult bulkImportCsv(InputStream input, boolean dryRun) {
+        long started = System.nanoTime();
+        if (dryRun) {
+            return importPlan(importer.planCsv(input), true, started);
+        }
+        return locks.withAll(() -> importPlan(importer.planCsv(input), false, started));
+    }
+
+    private ImportResult importPlan(ScheduleImporter.Plan plan, boolean dryRun, long started) {
+        List<ScheduleEntry> accepted = plan.accepted();
+        if (!dryRun) {
+            inTransaction(() -> {
+                importer.insert(accepted);
+                changeLog.record(ChangeType.INSERT, accepted);
+                accepted.forEach(e -> statsCounter.created(e.getStatus()));
+                return accepted;
+            }, inserted -> {
+                inserted.forEach(conflictIndex::put);
+                invalidate(weekCache.keysOf(inserted));
+            });
+        }
+        int total = plan.entries().size();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Import terminé : %d lignes acceptées, %d rejetées%s",
+            accepted.size(), total - accepted.size(), dryRun ? " (simulation, aucun changement appliqué)" : "");
+        return new ImportResult(message, total, accepted.size(), total - accepted.size(), elapsedMs, plan.rows());
+    }
+
+    /**
+     * Streams the PDF timetable of a group, teacher or room over {@code [from, to]}. The entries
+     * are loaded here; rendering happens while the response is written.
+     */
+    public ResponseEntity<StreamingResponseBody> exportPdf(TimetableView view, String resourceId, LocalDate from, LocalDate to) {
+        List<ScheduleEntry> entries = findForExport(view, resourceId, from, to);
+        String filename = "emploi-du-temps-" + view.fileNameOf(resourceId) + "-" + from + ".pdf";
+        StreamingResponseBody body = out -> pdfRenderer.render(view, resourceId, from, to, entries, out);
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_PDF)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=schedule-" + id + ".pdf")
-                .body(bytes);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .body(body);
     }
 
-    public ResponseEntity<byte[]> exportExcelStub(Long id) {
-        String payload = "Excel export stub for schedule " + id;
-        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Streams the schedule entries of a group, teacher or room, or of the whole institution when
+     * {@code view} is null, over {@code [from, to]} as an XLSX workbook.
+     */
+    public ResponseEntity<StreamingResponseBody> exportExcel(TimetableView view, String resourceId, LocalDate from, LocalDate to) {
+        validateExport(view, resourceId, from, to);
+        String scope = view != null ? view.fileNameOf(resourceId) : "etablissement";
+        String filename = "seances-" + scope + "-" + from + ".xlsx";
+        StreamingResponseBody body = out -> excelWriter.write(view, resourceId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), out);
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=schedule-" + id + ".xlsx")
-                .body(bytes);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .body(body);
+    }
+
+    public CalendarFeedVersions.Validators calendarFeedValidators(TimetableView view, String resourceId) {
+        return feedVersions.of(view, resourceId);
+    }
+
+    /**
+     * Streams the iCalendar feed of a group, teacher or room; {@code validators} are those sent
+     * with the response, taken before the feed is read.
+     */
+    public StreamingResponseBody calendarFeed(TimetableView view, String resourceId, CalendarFeedVersions.Validators validators) {
+        if (view == null || !StringUtils.hasText(resourceId)) {
+            throw new IllegalArgumentException("A feed type and resource id are required");
+        }
+        return out -> feedWriter.write(view, resourceId, validators, out);
+    }
+
+    public record ArchiveResult(String message, int segments, long rows, long elapsedMs) {}
+
+    /**
+     * Moves the completed sessions ending on or before {@code before} to the archive, where they
+     * stay readable but can no longer be changed.
+     */
+    public ArchiveResult archive(LocalDate before) {
+        long started = System.nanoTime();
+        ScheduleArchiver.Result result = archiver.archive(before);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        String message = String.format("Archivage terminé : %d séances archivées en %d segments", result.rows(), result.segments());
+        return new ArchiveResult(message, result.segments(), result.rows(), elapsedMs);
+    }
+
+    public List<ScheduleArchive.Segment> archiveSegments() {
+        return archive.segments();
     }
 
     public record ScheduleStats(long total, long scheduled, long completed, long cancelled) {}
 
+    private List<ScheduleEntry> findForExport(TimetableView view, String resourceId, LocalDate from, LocalDate to) {
+        if (view == null) {
+            throw new IllegalArgumentException("An export type is required");
+        }
+        validateExport(view, resourceId, from, to);
+        if (ChronoUnit.DAYS.between(from, to) > MAX_EXPORT_DAYS) {
+            throw new IllegalArgumentException("Export period cannot exceed " + MAX_EXPORT_DAYS + " days");
+        }
+        Specification<ScheduleEntry> spec = ScheduleSpecifications.overlapFor(
+            view.field(), resourceId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null
+        );
+        List<ScheduleEntry> live = repository.findAll(spec, KEYSET_ORDER);
+        List<ScheduleEntry> entries = ScheduleArchive.merge(live, archive.overlapping(view, resourceId, from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        return Recurrence.merge(entries, ruleIndex.entries(view, resourceId, from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+    }
+
+    private void validateExport(TimetableView view, String resourceId, LocalDate from, LocalDate to) {
+        if (view != null && !StringUtils.hasText(resourceId)) {
+            throw new IllegalArgumentException("A resource id is required for a " + view.name().toLowerCase(Locale.ROOT) + " export");
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("An export period with from <= to is required");
+        }
+    }
+
+    /**
+     * Saves entries moved in place by the optimizer or the repairer, unless one of them now overlaps
+     * a rule occurrence. Their previous weeks are taken from the conflict index; without it, the
+     * whole week cache is dropped.
+     */
+    private void saveChanged(List<ScheduleEntry> changed) {
+        for (ScheduleEntry entry : changed) {
+            if (ruleIndex.hasConflict(entry, null)) {
+                throw new IllegalArgumentException("Schedule conflict detected with a recurring rule for entry " + entry.getId());
+            }
+        }
+        Set<WeeklyTimetableCache.Key> weeks = null;
+        if (conflictIndex.isReady()) {
+            weeks = new HashSet<>();
+            for (ScheduleEntry entry : changed) {
+                ScheduleEntry previous = conflictIndex.find(entry.getId());
+                if (previous != null) {
+                    weeks.addAll(weekCache.keysOf(previous));
+                }
+            }
+        }
+        Set<WeeklyTimetableCache.Key> previousWeeks = weeks;
+        inTransaction(() -> {
+            List<ScheduleEntry> written = repository.saveAll(changed);
+            changeLog.record(ChangeType.UPDATE, written);
+            return written;
+        }, saved -> {
+            saved.forEach(conflictIndex::put);
+            if (previousWeeks != null) {
+                previousWeeks.addAll(weekCache.keysOf(saved));
+                invalidate(previousWeeks);
+            } else {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Drops the cached weeks of a committed write and marks the calendar feeds of their resources
+     * as changed.
+     */
+    private void invalidate(Set<WeeklyTimetableCache.Key> weeks) {
+        weekCache.invalidate(weeks);
+        feedVersions.touch(weeks);
+    }
+
+    private void invalidateAll() {
+        weekCache.clear();
+        feedVersions.touchAll();
+    }
+
+    /**
+     * Runs a write and its change log entries in one transaction, committed before the resource
+     * locks are released, then applies it to the in-memory views with {@code apply}.
+     *
+     * {@code apply} runs after the commit but before the change log publishes the sequence numbers
+     * of the write (Spring runs every afterCommit callback before the afterCompletion ones). The
+     * list ETag therefore never moves before the conflict index serving the lists does.
+     */
+    private <T> T inTransaction(Supplier<T> write, Consumer<T> apply) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            T result = write.get();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.accept(result);
+                }
+            });
+            return result;
+        });
+    }
+
     private void validateTimeRange(ScheduleEntry entry) {
         LocalDateTime start = entry.getStartTime();
         LocalDateTime end = entry.getEndTime();
         if (start == null || end == null || !end.isAfter(start)) {
             throw new IllegalArgumentException("End time must be after start time");
         }
+        if (end.isAfter(start.plus(ScheduleEntry.MAX_DURATION))) {
+            throw new IllegalArgumentException("A session cannot last more than " + ScheduleEntry.MAX_DURATION.toHours() + " hours");
+        }
     }
 
     private void checkConflicts(ScheduleEntry entry, Long excludeId) {
+        if (hasEntryConflict(entry, excludeId) || ruleIndex.hasConflict(entry, null)) {
+            throw new IllegalArgumentException("Schedule conflict detected for room/teacher/group at the given time");
+        }
+    }
+
+    private boolean hasEntryConflict(ScheduleEntry entry, Long excludeId) {
+        return conflictIndex.isReady()
+            ? conflictIndex.hasConflict(entry, excludeId)
+            : countConflicts(entry, excludeId) > 0;
+    }
+
+    /**
+     * Checks the rule against itself (a moved occurrence landing on another one), the other rules
+     * and the entries, without expanding all of its occurrences.
+     */
+    private void checkRuleConflicts(ScheduleRule rule) {
+        LocalDate conflict = null;
+        for (Recurrence.Occurrence moved : Recurrence.movedOccurrences(rule)) {
+            if (Recurrence.between(rule, moved.start(), moved.end()).size() > 1) {
+                conflict = moved.date();
+                break;
+            }
+        }
+        if (conflict == null) {
+            conflict = ruleIndex.conflictDate(rule);
+        }
+        if (conflict == null) {
+            conflict = entryConflictDate(rule);
+        }
+        if (conflict != null) {
+            throw new IllegalArgumentException("Schedule conflict detected for the occurrence of " + conflict);
+        }
+    }
+
+    /**
+     * Date of the first occurrence of the rule overlapping an entry of its rooms, teacher or group,
+     * or null. Only the entries of these resources over the span of the rule are read, and the rule
+     * is expanded over the interval of each of them.
+     */
+    private LocalDate entryConflictDate(ScheduleRule rule) {
+        LocalDateTime from = Recurrence.firstStartOf(rule);
+        LocalDateTime to = Recurrence.lastEndOf(rule);
+        if (from == null) {
+            return null;
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        BiConsumer<LocalDateTime, LocalDateTime> anyResource =
+            (start, end) -> Recurrence.between(rule, start, end).forEach(occurrence -> dates.add(occurrence.date()));
+        forEachEntry(TimetableView.TEACHER, rule.getTeacherId(), from, to, anyResource);
+        forEachEntry(TimetableView.GROUP, rule.getGroupId(), from, to, anyResource);
+        for (String roomId : ScheduleRuleIndex.roomsOf(rule)) {
+            forEachEntry(TimetableView.ROOM, roomId, from, to, (start, end) -> {
+                for (Recurrence.Occurrence occurrence : Recurrence.between(rule, start, end)) {
+                    if (roomId.equals(occurrence.roomId())) {
+                        dates.add(occurrence.date());
+                    }
+                }
+            });
+        }
+        return dates.stream().min(Comparator.naturalOrder()).orElse(null);
+    }
+
+    private void forEachEntry(TimetableView view, String key, LocalDateTime from, LocalDateTime to,
+                              BiConsumer<LocalDateTime, LocalDateTime> action) {
+        if (conflictIndex.isReady()) {
+            conflictIndex.forEachOverlap(view, key, from, to, action);
+            return;
+        }
+        for (ScheduleEntry entry : repository.findAll(ScheduleSpecifications.overlapFor(view.field(), key, from, to, null))) {
+            action.accept(entry.getStartTime(), entry.getEndTime());
+        }
+    }
+
+    private void validateRule(ScheduleRule rule) {
+        if (!StringUtils.hasText(rule.getCourseId()) || !StringUtils.hasText(rule.getTeacherId())
+            || !StringUtils.hasText(rule.getRoomId()) || !StringUtils.hasText(rule.getGroupId())) {
+            throw new IllegalArgumentException("courseId, teacherId, roomId and groupId are required");
+        }
+        if (rule.getFirstStart() == null || rule.getLastDate() == null || rule.getLastDate().isBefore(rule.getFirstStart().toLocalDate())) {
+            throw new IllegalArgumentException("A first start and a last date on or after it are required");
+        }
+        if (ChronoUnit.DAYS.between(rule.getFirstStart().toLocalDate(), rule.getLastDate()) > MAX_RULE_DAYS) {
+            throw new IllegalArgumentException("A recurrence cannot span more than " + MAX_RULE_DAYS + " days");
+        }
+        if (rule.getDurationMinutes() == null || rule.getDurationMinutes() <= 0 || rule.getDurationMinutes() > 24 * 60) {
+            throw new IllegalArgumentException("Duration must be between 1 minute and 24 hours");
+        }
+        if (rule.getIntervalWeeks() == null) {
+            rule.setIntervalWeeks(1);
+        }
+        if (rule.getIntervalWeeks() < 1) {
+            throw new IllegalArgumentException("Interval must be at least one week");
+        }
+        if (rule.getExceptions() == null) {
+            rule.setExceptions(new ArrayList<>());
+        }
+        Set<LocalDate> dates = new HashSet<>();
+        for (RuleException exception : rule.getExceptions()) {
+            validateRuleException(rule, exception);
+            if (!dates.add(exception.getOccurrenceDate())) {
+                throw new IllegalArgumentException("Duplicate exception for " + exception.getOccurrenceDate());
+            }
+        }
+    }
+
+    private void validateRuleException(ScheduleRule rule, RuleException exception) {
+        if (exception == null || exception.getOccurrenceDate() == null || !Recurrence.isOccurrenceDate(rule, exception.getOccurrenceDate())) {
+            throw new IllegalArgumentException("An exception must refer to the date of an occurrence of the rule");
+        }
+        if (!exception.isCancelled()
+            && (exception.getStartTime() == null || exception.getEndTime() == null || !exception.getEndTime().isAfter(exception.getStartTime()))) {
+            throw new IllegalArgumentException("A moved occurrence needs a start time and a later end time");
+        }
+    }
+
+    /**
+     * Transient entries covering the resources a rule can occupy, for the resource locks.
+     */
+    private static List<ScheduleEntry> footprint(ScheduleRule rule) {
+        List<ScheduleEntry> entries = new ArrayList<>();
+        for (String roomId : ScheduleRuleIndex.roomsOf(rule)) {
+            ScheduleEntry entry = new ScheduleEntry();
+            entry.setRoomId(roomId);
+            entry.setTeacherId(rule.getTeacherId());
+            entry.setGroupId(rule.getGroupId());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private long countConflicts(ScheduleEntry entry, Long excludeId) {
         Specification<ScheduleEntry> roomOverlap = ScheduleSpecifications.overlapFor(
             "roomId", entry.getRoomId(), entry.getStartTime(), entry.getEndTime(), excludeId
         );
@@ -123,9 +986,6 @@ public class ScheduleService {
             "groupId", entry.getGroupId(), entry.getStartTime(), entry.getEndTime(), excludeId
         );
 
-        long conflicts = repository.count(roomOverlap) + repository.count(teacherOverlap) + repository.count(groupOverlap);
-        if (conflicts > 0) {
-            throw new IllegalArgumentException("Schedule conflict detected for room/teacher/group at the given time");
-        }
+        return repository.count(roomOverlap) + repository.count(teacherOverlap) + repository.count(groupOverlap);
     }
 }
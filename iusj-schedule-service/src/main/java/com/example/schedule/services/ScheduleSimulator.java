@@ -0,0 +1,300 @@
+package com.example.schedule.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evaluates a batch of hypothetical moves without writing anything.
+ *
+ * The moves are applied to a copy-on-write view of the {@link ScheduleConflictIndex}: the
+ * immutable snapshot is shared, and only its removed rows and the delta of recent writes are
+ * copied, the moved sessions being laid over them. Neither the database nor the resource locks
+ * are used, so a simulation only costs the lookups of the moved sessions.
+ *
+ * The result lists the conflicts of the moved sessions, with other sessions and with the
+ * occurrences of recurrence rules, and the idle minutes and room changes of the groups and
+ * teachers on the days the moves touch, before and after. Cancelled sessions do not count in
+ * these metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleSimulator {
+
+    private static final int MAX_MOVES = 2000;
+    private static final TimetableView[] RESOURCES = {TimetableView.ROOM, TimetableView.TEACHER, TimetableView.GROUP};
+
+    private final ScheduleConflictIndex conflictIndex;
+    private final ScheduleRuleIndex ruleIndex;
+
+    /**
+     * Move of one session: to a new start, or by a number of days and minutes, keeping its
+     * duration, and optionally to another room or teacher.
+     */
+    public record Move(Long id, LocalDateTime startTime, Integer shiftDays, Integer shiftMinutes, String roomId, String teacherId) {}
+
+    public record Request(List<Move> moves) {}
+
+    /**
+     * Conflict of a moved session with another session or with an occurrence of a rule.
+     */
+    public record Conflict(Long id, TimetableView resource, String resourceId, Long withId, Long withRuleId, LocalDate withDate) {}
+
+    public record Metrics(int conflicts, long groupIdleMinutes, int groupRoomChanges, long teacherIdleMinutes) {}
+
+    public record Simulation(List<ScheduleEntry> moved, List<Conflict> conflicts, Metrics before, Metrics after) {}
+
+    private record Day(TimetableView view, String resourceId, LocalDate date) {}
+
+    public Simulation simulate(Request request) {
+        if (request == null || request.moves() == null || request.moves().isEmpty()) {
+            throw new IllegalArgumentException("At least one move is required");
+        }
+        if (request.moves().size() > MAX_MOVES) {
+            throw new IllegalArgumentException("A simulation cannot move more than " + MAX_MOVES + " sessions");
+        }
+        if (!conflictIndex.isReady()) {
+            throw new IllegalStateException("The schedule index is not loaded yet");
+        }
+        ScheduleConflictIndex.View view = conflictIndex.view();
+        Overlay current = new Overlay(view, Map.of());
+
+        Map<Long, ScheduleEntry> originals = new LinkedHashMap<>();
+        Map<Long, ScheduleEntry> moved = new LinkedHashMap<>();
+        for (Move move : request.moves()) {
+            if (move == null || move.id() == null) {
+                throw new IllegalArgumentException("Each move needs a session id");
+            }
+            ScheduleEntry original = current.find(move.id());
+            if (original == null) {
+                throw new IllegalArgumentException("Session not found: " + move.id());
+            }
+            if (originals.putIfAbsent(move.id(), original) != null) {
+                throw new IllegalArgumentException("Session " + move.id() + " is moved more than once");
+            }
+            moved.put(move.id(), apply(original, move));
+        }
+        Overlay simulated = new Overlay(view, moved);
+
+        Set<Day> days = new LinkedHashSet<>();
+        originals.values().forEach(entry -> addDays(days, entry));
+        moved.values().forEach(entry -> addDays(days, entry));
+
+        List<Conflict> conflicts = conflicts(simulated, moved.values(), moved.keySet());
+        return new Simulation(
+            new ArrayList<>(moved.values()),
+            conflicts,
+            metrics(current, days, conflicts(current, originals.values(), originals.keySet()).size()),
+            metrics(simulated, days, conflicts.size())
+        );
+    }
+
+    private static ScheduleEntry apply(ScheduleEntry original, Move move) {
+        boolean shifted = move.shiftDays() != null || move.shiftMinutes() != null;
+        if (move.startTime() != null && shifted) {
+            throw new IllegalArgumentException("Session " + move.id() + ": give either a new start time or a shift, not both");
+        }
+        ScheduleEntry entry = copyOf(original);
+        LocalDateTime start = original.getStartTime();
+        if (move.startTime() != null) {
+            start = move.startTime();
+        } else if (shifted) {
+            start = start.plusDays(move.shiftDays() != null ? move.shiftDays() : 0)
+                .plusMinutes(move.shiftMinutes() != null ? move.shiftMinutes() : 0);
+        }
+        entry.setStartTime(start);
+        entry.setEndTime(start.plus(Duration.between(original.getStartTime(), original.getEndTime())));
+        if (StringUtils.hasText(move.roomId())) {
+            entry.setRoomId(move.roomId());
+        }
+        if (StringUtils.hasText(move.teacherId())) {
+            entry.setTeacherId(move.teacherId());
+        }
+        return entry;
+    }
+
+    /**
+     * Conflicts of the given sessions; a conflict between two of them is reported once.
+     */
+    private List<Conflict> conflicts(Overlay overlay, Iterable<ScheduleEntry> entries, Set<Long> checked) {
+        List<Conflict> conflicts = new ArrayList<>();
+        for (ScheduleEntry entry : entries) {
+            for (TimetableView resource : RESOURCES) {
+                String key = resourceOf(entry, resource);
+                if (!StringUtils.hasText(key)) {
+                    continue;
+                }
+                overlay.forEachOverlap(resource, key, entry.getStartTime(), entry.getEndTime(), other -> {
+                    if (!other.getId().equals(entry.getId()) && (!checked.contains(other.getId()) || other.getId() > entry.getId())) {
+                        conflicts.add(new Conflict(entry.getId(), resource, key, other.getId(), null, null));
+                    }
+                });
+                for (Recurrence.Occurrence occurrence : ruleIndex.occurrences(
+                    resource == TimetableView.TEACHER ? key : null,
+                    resource == TimetableView.ROOM ? key : null,
+                    resource == TimetableView.GROUP ? key : null,
+                    entry.getStartTime(),
+                    entry.getEndTime()
+                )) {
+                    conflicts.add(new Conflict(entry.getId(), resource, key, null, occurrence.ruleId(), occurrence.date()));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static Metrics metrics(Overlay overlay, Set<Day> days, int conflicts) {
+        long groupIdle = 0;
+        int roomChanges = 0;
+        long teacherIdle = 0;
+        for (Day day : days) {
+            List<ScheduleEntry> sessions = new ArrayList<>();
+            overlay.forEachOverlap(day.view(), day.resourceId(), day.date().atStartOfDay(), day.date().plusDays(1).atStartOfDay(), entry -> {
+                if (entry.getStatus() != SessionStatus.CANCELLED) {
+                    sessions.add(entry);
+                }
+            });
+            sessions.sort(Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId));
+            long idle = 0;
+            LocalDateTime reached = null;
+            for (int i = 0; i < sessions.size(); i++) {
+                ScheduleEntry entry = sessions.get(i);
+                if (reached != null && entry.getStartTime().isAfter(reached)) {
+                    idle += Duration.between(reached, entry.getStartTime()).toMinutes();
+                }
+                reached = reached == null || entry.getEndTime().isAfter(reached) ? entry.getEndTime() : reached;
+                if (day.view() == TimetableView.GROUP && i > 0 && !entry.getRoomId().equals(sessions.get(i - 1).getRoomId())) {
+                    roomChanges++;
+                }
+            }
+            if (day.view() == TimetableView.GROUP) {
+                groupIdle += idle;
+            } else {
+                teacherIdle += idle;
+            }
+        }
+        return new Metrics(conflicts, groupIdle, roomChanges, teacherIdle);
+    }
+
+    private static void addDays(Set<Day> days, ScheduleEntry entry) {
+        for (LocalDate date = entry.getStartTime().toLocalDate(); !date.atStartOfDay().isAfter(entry.getEndTime().minusNanos(1)); date = date.plusDays(1)) {
+            if (StringUtils.hasText(entry.getGroupId())) {
+                days.add(new Day(TimetableView.GROUP, entry.getGroupId(), date));
+            }
+            if (StringUtils.hasText(entry.getTeacherId())) {
+                days.add(new Day(TimetableView.TEACHER, entry.getTeacherId(), date));
+            }
+        }
+    }
+
+    private static String resourceOf(ScheduleEntry entry, TimetableView resource) {
+        return switch (resource) {
+            case GROUP -> entry.getGroupId();
+            case TEACHER -> entry.getTeacherId();
+            case ROOM -> entry.getRoomId();
+        };
+    }
+
+    private static ScheduleSnapshot.Column columnOf(TimetableView resource) {
+        return switch (resource) {
+            case GROUP -> ScheduleSnapshot.Column.GROUP;
+            case TEACHER -> ScheduleSnapshot.Column.TEACHER;
+            case ROOM -> ScheduleSnapshot.Column.ROOM;
+        };
+    }
+
+    private static ScheduleEntry copyOf(ScheduleEntry entry) {
+        ScheduleEntry copy = new ScheduleEntry();
+        copy.setId(entry.getId());
+        copy.setCourseId(entry.getCourseId());
+        copy.setTeacherId(entry.getTeacherId());
+        copy.setRoomId(entry.getRoomId());
+        copy.setGroupId(entry.getGroupId());
+        copy.setStartTime(entry.getStartTime());
+        copy.setEndTime(entry.getEndTime());
+        copy.setStatus(entry.getStatus());
+        copy.setVersion(entry.getVersion());
+        return copy;
+    }
+
+    /**
+     * A view of the index with some sessions replaced. The snapshot rows of the replaced sessions
+     * are hidden, and the delta and the replacements are kept in per-resource lists.
+     */
+    private static final class Overlay {
+
+        private final ScheduleSnapshot snapshot;
+        private final BitSet removed;
+        private final Map<Long, ScheduleEntry> extra = new HashMap<>();
+        private final Map<TimetableView, Map<String, List<ScheduleEntry>>> byResource = new HashMap<>();
+
+        Overlay(ScheduleConflictIndex.View view, Map<Long, ScheduleEntry> replaced) {
+            snapshot = view.snapshot();
+            if (replaced.isEmpty()) {
+                removed = view.removed();
+            } else {
+                removed = (BitSet) view.removed().clone();
+                for (Long id : replaced.keySet()) {
+                    int row = snapshot.rowOf(id);
+                    if (row >= 0) {
+                        removed.set(row);
+                    }
+                }
+            }
+            for (ScheduleEntry entry : view.delta()) {
+                if (!replaced.containsKey(entry.getId())) {
+                    add(entry);
+                }
+            }
+            replaced.values().forEach(this::add);
+        }
+
+        ScheduleEntry find(long id) {
+            ScheduleEntry entry = extra.get(id);
+            if (entry != null) {
+                return entry;
+            }
+            int row = snapshot.rowOf(id);
+            return row >= 0 && !removed.get(row) ? snapshot.toEntry(row) : null;
+        }
+
+        void forEachOverlap(TimetableView resource, String key, LocalDateTime from, LocalDateTime to, Consumer<ScheduleEntry> action) {
+            snapshot.forEachOverlap(columnOf(resource), key, from, to, removed, row -> action.accept(snapshot.toEntry(row)));
+            for (ScheduleEntry entry : byResource.getOrDefault(resource, Map.of()).getOrDefault(key, List.of())) {
+                if (entry.getStartTime().isBefore(to) && entry.getEndTime().isAfter(from)) {
+                    action.accept(entry);
+                }
+            }
+        }
+
+        private void add(ScheduleEntry entry) {
+            extra.put(entry.getId(), entry);
+            for (TimetableView resource : RESOURCES) {
+                String key = resourceOf(entry, resource);
+                if (StringUtils.hasText(key)) {
+                    byResource.computeIfAbsent(resource, r -> new HashMap<>())
+                        .computeIfAbsent(key, k -> new ArrayList<>())
+                        .add(entry);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.schedule.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+
+/**
+ * Immutable, column-wise copy of a set of schedule entries.
+ *
+ * Resource ids are interned into one {@link ResourceDictionary} per column and times are stored
+ * as int minutes since {@link #EPOCH}, so an entry takes a few dozen bytes of primitive arrays
+ * instead of an entity with four strings and two date-times. Rows are sorted by (start, id).
+ *
+ * For each resource column, a posting list gives the rows of every resource in start order
+ * together with the running maximum end, which answers an overlap query with one binary search
+ * followed by a short backward scan. Only entries whose times fall on whole minutes can be
+ * stored, see {@link #isStorable}.
+ */
+final class ScheduleSnapshot {
+
+    static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    enum Column { COURSE, TEACHER, ROOM, GROUP }
+
+    private static final SessionStatus[] STATUSES = SessionStatus.values();
+
+    private final ResourceDictionary[] dictionaries = new ResourceDictionary[Column.values().length];
+    private final int[][] codes = new int[Column.values().length][];
+    private final int[][] postingOffsets = new int[Column.values().length][];
+    private final int[][] postingRows = new int[Column.values().length][];
+    private final int[][] postingMaxEnd = new int[Column.values().length][];
+
+    private final long[] ids;
+    private final long[] versions;
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] statuses;
+
+    // Ids in ascending order with their row, to find the row of an id by binary search
+    private final long[] sortedIds;
+    private final int[] rowOfSortedId;
+
+    private ScheduleSnapshot(int size) {
+        ids = new long[size];
+        versions = new long[size];
+        starts = new int[size];
+        ends = new int[size];
+        statuses = new byte[size];
+        sortedIds = new long[size];
+        rowOfSortedId = new int[size];
+    }
+
+    static ScheduleSnapshot empty() {
+        return of(List.of());
+    }
+
+    /**
+     * Builds a snapshot of {@code entries}, which must all be {@link #isStorable storable}.
+     */
+    static ScheduleSnapshot of(Collection<ScheduleEntry> entries) {
+        List<ScheduleEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId));
+        int size = sorted.size();
+        ScheduleSnapshot snapshot = new ScheduleSnapshot(size);
+        for (Column column : Column.values()) {
+            snapshot.dictionaries[column.ordinal()] = new ResourceDictionary();
+            snapshot.codes[column.ordinal()] = new int[size];
+        }
+        for (int row = 0; row < size; row++) {
+            ScheduleEntry entry = sorted.get(row);
+            snapshot.ids[row] = entry.getId();
+            snapshot.versions[row] = entry.getVersion() != null ? entry.getVersion() : 0;
+            snapshot.starts[row] = toMinutes(entry.getStartTime());
+            snapshot.ends[row] = toMinutes(entry.getEndTime());
+            snapshot.statuses[row] = (byte) (entry.getStatus() != null ? entry.getStatus().ordinal() : -1);
+            for (Column column : Column.values()) {
+                snapshot.codes[column.ordinal()][row] = snapshot.dictionaries[column.ordinal()].intern(value(entry, column));
+            }
+        }
+        for (Column column : Column.values()) {
+            snapshot.buildPostings(column);
+        }
+
+        Integer[] order = new Integer[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, Comparator.comparingLong(row -> snapshot.ids[row]));
+        for (int i = 0; i < size; i++) {
+            snapshot.sortedIds[i] = snapshot.ids[order[i]];
+            snapshot.rowOfSortedId[i] = order[i];
+        }
+        return snapshot;
+    }
+
+    /**
+     * True if the entry can be stored: it has an id and times on whole minutes.
+     */
+    static boolean isStorable(ScheduleEntry entry) {
+        return entry.getId() != null
+            && isWholeMinute(entry.getStartTime())
+            && isWholeMinute(entry.getEndTime());
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Row of the entry with this id, or -1.
+     */
+    int rowOf(long id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? rowOfSortedId[index] : -1;
+    }
+
+    /**
+     * True if a live row other than {@code excludeId} overlaps {@code [start, end)} on the given
+     * resource. Rows set in {@code removed} are ignored.
+     */
+    boolean overlaps(Column column, String key, LocalDateTime start, LocalDateTime end, long excludeId, BitSet removed) {
+        return scan(column, key, start, end, removed, row -> ids[row] != excludeId);
+    }
+
+    /**
+     * Visits the live rows of the given resource overlapping {@code [start, end)}, latest start first.
+     */
+    void forEachOverlap(Column column, String key, LocalDateTime start, LocalDateTime end, BitSet removed, IntConsumer action) {
+        scan(column, key, start, end, removed, row -> {
+            action.accept(row);
+            return false;
+        });
+    }
+
+    LocalDateTime startOf(int row) {
+        return EPOCH.plusMinutes(starts[row]);
+    }
+
+    LocalDateTime endOf(int row) {
+        return EPOCH.plusMinutes(ends[row]);
+    }
+
+    /**
+     * Feeds the overlapping live rows of a resource to {@code stop} until it returns true, and
+     * returns whether it did.
+     */
+    private boolean scan(Column column, String key, LocalDateTime start, LocalDateTime end, BitSet removed, IntPredicate stop) {
+        int code = dictionaries[column.ordinal()].codeOf(key);
+        if (code < 0 || start == null || end == null) {
+            return false;
+        }
+        int from = floorMinutes(start);
+        int to = ceilMinutes(end);
+        int[] rows = postingRows[column.ordinal()];
+        int[] maxEnd = postingMaxEnd[column.ordinal()];
+        int first = postingOffsets[column.ordinal()][code];
+        int last = postingOffsets[column.ordinal()][code + 1];
+        // Rows starting before the end of the interval, scanned backwards while one of them can still reach it
+        for (int i = lowerBound(rows, first, last, to) - 1; i >= first && maxEnd[i] > from; i--) {
+            int row = rows[i];
+            if (ends[row] > from && !removed.get(row) && stop.test(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits, in (start, id) order, the live rows matching the filters of
+     * {@link ScheduleSpecifications#filter}: equal ids when given, {@code start >= startFrom} and
+     * {@code end <= endTo}.
+     */
+    void forEachMatch(
+        String courseId,
+        String teacherId,
+        String roomId,
+        String groupId,
+        SessionStatus status,
+        LocalDateTime startFrom,
+        LocalDateTime endTo,
+        BitSet removed,
+        IntConsumer action
+    ) {
+        String[] keys = {courseId, teacherId, roomId, groupId};
+        int[] wanted = new int[keys.length];
+        Column driver = null;
+        int driverSize = Integer.MAX_VALUE;
+        for (Column column : Column.values()) {
+            String key = keys[column.ordinal()];
+            if (!StringUtils.hasText(key)) {
+                wanted[column.ordinal()] = Integer.MIN_VALUE;
+                continue;
+            }
+            int code = dictionaries[column.ordinal()].codeOf(key);
+            if (code < 0) {
+                return;
+            }
+            wanted[column.ordinal()] = code;
+            int postings = postingOffsets[column.ordinal()][code + 1] - postingOffsets[column.ordinal()][code];
+            if (postings < driverSize) {
+                driver = column;
+                driverSize = postings;
+            }
+        }
+        int minStart = startFrom != null ? ceilMinutes(startFrom) : Integer.MIN_VALUE;
+        int maxEnd = endTo != null ? floorMinutes(endTo) : Integer.MAX_VALUE;
+        int wantedStatus = status != null ? status.ordinal() : -2;
+
+        int[] rows = null;
+        int first = 0;
+        int last = size();
+        if (driver != null) {
+            rows = postingRows[driver.ordinal()];
+            first = postingOffsets[driver.ordinal()][wanted[driver.ordinal()]];
+            last = postingOffsets[driver.ordinal()][wanted[driver.ordinal()] + 1];
+        }
+        for (int i = lowerBound(rows, first, last, minStart); i < last; i++) {
+            int row = rows != null ? rows[i] : i;
+            if (ends[row] > maxEnd || removed.get(row) || (wantedStatus != -2 && statuses[row] != wantedStatus)) {
+                continue;
+            }
+            if (matches(row, wanted)) {
+                action.accept(row);
+            }
+        }
+    }
+
+    ScheduleEntry toEntry(int row) {
+        ScheduleEntry entry = new ScheduleEntry();
+        entry.setId(ids[row]);
+        entry.setVersion(versions[row]);
+        entry.setCourseId(valueAt(Column.COURSE, row));
+        entry.setTeacherId(valueAt(Column.TEACHER, row));
+        entry.setRoomId(valueAt(Column.ROOM, row));
+        entry.setGroupId(valueAt(Column.GROUP, row));
+        entry.setStartTime(startOf(row));
+        entry.setEndTime(endOf(row));
+        entry.setStatus(statuses[row] >= 0 ? STATUSES[statuses[row]] : null);
+        return entry;
+    }
+
+    /**
+     * Approximate heap size of the arrays, dictionaries excluded.
+     */
+    long arrayBytes() {
+        long rows = size();
+        return rows * (Long.BYTES * 3 + Integer.BYTES * (3 + Column.values().length * 3) + 1);
+    }
+
+    private boolean matches(int row, int[] wanted) {
+        for (Column column : Column.values()) {
+            int code = wanted[column.ordinal()];
+            if (code != Integer.MIN_VALUE && codes[column.ordinal()][row] != code) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String valueAt(Column column, int row) {
+        return dictionaries[column.ordinal()].valueOf(codes[column.ordinal()][row]);
+    }
+
+    private void buildPostings(Column column) {
+        int[] columnCodes = codes[column.ordinal()];
+        int keys = dictionaries[column.ordinal()].size();
+        int[] offsets = new int[keys + 1];
+        for (int code : columnCodes) {
+            if (code >= 0) {
+                offsets[code + 1]++;
+            }
+        }
+        for (int k = 0; k < keys; k++) {
+            offsets[k + 1] += offsets[k];
+        }
+        int[] fill = offsets.clone();
+        int[] rows = new int[offsets[keys]];
+        for (int row = 0; row < columnCodes.length; row++) {
+            if (columnCodes[row] >= 0) {
+                rows[fill[columnCodes[row]]++] = row;
+            }
+        }
+        int[] maxEnd = new int[rows.length];
+        for (int k = 0; k < keys; k++) {
+            int running = Integer.MIN_VALUE;
+            for (int i = offsets[k]; i < offsets[k + 1]; i++) {
+                running = Math.max(running, ends[rows[i]]);
+                maxEnd[i] = running;
+            }
+        }
+        postingOffsets[column.ordinal()] = offsets;
+        postingRows[column.ordinal()] = rows;
+        postingMaxEnd[column.ordinal()] = maxEnd;
+    }
+
+    /**
+     * First position in {@code [from, to)} whose row starts at or after {@code minute}; positions
+     * are rows themselves when {@code rows} is null.
+     */
+    private int lowerBound(int[] rows, int from, int to, int minute) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int row = rows != null ? rows[mid] : mid;
+            if (starts[row] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String value(ScheduleEntry entry, Column column) {
+        return switch (column) {
+            case COURSE -> entry.getCourseId();
+            case TEACHER -> entry.getTeacherId();
+            case ROOM -> entry.getRoomId();
+            case GROUP -> entry.getGroupId();
+        };
+    }
+
+    private static boolean isWholeMinute(LocalDateTime time) {
+        if (time == null || time.getSecond() != 0 || time.getNano() != 0) {
+            return false;
+        }
+        long minutes = ChronoUnit.MINUTES.between(EPOCH, time);
+        return minutes > Integer.MIN_VALUE && minutes < Integer.MAX_VALUE;
+    }
+
+    private static int toMinutes(LocalDateTime time) {
+        return (int) ChronoUnit.MINUTES.between(EPOCH, time);
+    }
+
+    private static int floorMinutes(LocalDateTime time) {
+        long minutes = ChronoUnit.MINUTES.between(EPOCH, time);
+        if (time.isBefore(EPOCH) && !EPOCH.plusMinutes(minutes).equals(time)) {
+            minutes--;
+        }
+        return (int) Math.max(Integer.MIN_VALUE + 1L, Math.min(Integer.MAX_VALUE - 1L, minutes));
+    }
+
+    private static int ceilMinutes(LocalDateTime time) {
+        int floor = floorMinutes(time);
+        return EPOCH.plusMinutes(floor).equals(time) ? floor : floor + 1;
+    }
+}
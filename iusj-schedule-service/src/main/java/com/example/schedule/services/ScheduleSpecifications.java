@@ -48,12 +48,19 @@ public final class ScheduleSpecifications {
             }
             if (endTo != null) {
                 predicates.add(builder.lessThanOrEqualTo(root.get("endTime"), endTo));
+                // Implied by the previous predicate, but on the partitioning column
+                predicates.add(builder.lessThan(root.get("startTime"), endTo));
             }
 
             return builder.and(predicates.toArray(new Predicate[0]));
         };
     }
 
+    /**
+     * Entries of a resource overlapping {@code [start, end)}. Besides the overlap condition, the
+     * start time is bounded on both sides (see {@link ScheduleEntry#MAX_DURATION}) so that only
+     * the partitions of the period and the (resource, startTime) index range are read.
+     */
     public static Specification<ScheduleEntry> overlapFor(String fieldName,
                                                           String fieldValue,
                                                           LocalDateTime start,
@@ -66,6 +73,7 @@ public final class ScheduleSpecifications {
             }
             predicates.add(builder.equal(root.get(fieldName), fieldValue));
             predicates.add(builder.lessThan(root.get("startTime"), end));
+            predicates.add(builder.greaterThan(root.get("startTime"), start.minus(ScheduleEntry.MAX_DURATION)));
             predicates.add(builder.greaterThan(root.get("endTime"), start));
             if (excludeId != null) {
                 predicates.add(builder.notEqual(root.get("id"), excludeId));
@@ -73,4 +81,25 @@ public final class ScheduleSpecifications {
             return builder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<ScheduleEntry> overlapping(LocalDateTime start, LocalDateTime end) {
+        return (root, query, builder) -> builder.and(
+            builder.lessThan(root.get("startTime"), end),
+            builder.greaterThan(root.get("startTime"), start.minus(ScheduleEntry.MAX_DURATION)),
+            builder.greaterThan(root.get("endTime"), start)
+        );
+    }
+
+    /**
+     * Keyset predicate: entries strictly after {@code (startTime, id)} in (startTime, id) order.
+     */
+    public static Specification<ScheduleEntry> after(LocalDateTime startTime, Long id) {
+        return (root, query, builder) -> builder.or(
+            builder.greaterThan(root.get("startTime"), startTime),
+            builder.and(
+                builder.equal(root.get("startTime"), startTime),
+                builder.greaterThan(root.get("id"), id)
+            )
+        );
+    }
 }
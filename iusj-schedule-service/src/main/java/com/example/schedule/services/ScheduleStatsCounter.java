@@ -0,0 +1,126 @@
+package com.example.schedule.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory counters of the total number of schedule entries and of entries per status, used by
+ * the dashboard statistics without querying the database.
+ *
+ * The counters are updated by {@link ScheduleService} on every write once it is committed, and
+ * reconciled periodically against a single {@code GROUP BY status} query to absorb any drift
+ * (concurrent writes, changes made outside the service).
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleStatsCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleStatsCounter.class);
+
+    private final ScheduleEntryRepository repository;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray byStatus = new AtomicLongArray(SessionStatus.values().length);
+    private volatile boolean ready;
+
+    /**
+     * Reloads the counters from the database once the application is ready, then periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${stats.reconcile-interval-ms:300000}", initialDelayString = "${stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            long[] counts = new long[byStatus.length()];
+            long sum = 0;
+            for (Object[] row : repository.countGroupedByStatus()) {
+                long count = ((Number) row[1]).longValue();
+                sum += count;
+                if (row[0] != null) {
+                    counts[((SessionStatus) row[0]).ordinal()] = count;
+                }
+            }
+            for (int i = 0; i < counts.length; i++) {
+                byStatus.set(i, counts[i]);
+            }
+            total.set(sum);
+            ready = true;
+        } catch (RuntimeException e) {
+            logger.warn("Statistics could not be reconciled: {}", e.getMessage());
+        }
+    }
+
+    public long total() {
+        ensureReady();
+        return total.get();
+    }
+
+    public long count(SessionStatus status) {
+        ensureReady();
+        return byStatus.get(status.ordinal());
+    }
+
+    public void created(SessionStatus status) {
+        afterCommit(() -> {
+            total.incrementAndGet();
+            add(status, 1);
+        });
+    }
+
+    public void changed(SessionStatus before, SessionStatus after) {
+        if (before != after) {
+            afterCommit(() -> {
+                add(before, -1);
+                add(after, 1);
+            });
+        }
+    }
+
+    public void deleted(SessionStatus status) {
+        afterCommit(() -> {
+            total.decrementAndGet();
+            add(status, -1);
+        });
+    }
+
+    private void add(SessionStatus status, long delta) {
+        if (status != null) {
+            byStatus.addAndGet(status.ordinal(), delta);
+        }
+    }
+
+    private void ensureReady() {
+        if (!ready) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Applies the change once the current transaction commits, or right away if there is none.
+     */
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.schedule.services;
+
+/**
+ * Bit operations over {@code long[]} slot grids, bit {@code i} standing for slot {@code i}.
+ * Ranges are half-open [from, to).
+ */
+public final class SlotBits {
+
+    private SlotBits() {}
+
+    public static int words(int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    public static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    public static void setRange(long[] bits, int from, int to) {
+        for (int w = from >>> 6; from < to; w++) {
+            long mask = rangeMask(from, to, w);
+            bits[w] |= mask;
+            from = (w + 1) << 6;
+        }
+    }
+
+    public static void clearRange(long[] bits, int from, int to) {
+        for (int w = from >>> 6; from < to; w++) {
+            long mask = rangeMask(from, to, w);
+            bits[w] &= ~mask;
+            from = (w + 1) << 6;
+        }
+    }
+
+    public static boolean anyInRange(long[] bits, int from, int to) {
+        for (int w = from >>> 6; from < to; w++) {
+            if ((bits[w] & rangeMask(from, to, w)) != 0) {
+                return true;
+            }
+            from = (w + 1) << 6;
+        }
+        return false;
+    }
+
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first set bit at or after {@code from}, or -1.
+     */
+    public static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) {
+            return -1;
+        }
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == bits.length) {
+                return -1;
+            }
+            word = bits[w];
+        }
+    }
+
+    /**
+     * Bits {@code i} such that bits {@code i} to {@code i + length - 1} are all set. Each step
+     * ANDs the runs found so far with themselves shifted, doubling the run length covered, so
+     * this takes about log2(length) passes over the words.
+     */
+    public static long[] runStarts(long[] bits, int length) {
+        long[] runs = bits.clone();
+        for (int covered = 1; covered < length; ) {
+            int shift = Math.min(covered, length - covered);
+            long[] shifted = shiftDown(runs, shift);
+            for (int w = 0; w < runs.length; w++) {
+                runs[w] &= shifted[w];
+            }
+            covered += shift;
+        }
+        return runs;
+    }
+
+    /**
+     * Copy of {@code bits} where bit {@code i} is bit {@code i + shift} of the original.
+     */
+    static long[] shiftDown(long[] bits, int shift) {
+        long[] shifted = new long[bits.length];
+        int words = shift >>> 6;
+        int offset = shift & 63;
+        for (int w = 0; w + words < bits.length; w++) {
+            long word = bits[w + words] >>> offset;
+            if (offset != 0 && w + words + 1 < bits.length) {
+                word |= bits[w + words + 1] << (64 - offset);
+            }
+            shifted[w] = word;
+        }
+        return shifted;
+    }
+
+    /**
+     * Mask of the bits of word {@code w} that fall in [from, to), assuming {@code from} lies in that word.
+     */
+    static long rangeMask(int from, int to, int w) {
+        int wordEnd = (w + 1) << 6;
+        long mask = -1L << from;
+        if (to < wordEnd) {
+            mask &= -1L >>> (wordEnd - to);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.schedule.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes schedule entries to an XLSX workbook with a bounded memory footprint.
+ *
+ * Entries are streamed from the database in a read-only transaction, merged with the archived
+ * ones and the rule occurrences of the period, and detached once written; rows go through an {@link SXSSFWorkbook} that
+ * only keeps a small window of rows in memory and flushes the others to compressed temporary
+ * files, which are zipped into the output at the end.
+ * A new sheet is started when one reaches the Excel row limit.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimetableExcelWriter {
+
+    private static final int WINDOW_ROWS = 100;
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final String SHEET_NAME = "Séances";
+    private static final List<String> HEADERS = List.of(
+        "Id", "Cours", "Enseignant", "Salle", "Groupe", "Début", "Fin", "Durée (min)", "Statut"
+    );
+    private static final int[] COLUMN_WIDTHS = {10, 16, 16, 12, 12, 18, 18, 12, 12};
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleArchive archive;
+    private final ScheduleRuleIndex ruleIndex;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Writes the entries overlapping {@code [from, to)} of a group, teacher or room, or of the
+     * whole institution when {@code view} is null, and returns the number of rows written.
+     */
+    public long write(TimetableView view, String resourceId, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_ROWS);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            Long written = transaction.execute(status -> {
+                long count = 0;
+                SXSSFSheet sheet = null;
+                int rowIndex = 0;
+                try (Stream<ScheduleEntry> entries = repository.streamOverlapping(
+                    from,
+                    to,
+                    view == TimetableView.TEACHER ? resourceId : null,
+                    view == TimetableView.ROOM ? resourceId : null,
+                    view == TimetableView.GROUP ? resourceId : null
+                )) {
+                    Iterator<ScheduleEntry> merged = Recurrence.merge(
+                        ScheduleArchive.merge(entries.iterator(), archive.overlapping(view, resourceId, from, to)),
+                        ruleIndex.entries(view, resourceId, from, to)
+                    );
+                    while (merged.hasNext()) {
+                        ScheduleEntry entry = merged.next();
+                        if (sheet == null || rowIndex == MAX_SHEET_ROWS) {
+                            sheet = newSheet(workbook, headerStyle);
+                            rowIndex = 1;
+                        }
+                        writeRow(sheet.createRow(rowIndex++), entry, dateStyle);
+                        if (entityManager.contains(entry)) {
+                            entityManager.detach(entry);
+                        }
+                        count++;
+                    }
+                }
+                if (sheet == null) {
+                    newSheet(workbook, headerStyle);
+                }
+                return count;
+            });
+            workbook.write(out);
+            out.flush();
+            return written != null ? written : 0;
+        } finally {
+            // Closing also deletes the temporary files
+            workbook.close();
+        }
+    }
+
+    private static SXSSFSheet newSheet(SXSSFWorkbook workbook, CellStyle headerStyle) {
+        int number = workbook.getNumberOfSheets();
+        SXSSFSheet sheet = workbook.createSheet(number == 0 ? SHEET_NAME : SHEET_NAME + " " + (number + 1));
+        Row header = sheet.createRow(0);
+        for (int column = 0; column < HEADERS.size(); column++) {
+            header.createCell(column).setCellValue(HEADERS.get(column));
+            header.getCell(column).setCellStyle(headerStyle);
+            sheet.setColumnWidth(column, COLUMN_WIDTHS[column] * 256);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    private static void writeRow(Row row, ScheduleEntry entry, CellStyle dateStyle) {
+        if (entry.getId() != null) {
+            row.createCell(0).setCellValue(entry.getId());
+        } else {
+            row.createCell(0).setCellValue("Règle " + entry.getRuleId());
+        }
+        row.createCell(1).setCellValue(entry.getCourseId());
+        row.createCell(2).setCellValue(entry.getTeacherId());
+        row.createCell(3).setCellValue(entry.getRoomId());
+        row.createCell(4).setCellValue(entry.getGroupId());
+        row.createCell(5).setCellValue(entry.getStartTime());
+        row.getCell(5).setCellStyle(dateStyle);
+        row.createCell(6).setCellValue(entry.getEndTime());
+        row.getCell(6).setCellStyle(dateStyle);
+        row.createCell(7).setCellValue(Duration.between(entry.getStartTime(), entry.getEndTime()).toMinutes());
+        row.createCell(8).setCellValue(entry.getStatus() != null ? entry.getStatus().name() : "");
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.schedule.services;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Builds a weekly timetable for a set of courses with {@link TimetableSolver} and expands it
+ * into {@link ScheduleEntry} rows for every week of the requested period.
+ *
+ * Sessions already stored for the period, and the occurrences of recurrence rules, are projected
+ * onto the weekly grid and treated as occupied, so the generated rows never conflict with them.
+ * A session blocks whole slots but keeps its exact duration.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimetableGenerator {
+
+    private static final List<DayOfWeek> DEFAULT_DAYS = List.of(
+        DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY
+    );
+    private static final LocalTime DEFAULT_DAY_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_DAY_END = LocalTime.of(18, 0);
+    private static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final int DEFAULT_DURATION_MINUTES = 120;
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleRuleIndex ruleIndex;
+
+    public record Request(
+        LocalDate startDate,
+        LocalDate endDate,
+        List<DayOfWeek> days,
+        LocalTime dayStart,
+        LocalTime dayEnd,
+        Integer slotMinutes,
+        List<CourseDemand> courses,
+        List<GroupInfo> groups,
+        List<RoomInfo> rooms,
+        List<Availability> availabilities,
+        Integer maxBacktracks,
+        boolean dryRun
+    ) {}
+
+    /**
+     * A course to teach to a group: {@code sessionsPerWeek} sessions of {@code durationMinutes},
+     * optionally restricted to some rooms.
+     */
+    public record CourseDemand(
+        String courseId,
+        String teacherId,
+        String groupId,
+        Integer durationMinutes,
+        Integer sessionsPerWeek,
+        List<String> roomIds
+    ) {}
+
+    public record GroupInfo(String id, Integer size) {}
+
+    public record RoomInfo(String id, Integer capacity) {}
+
+    /**
+     * Weekly availability window of a teacher. Teachers without any window are always available.
+     */
+    public record Availability(String teacherId, DayOfWeek day, LocalTime start, LocalTime end) {}
+
+    public record Plan(List<ScheduleEntry> entries, int placed, int unplaced, List<CourseDemand> unplacedSessions) {}
+
+    public Plan generate(Request request) {
+        validate(request);
+        Grid grid = new Grid(
+            CollectionUtils.isEmpty(request.days()) ? DEFAULT_DAYS : request.days(),
+            request.dayStart() != null ? request.dayStart() : DEFAULT_DAY_START,
+            request.dayEnd() != null ? request.dayEnd() : DEFAULT_DAY_END,
+            request.slotMinutes() != null ? request.slotMinutes() : DEFAULT_SLOT_MINUTES
+        );
+
+        Map<String, Integer> teachers = new LinkedHashMap<>();
+        Map<String, Integer> groups = new LinkedHashMap<>();
+        Map<String, Integer> rooms = new LinkedHashMap<>();
+        Map<String, Integer> roomCapacity = new HashMap<>();
+        Map<String, Integer> groupSize = new HashMap<>();
+        for (RoomInfo room : request.rooms()) {
+            rooms.putIfAbsent(room.id(), rooms.size());
+            if (room.capacity() != null) {
+                roomCapacity.put(room.id(), room.capacity());
+            }
+        }
+        if (request.groups() != null) {
+            for (GroupInfo group : request.groups()) {
+                if (group.size() != null) {
+                    groupSize.put(group.id(), group.size());
+                }
+            }
+        }
+        for (CourseDemand course : request.courses()) {
+            teachers.putIfAbsent(course.teacherId(), teachers.size());
+            groups.putIfAbsent(course.groupId(), groups.size());
+            if (course.roomIds() != null) {
+                course.roomIds().forEach(id -> rooms.putIfAbsent(id, rooms.size()));
+            }
+        }
+
+        TimetableSolver solver = new TimetableSolver(
+            grid.days().size(), grid.slotsPerDay(), teachers.size(), groups.size(), rooms.size()
+        );
+        blockUnavailability(solver, grid, request.availabilities(), teachers);
+        blockExistingSessions(solver, grid, request, teachers, groups, rooms);
+
+        List<CourseDemand> lessonDemands = new ArrayList<>();
+        for (int c = 0; c < request.courses().size(); c++) {
+            CourseDemand course = request.courses().get(c);
+            int length = grid.toSlots(course.durationMinutes() != null ? course.durationMinutes() : DEFAULT_DURATION_MINUTES);
+            int sessions = course.sessionsPerWeek() != null ? course.sessionsPerWeek() : 1;
+            int[] candidates = candidateRooms(course, rooms, roomCapacity, groupSize.get(course.groupId()));
+            int spreadKey = sessions > 1 && sessions <= grid.days().size() ? c : -1;
+            for (int i = 0; i < sessions; i++) {
+                solver.addLesson(teachers.get(course.teacherId()), groups.get(course.groupId()), length, candidates, null, spreadKey);
+                lessonDemands.add(course);
+            }
+        }
+
+        int lessonCount = lessonDemands.size();
+        int maxBacktracks = request.maxBacktracks() != null ? request.maxBacktracks() : Math.max(10_000, lessonCount * 4);
+        TimetableSolver.Solution solution = solver.solve(maxBacktracks);
+
+        List<String> roomIds = new ArrayList<>(rooms.keySet());
+        List<ScheduleEntry> entries = new ArrayList<>();
+        List<CourseDemand> unplaced = new ArrayList<>();
+        for (int l = 0; l < lessonCount; l++) {
+            CourseDemand course = lessonDemands.get(l);
+            if (!solution.isPlaced(l)) {
+                unplaced.add(course);
+                continue;
+            }
+            int start = solution.start()[l];
+            int durationMinutes = course.durationMinutes() != null ? course.durationMinutes() : DEFAULT_DURATION_MINUTES;
+            DayOfWeek day = grid.days().get(start / grid.slotsPerDay());
+            LocalTime from = grid.timeOf(start % grid.slotsPerDay());
+            String roomId = roomIds.get(solution.room()[l]);
+            LocalDate week = request.startDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            for (; !week.isAfter(request.endDate()); week = week.plusWeeks(1)) {
+                LocalDate date = week.with(TemporalAdjusters.nextOrSame(day));
+                if (date.isBefore(request.startDate()) || date.isAfter(request.endDate())) {
+                    continue;
+                }
+                ScheduleEntry entry = new ScheduleEntry();
+                entry.setCourseId(course.courseId());
+                entry.setTeacherId(course.teacherId());
+                entry.setGroupId(course.groupId());
+                entry.setRoomId(roomId);
+                entry.setStartTime(date.atTime(from));
+                entry.setEndTime(date.atTime(from).plusMinutes(durationMinutes));
+                entries.add(entry);
+            }
+        }
+        return new Plan(entries, solution.placed(), solution.unplaced(), unplaced);
+    }
+
+    private void validate(Request request) {
+        if (request == null || request.startDate() == null || request.endDate() == null
+            || request.endDate().isBefore(request.startDate())) {
+            throw new IllegalArgumentException("A generation period with startDate <= endDate is required");
+        }
+        if (CollectionUtils.isEmpty(request.courses()) || CollectionUtils.isEmpty(request.rooms())) {
+            throw new IllegalArgumentException("Courses and rooms are required to generate a timetable");
+        }
+        for (CourseDemand course : request.courses()) {
+            if (!StringUtils.hasText(course.courseId()) || !StringUtils.hasText(course.teacherId())
+                || !StringUtils.hasText(course.groupId())) {
+                throw new IllegalArgumentException("Each course needs a courseId, a teacherId and a groupId");
+            }
+        }
+    }
+
+    private static int[] candidateRooms(CourseDemand course, Map<String, Integer> rooms,
+                                        Map<String, Integer> roomCapacity, Integer groupSize) {
+        List<String> ids = CollectionUtils.isEmpty(course.roomIds()) ? new ArrayList<>(rooms.keySet()) : course.roomIds();
+        return ids.stream()
+            .distinct()
+            .filter(id -> groupSize == null || !roomCapacity.containsKey(id) || roomCapacity.get(id) >= groupSize)
+            .sorted(Comparator.comparing((String id) -> roomCapacity.getOrDefault(id, Integer.MAX_VALUE)))
+            .mapToInt(rooms::get)
+            .toArray();
+    }
+
+    private static void blockUnavailability(TimetableSolver solver, Grid grid, List<Availability> availabilities,
+                                            Map<String, Integer> teachers) {
+        if (CollectionUtils.isEmpty(availabilities)) {
+            return;
+        }
+        Map<Integer, long[]> available = new HashMap<>();
+        for (Availability availability : availabilities) {
+            Integer teacher = teachers.get(availability.teacherId());
+            int day = grid.days().indexOf(availability.day());
+            if (teacher == null || day < 0 || availability.start() == null || availability.end() == null) {
+                continue;
+            }
+            long[] bits = available.computeIfAbsent(teacher, t -> new long[SlotBits.words(grid.size())]);
+            int from = grid.slotAtOrAfter(availability.start());
+            int to = grid.slotAtOrBefore(availability.end());
+            if (from < to) {
+                SlotBits.setRange(bits, day * grid.slotsPerDay() + from, day * grid.slotsPerDay() + to);
+            }
+        }
+        available.forEach((teacher, bits) -> {
+            for (int slot = 0; slot < grid.size(); slot++) {
+                if (!SlotBits.get(bits, slot)) {
+                    solver.block(TimetableSolver.Resource.TEACHER, teacher, slot, slot + 1);
+                }
+            }
+        });
+    }
+
+    private void blockExistingSessions(TimetableSolver solver, Grid grid, Request request, Map<String, Integer> teachers,
+                                       Map<String, Integer> groups, Map<String, Integer> rooms) {
+        LocalDateTime lower = request.startDate().atStartOfDay();
+        LocalDateTime upper = request.endDate().plusDays(1).atStartOfDay();
+        for (ScheduleEntry entry : repository.findAll(ScheduleSpecifications.overlapping(lower, upper))) {
+            blockSession(solver, grid, entry.getTeacherId(), entry.getGroupId(), entry.getRoomId(),
+                entry.getStartTime(), entry.getEndTime(), teachers, groups, rooms);
+        }
+        for (Recurrence.Occurrence occurrence : ruleIndex.occurrences(null, null, null, lower, upper)) {
+            blockSession(solver, grid, occurrence.teacherId(), occurrence.groupId(), occurrence.roomId(),
+                occurrence.start(), occurrence.end(), teachers, groups, rooms);
+        }
+    }
+
+    /**
+     * Blocks the weekly slots of a session on its start day, up to the end of that day.
+     */
+    private static void blockSession(TimetableSolver solver, Grid grid, String teacherId, String groupId, String roomId,
+                                     LocalDateTime start, LocalDateTime end, Map<String, Integer> teachers,
+                                     Map<String, Integer> groups, Map<String, Integer> rooms) {
+        int day = grid.days().indexOf(start.getDayOfWeek());
+        if (day < 0) {
+            return;
+        }
+        int from = day * grid.slotsPerDay() + grid.slotAtOrBefore(start.toLocalTime());
+        int to = end.toLocalDate().isAfter(start.toLocalDate())
+            ? (day + 1) * grid.slotsPerDay()
+            : day * grid.slotsPerDay() + grid.slotAtOrAfter(end.toLocalTime());
+        block(solver, TimetableSolver.Resource.TEACHER, teachers.get(teacherId), from, to);
+        block(solver, TimetableSolver.Resource.GROUP, groups.get(groupId), from, to);
+        block(solver, TimetableSolver.Resource.ROOM, rooms.get(roomId), from, to);
+    }
+
+    private static void block(TimetableSolver solver, TimetableSolver.Resource resource, Integer index, int from, int to) {
+        if (index != null) {
+            solver.block(resource, index, from, to);
+        }
+    }
+
+    /**
+     * Weekly grid: {@code days x slotsPerDay} slots of {@code slotMinutes} from {@code dayStart}.
+     */
+    record Grid(List<DayOfWeek> days, LocalTime dayStart, LocalTime dayEnd, int slotMinutes) {
+
+        Grid {
+            if (slotMinutes <= 0 || !dayEnd.isAfter(dayStart)) {
+                throw new IllegalArgumentException("Invalid day bounds or slot length");
+            }
+        }
+
+        int slotsPerDay() {
+            return (int) (Duration.between(dayStart, dayEnd).toMinutes() / slotMinutes);
+        }
+
+        int size() {
+            return days.size() * slotsPerDay();
+        }
+
+        int toSlots(int minutes) {
+            return Math.max(1, (minutes + slotMinutes - 1) / slotMinutes);
+        }
+
+        LocalTime timeOf(int slot) {
+            return dayStart.plusMinutes((long) slot * slotMinutes);
+        }
+
+        int slotAtOrBefore(LocalTime time) {
+            long minutes = Duration.between(dayStart, time).toMinutes();
+            return (int) Math.max(0, Math.min(slotsPerDay(), Math.floorDiv(minutes, slotMinutes)));
+        }
+
+        int slotAtOrAfter(LocalTime time) {
+            long minutes = Duration.between(dayStart, time).toMinutes();
+            return (int) Math.max(0, Math.min(slotsPerDay(), Math.floorDiv(minutes + slotMinutes - 1, slotMinutes)));
+        }
+    }
+}
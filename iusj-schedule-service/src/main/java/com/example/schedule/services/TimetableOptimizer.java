@@ -0,0 +1,181 @@
+package com.example.schedule.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Second phase of timetable generation: improves the stored timetable of a period with
+ * {@link AnnealingSearch} to reduce idle gaps and room changes of the groups.
+ *
+ * Only {@link SessionStatus#SCHEDULED} sessions aligned on the slot grid are moved, and only
+ * within their own day; a session may also switch to a room its group already uses in the
+ * period. Everything else overlapping the period stays in place and keeps its slots, as do the
+ * occurrences of the recurring rules, which are not stored but hold their resources all the same.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimetableOptimizer {
+
+    private static final LocalTime DEFAULT_DAY_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_DAY_END = LocalTime.of(18, 0);
+    private static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final long DEFAULT_BUDGET_MS = 5_000;
+    private static final long MAX_BUDGET_MS = 300_000;
+    // Each search thread holds days x slotsPerDay bits per teacher, group and room
+    private static final long MAX_DAYS = 366;
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleRuleIndex ruleIndex;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public record Request(
+        LocalDate from,
+        LocalDate to,
+        LocalTime dayStart,
+        LocalTime dayEnd,
+        Integer slotMinutes,
+        Long budgetMs,
+        Integer threads,
+        Integer gapWeight,
+        Integer roomChangeWeight,
+        Long seed,
+        boolean dryRun
+    ) {}
+
+    public record Plan(
+        List<ScheduleEntry> changed,
+        AnnealingSearch.Score initial,
+        AnnealingSearch.Score best,
+        int sessions,
+        int threads,
+        long iterations,
+        long seed
+    ) {}
+
+    public Plan optimize(Request request) {
+        if (request == null || request.from() == null || request.to() == null || request.to().isBefore(request.from())) {
+            throw new IllegalArgumentException("An optimization period with from <= to is required");
+        }
+        if (ChronoUnit.DAYS.between(request.from(), request.to()) > MAX_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Optimization period cannot exceed " + MAX_DAYS + " days");
+        }
+        DateGrid grid = DateGrid.between(
+            request.from(),
+            request.to(),
+            request.dayStart() != null ? request.dayStart() : DEFAULT_DAY_START,
+            request.dayEnd() != null ? request.dayEnd() : DEFAULT_DAY_END,
+            request.slotMinutes() != null ? request.slotMinutes() : DEFAULT_SLOT_MINUTES
+        );
+        long budgetMs = Math.min(MAX_BUDGET_MS, Math.max(100, request.budgetMs() != null ? request.budgetMs() : DEFAULT_BUDGET_MS));
+        int threads = Math.max(1, Math.min(pool.getParallelism(), request.threads() != null ? request.threads() : pool.getParallelism()));
+        AnnealingSearch.Weights weights = new AnnealingSearch.Weights(
+            request.gapWeight() != null ? request.gapWeight() : 1,
+            request.roomChangeWeight() != null ? request.roomChangeWeight() : 2
+        );
+
+        List<ScheduleEntry> entries = repository.findAll(
+            ScheduleSpecifications.overlapping(grid.lowerBound(), grid.upperBound())
+        );
+        List<Recurrence.Occurrence> occurrences = ruleIndex.occurrences(null, null, null, grid.lowerBound(), grid.upperBound());
+        Map<String, Integer> teachers = new HashMap<>();
+        Map<String, Integer> groups = new HashMap<>();
+        Map<String, Integer> rooms = new LinkedHashMap<>();
+        Map<String, Set<String>> roomsByGroup = new HashMap<>();
+        for (ScheduleEntry entry : entries) {
+            teachers.putIfAbsent(entry.getTeacherId(), teachers.size());
+            groups.putIfAbsent(entry.getGroupId(), groups.size());
+            rooms.putIfAbsent(entry.getRoomId(), rooms.size());
+            roomsByGroup.computeIfAbsent(entry.getGroupId(), g -> new LinkedHashSet<>()).add(entry.getRoomId());
+        }
+        for (Recurrence.Occurrence occurrence : occurrences) {
+            teachers.putIfAbsent(occurrence.teacherId(), teachers.size());
+            groups.putIfAbsent(occurrence.groupId(), groups.size());
+            rooms.putIfAbsent(occurrence.roomId(), rooms.size());
+        }
+
+        AnnealingSearch search = new AnnealingSearch(grid.days(), grid.slotsPerDay(), teachers.size(), groups.size(), rooms.size());
+        List<ScheduleEntry> sessions = new ArrayList<>();
+        List<int[]> placements = new ArrayList<>();
+        for (ScheduleEntry entry : entries) {
+            int[] range = grid.rangeOf(entry.getStartTime(), entry.getEndTime());
+            if (range == null) {
+                continue;
+            }
+            boolean movable = entry.getStatus() == SessionStatus.SCHEDULED && grid.isAligned(entry.getStartTime(), entry.getEndTime());
+            int[] candidates = roomsByGroup.get(entry.getGroupId()).stream().mapToInt(rooms::get).toArray();
+            search.addSession(
+                teachers.get(entry.getTeacherId()),
+                groups.get(entry.getGroupId()),
+                rooms.get(entry.getRoomId()),
+                range[0],
+                range[1] - range[0],
+                candidates,
+                movable
+            );
+            sessions.add(entry);
+            placements.add(new int[] {range[0], rooms.get(entry.getRoomId())});
+        }
+        // Added after the entries, so the first results of the search are those of the entries
+        for (Recurrence.Occurrence occurrence : occurrences) {
+            int[] range = grid.rangeOf(occurrence.start(), occurrence.end());
+            if (range != null) {
+                search.addSession(
+                    teachers.get(occurrence.teacherId()),
+                    groups.get(occurrence.groupId()),
+                    rooms.get(occurrence.roomId()),
+                    range[0],
+                    range[1] - range[0],
+                    null,
+                    false
+                );
+            }
+        }
+
+        long seed = request.seed() != null ? request.seed() : System.nanoTime();
+        AnnealingSearch.Result result = search.optimize(pool, threads, budgetMs, seed, weights);
+
+        List<String> roomIds = new ArrayList<>(rooms.keySet());
+        List<ScheduleEntry> changed = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (result.start()[i] == placements.get(i)[0] && result.room()[i] == placements.get(i)[1]) {
+                continue;
+            }
+            ScheduleEntry entry = sessions.get(i);
+            LocalDateTime start = grid.timeOf(result.start()[i]);
+            Duration duration = Duration.between(entry.getStartTime(), entry.getEndTime());
+            entry.setStartTime(start);
+            entry.setEndTime(start.plus(duration));
+            entry.setRoomId(roomIds.get(result.room()[i]));
+            changed.add(entry);
+        }
+        return new Plan(changed, result.initial(), result.best(), sessions.size(), threads, result.iterations(), result.seed());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
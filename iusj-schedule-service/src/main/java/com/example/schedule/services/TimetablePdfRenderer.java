@@ -0,0 +1,245 @@
+package com.example.schedule.services;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Component;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+/**
+ * Renders the weekly timetable grid of a group, teacher or room as a PDF, one landscape page per
+ * week that has sessions.
+ *
+ * Pages are written to the output stream as soon as they are complete, so the size of the
+ * document never has to be held in memory.
+ */
+@Component
+public class TimetablePdfRenderer {
+
+    private static final int ROW_MINUTES = 30;
+    private static final int DEFAULT_DAY_START = 8 * 60;
+    private static final int DEFAULT_DAY_END = 18 * 60;
+    private static final float GRID_HEIGHT = 460f;
+    private static final float MAX_ROW_HEIGHT = 18f;
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEEE dd/MM", Locale.FRENCH);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final Font TITLE_FONT = new Font(Font.HELVETICA, 13, Font.BOLD);
+    private static final Font HEADER_FONT = new Font(Font.HELVETICA, 8, Font.BOLD);
+    private static final Font TEXT_FONT = new Font(Font.HELVETICA, 7, Font.NORMAL);
+    private static final Font COURSE_FONT = new Font(Font.HELVETICA, 7, Font.BOLD);
+    private static final Color HEADER_COLOR = new Color(225, 225, 225);
+    private static final Color SESSION_COLOR = new Color(214, 232, 250);
+    private static final Color CANCELLED_COLOR = new Color(240, 240, 240);
+
+    private record Block(int fromRow, int toRow, List<ScheduleEntry> entries) {}
+
+    /**
+     * Writes the timetable of {@code entries}, sorted by start time, for the weeks between
+     * {@code from} and {@code to}. The stream is flushed after each page and left open.
+     */
+    public void render(TimetableView view, String resourceId, LocalDate from, LocalDate to,
+                       List<ScheduleEntry> entries, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4.rotate(), 24, 24, 24, 24);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.addTitle("Emploi du temps - " + view.label() + " " + resourceId);
+        document.open();
+
+        int dayStart = DEFAULT_DAY_START;
+        int dayEnd = DEFAULT_DAY_END;
+        boolean sunday = false;
+        for (ScheduleEntry entry : entries) {
+            dayStart = Math.min(dayStart, minuteOfDay(entry.getStartTime()) / ROW_MINUTES * ROW_MINUTES);
+            dayEnd = Math.max(dayEnd, endMinute(entry));
+            sunday |= entry.getStartTime().getDayOfWeek() == DayOfWeek.SUNDAY;
+        }
+        dayEnd = Math.min(24 * 60, (dayEnd + ROW_MINUTES - 1) / ROW_MINUTES * ROW_MINUTES);
+        int days = sunday ? 7 : 6;
+
+        int index = 0;
+        boolean pages = false;
+        for (LocalDate monday = from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+             !monday.isAfter(to); monday = monday.plusWeeks(1)) {
+            LocalDate nextMonday = monday.plusWeeks(1);
+            List<ScheduleEntry> week = new ArrayList<>();
+            while (index < entries.size() && entries.get(index).getStartTime().toLocalDate().isBefore(nextMonday)) {
+                ScheduleEntry entry = entries.get(index++);
+                if (!entry.getStartTime().toLocalDate().isBefore(monday)) {
+                    week.add(entry);
+                }
+            }
+            if (week.isEmpty()) {
+                continue;
+            }
+            if (pages) {
+                document.newPage();
+            }
+            pages = true;
+            document.add(title(view, resourceId, "Semaine du " + monday.format(DATE_FORMAT)));
+            document.add(weekTable(view, monday, week, dayStart, dayEnd, days));
+            out.flush();
+        }
+        if (!pages) {
+            document.add(title(view, resourceId, "Du " + from.format(DATE_FORMAT) + " au " + to.format(DATE_FORMAT)));
+            document.add(new Paragraph("Aucune séance sur la période.", TEXT_FONT));
+        }
+        document.close();
+        out.flush();
+    }
+
+    private static Paragraph title(TimetableView view, String resourceId, String period) {
+        Paragraph title = new Paragraph("Emploi du temps - " + view.label() + " " + resourceId + " - " + period, TITLE_FONT);
+        title.setSpacingAfter(8);
+        return title;
+    }
+
+    private static PdfPTable weekTable(TimetableView view, LocalDate monday, List<ScheduleEntry> week,
+                                       int dayStart, int dayEnd, int days) {
+        int rows = (dayEnd - dayStart) / ROW_MINUTES;
+        float rowHeight = Math.min(MAX_ROW_HEIGHT, GRID_HEIGHT / rows);
+
+        Block[][] blocks = new Block[days][rows];
+        boolean[][] covered = new boolean[days][rows];
+        for (int day = 0; day < days; day++) {
+            LocalDate date = monday.plusDays(day);
+            List<ScheduleEntry> ofDay = week.stream()
+                .filter(e -> e.getStartTime().toLocalDate().equals(date))
+                .sorted(Comparator.comparing(ScheduleEntry::getStartTime))
+                .toList();
+            for (Block block : blocks(ofDay, dayStart, rows)) {
+                blocks[day][block.fromRow()] = block;
+                for (int row = block.fromRow(); row < block.toRow(); row++) {
+                    covered[day][row] = true;
+                }
+            }
+        }
+
+        float[] widths = new float[days + 1];
+        widths[0] = 0.5f;
+        for (int day = 1; day <= days; day++) {
+            widths[day] = 1f;
+        }
+        PdfPTable table = new PdfPTable(widths);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.addCell(headerCell(""));
+        for (int day = 0; day < days; day++) {
+            table.addCell(headerCell(monday.plusDays(day).format(DAY_FORMAT)));
+        }
+        for (int row = 0; row < rows; row++) {
+            int minute = dayStart + row * ROW_MINUTES;
+            PdfPCell time = new PdfPCell(new Phrase(minute % 60 == 0 ? String.format("%02d:00", minute / 60) : "", TEXT_FONT));
+            time.setFixedHeight(rowHeight);
+            time.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            table.addCell(time);
+            for (int day = 0; day < days; day++) {
+                Block block = blocks[day][row];
+                if (block != null) {
+                    table.addCell(sessionCell(view, block));
+                } else if (!covered[day][row]) {
+                    PdfPCell empty = new PdfPCell();
+                    empty.setFixedHeight(rowHeight);
+                    table.addCell(empty);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Groups the sessions of a day, sorted by start, into blocks of grid rows; sessions sharing a
+     * row end up in the same block.
+     */
+    private static List<Block> blocks(List<ScheduleEntry> ofDay, int dayStart, int rows) {
+        List<Block> blocks = new ArrayList<>();
+        Block current = null;
+        for (ScheduleEntry entry : ofDay) {
+            int fromRow = Math.max(0, Math.min(rows - 1, (minuteOfDay(entry.getStartTime()) - dayStart) / ROW_MINUTES));
+            int toRow = Math.max(fromRow + 1, Math.min(rows, (endMinute(entry) - dayStart + ROW_MINUTES - 1) / ROW_MINUTES));
+            if (current != null && fromRow < current.toRow()) {
+                current.entries().add(entry);
+                current = new Block(current.fromRow(), Math.max(current.toRow(), toRow), current.entries());
+                blocks.set(blocks.size() - 1, current);
+            } else {
+                current = new Block(fromRow, toRow, new ArrayList<>(List.of(entry)));
+                blocks.add(current);
+            }
+        }
+        return blocks;
+    }
+
+    private static PdfPCell headerCell(String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, HEADER_FONT));
+        cell.setBackgroundColor(HEADER_COLOR);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        return cell;
+    }
+
+    private static PdfPCell sessionCell(TimetableView view, Block block) {
+        Phrase phrase = new Phrase();
+        boolean cancelled = true;
+        for (ScheduleEntry entry : block.entries()) {
+            if (!phrase.isEmpty()) {
+                phrase.add(new Phrase("\n", TEXT_FONT));
+            }
+            phrase.add(new Phrase(entry.getCourseId() + "\n", COURSE_FONT));
+            String details = entry.getStartTime().format(TIME_FORMAT) + " - " + entry.getEndTime().format(TIME_FORMAT)
+                + "\n" + details(view, entry);
+            if (entry.getStatus() == SessionStatus.CANCELLED) {
+                details += "\n(annulée)";
+            } else {
+                cancelled = false;
+            }
+            phrase.add(new Phrase(details, TEXT_FONT));
+        }
+        PdfPCell cell = new PdfPCell(phrase);
+        cell.setRowspan(block.toRow() - block.fromRow());
+        cell.setBackgroundColor(cancelled ? CANCELLED_COLOR : SESSION_COLOR);
+        return cell;
+    }
+
+    private static String details(TimetableView view, ScheduleEntry entry) {
+        return switch (view) {
+            case GROUP -> "Ens. " + entry.getTeacherId() + " - Salle " + entry.getRoomId();
+            case TEACHER -> "Gr. " + entry.getGroupId() + " - Salle " + entry.getRoomId();
+            case ROOM -> "Gr. " + entry.getGroupId() + " - Ens. " + entry.getTeacherId();
+        };
+    }
+
+    private static int minuteOfDay(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Minute of the start day at which the entry ends, capped at midnight.
+     */
+    private static int endMinute(ScheduleEntry entry) {
+        long days = ChronoUnit.DAYS.between(entry.getStartTime().toLocalDate(), entry.getEndTime().toLocalDate());
+        return days > 0 ? 24 * 60 : minuteOfDay(entry.getEndTime());
+    }
+}
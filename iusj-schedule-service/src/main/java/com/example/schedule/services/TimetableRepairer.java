@@ -0,0 +1,274 @@
+package com.example.schedule.services;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Repairs the timetable after a single disruption (a teacher becoming unavailable or a room going
+ * into maintenance) instead of regenerating it.
+ *
+ * The sessions hit by the disruption and the other sessions of their groups on the same days are
+ * unassigned and re-placed with {@link TimetableSolver} within the weeks concerned; everything
+ * else, including the occurrences of the recurring rules, is frozen. Each session prefers its
+ * current slot and room, so the resulting diff stays small. If the neighbourhood cannot be
+ * re-placed entirely, only the disrupted sessions are re-solved.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimetableRepairer {
+
+    private static final List<DayOfWeek> DEFAULT_DAYS = List.of(
+        DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY
+    );
+    private static final LocalTime DEFAULT_DAY_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_DAY_END = LocalTime.of(18, 0);
+    private static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final int MAX_BACKTRACKS = 5_000;
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleRuleIndex ruleIndex;
+
+    public enum Disruption { TEACHER_UNAVAILABLE, ROOM_MAINTENANCE }
+
+    public record Request(
+        Disruption type,
+        String resourceId,
+        LocalDateTime from,
+        LocalDateTime to,
+        List<DayOfWeek> days,
+        LocalTime dayStart,
+        LocalTime dayEnd,
+        Integer slotMinutes,
+        List<String> roomIds,
+        boolean dryRun
+    ) {}
+
+    public record Change(Long id, LocalDateTime oldStart, LocalDateTime newStart, String oldRoomId, String newRoomId) {}
+
+    public record Plan(int affected, int neighbourhood, List<ScheduleEntry> changed, List<Change> changes, List<Long> unresolved) {}
+
+    public Plan repair(Request request) {
+        validate(request);
+        String field = request.type() == Disruption.TEACHER_UNAVAILABLE ? "teacherId" : "roomId";
+        List<ScheduleEntry> affected = repository.findAll(
+            ScheduleSpecifications.overlapFor(field, request.resourceId(), request.from(), request.to(), null)
+        ).stream().filter(e -> e.getStatus() == SessionStatus.SCHEDULED).toList();
+        if (affected.isEmpty()) {
+            return new Plan(0, 0, List.of(), List.of(), List.of());
+        }
+
+        LocalDate first = affected.stream().map(e -> e.getStartTime().toLocalDate()).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate last = affected.stream().map(e -> e.getStartTime().toLocalDate()).max(Comparator.naturalOrder()).orElseThrow();
+        DateGrid grid = DateGrid.between(
+            first.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+            last.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)),
+            request.dayStart() != null ? request.dayStart() : DEFAULT_DAY_START,
+            request.dayEnd() != null ? request.dayEnd() : DEFAULT_DAY_END,
+            request.slotMinutes() != null ? request.slotMinutes() : DEFAULT_SLOT_MINUTES
+        );
+        List<ScheduleEntry> window = repository.findAll(
+            ScheduleSpecifications.overlapping(grid.lowerBound(), grid.upperBound())
+        );
+        List<Recurrence.Occurrence> occurrences = ruleIndex.occurrences(null, null, null, grid.lowerBound(), grid.upperBound());
+
+        Set<Long> affectedIds = affected.stream().map(ScheduleEntry::getId).collect(Collectors.toSet());
+        Set<String> groupDays = affected.stream()
+            .map(e -> e.getGroupId() + "|" + e.getStartTime().toLocalDate())
+            .collect(Collectors.toSet());
+        List<ScheduleEntry> neighbourhood = window.stream()
+            .filter(e -> !affectedIds.contains(e.getId()))
+            .filter(e -> e.getStatus() == SessionStatus.SCHEDULED && grid.isAligned(e.getStartTime(), e.getEndTime()))
+            .filter(e -> groupDays.contains(e.getGroupId() + "|" + e.getStartTime().toLocalDate()))
+            .toList();
+
+        // Sessions spanning several days or lying outside the grid hours cannot be re-placed
+        List<Long> unresolved = new ArrayList<>();
+        List<ScheduleEntry> repairable = new ArrayList<>();
+        for (ScheduleEntry entry : affected) {
+            int[] range = grid.rangeOf(entry.getStartTime(), entry.getEndTime());
+            if (range != null && entry.getStartTime().toLocalDate().equals(entry.getEndTime().toLocalDate())) {
+                repairable.add(entry);
+            } else {
+                unresolved.add(entry.getId());
+            }
+        }
+
+        List<ScheduleEntry> free = new ArrayList<>(repairable);
+        free.addAll(neighbourhood);
+        Attempt attempt = solve(request, grid, window, occurrences, free, affectedIds);
+        if (attempt.unplacedNeighbours() > 0) {
+            free = new ArrayList<>(repairable);
+            attempt = solve(request, grid, window, occurrences, free, affectedIds);
+        }
+
+        List<ScheduleEntry> changed = new ArrayList<>();
+        List<Change> changes = new ArrayList<>();
+        for (int i = 0; i < free.size(); i++) {
+            ScheduleEntry entry = free.get(i);
+            int start = attempt.solution().start()[i];
+            if (start < 0) {
+                unresolved.add(entry.getId());
+                continue;
+            }
+            // An entry off the slot grid keeps its exact time when it stays on the slots it covers
+            int[] range = grid.rangeOf(entry.getStartTime(), entry.getEndTime());
+            LocalDateTime newStart = start == range[0] ? entry.getStartTime() : grid.timeOf(start);
+            String newRoom = attempt.roomIds().get(attempt.solution().room()[i]);
+            if (newStart.equals(entry.getStartTime()) && Objects.equals(newRoom, entry.getRoomId())) {
+                continue;
+            }
+            changes.add(new Change(entry.getId(), entry.getStartTime(), newStart, entry.getRoomId(), newRoom));
+            entry.setEndTime(newStart.plus(Duration.between(entry.getStartTime(), entry.getEndTime())));
+            entry.setStartTime(newStart);
+            entry.setRoomId(newRoom);
+            changed.add(entry);
+        }
+        return new Plan(affected.size(), free.size() - repairable.size(), changed, changes, unresolved);
+    }
+
+    private record Attempt(TimetableSolver.Solution solution, List<String> roomIds, int unplacedNeighbours) {}
+
+    private Attempt solve(Request request, DateGrid grid, List<ScheduleEntry> window, List<Recurrence.Occurrence> occurrences,
+                          List<ScheduleEntry> free, Set<Long> affectedIds) {
+        Set<Long> freeIds = free.stream().map(ScheduleEntry::getId).collect(Collectors.toSet());
+        Map<String, Integer> teachers = new HashMap<>();
+        Map<String, Integer> groups = new HashMap<>();
+        Map<String, Integer> rooms = new HashMap<>();
+        List<String> roomIds = new ArrayList<>();
+        Map<String, Set<String>> roomsByGroup = new HashMap<>();
+        for (ScheduleEntry entry : window) {
+            teachers.putIfAbsent(entry.getTeacherId(), teachers.size());
+            groups.putIfAbsent(entry.getGroupId(), groups.size());
+            roomsByGroup.computeIfAbsent(entry.getGroupId(), g -> new LinkedHashSet<>()).add(entry.getRoomId());
+            if (rooms.putIfAbsent(entry.getRoomId(), rooms.size()) == null) {
+                roomIds.add(entry.getRoomId());
+            }
+        }
+        for (Recurrence.Occurrence occurrence : occurrences) {
+            teachers.putIfAbsent(occurrence.teacherId(), teachers.size());
+            groups.putIfAbsent(occurrence.groupId(), groups.size());
+            if (rooms.putIfAbsent(occurrence.roomId(), rooms.size()) == null) {
+                roomIds.add(occurrence.roomId());
+            }
+        }
+        if (request.roomIds() != null) {
+            for (String roomId : request.roomIds()) {
+                if (rooms.putIfAbsent(roomId, rooms.size()) == null) {
+                    roomIds.add(roomId);
+                }
+            }
+        }
+        if (request.type() == Disruption.TEACHER_UNAVAILABLE) {
+            teachers.putIfAbsent(request.resourceId(), teachers.size());
+        } else if (rooms.putIfAbsent(request.resourceId(), rooms.size()) == null) {
+            roomIds.add(request.resourceId());
+        }
+
+        TimetableSolver solver = new TimetableSolver(grid.days(), grid.slotsPerDay(), teachers.size(), groups.size(), rooms.size());
+        for (ScheduleEntry entry : window) {
+            // Cancelled sessions still hold their slots, as in the conflict checks of the writes
+            if (freeIds.contains(entry.getId())) {
+                continue;
+            }
+            int[] range = grid.rangeOf(entry.getStartTime(), entry.getEndTime());
+            if (range != null) {
+                solver.block(TimetableSolver.Resource.TEACHER, teachers.get(entry.getTeacherId()), range[0], range[1]);
+                solver.block(TimetableSolver.Resource.GROUP, groups.get(entry.getGroupId()), range[0], range[1]);
+                solver.block(TimetableSolver.Resource.ROOM, rooms.get(entry.getRoomId()), range[0], range[1]);
+            }
+        }
+        for (Recurrence.Occurrence occurrence : occurrences) {
+            int[] range = grid.rangeOf(occurrence.start(), occurrence.end());
+            if (range != null) {
+                solver.block(TimetableSolver.Resource.TEACHER, teachers.get(occurrence.teacherId()), range[0], range[1]);
+                solver.block(TimetableSolver.Resource.GROUP, groups.get(occurrence.groupId()), range[0], range[1]);
+                solver.block(TimetableSolver.Resource.ROOM, rooms.get(occurrence.roomId()), range[0], range[1]);
+            }
+        }
+        int[] disruption = grid.rangeOf(request.from(), request.to());
+        if (disruption != null) {
+            TimetableSolver.Resource resource = request.type() == Disruption.TEACHER_UNAVAILABLE
+                ? TimetableSolver.Resource.TEACHER
+                : TimetableSolver.Resource.ROOM;
+            int index = resource == TimetableSolver.Resource.TEACHER ? teachers.get(request.resourceId()) : rooms.get(request.resourceId());
+            solver.block(resource, index, disruption[0], disruption[1]);
+        }
+
+        long[] allowed = allowedStarts(grid, CollectionUtils.isEmpty(request.days()) ? DEFAULT_DAYS : request.days());
+        for (ScheduleEntry entry : free) {
+            int[] range = grid.rangeOf(entry.getStartTime(), entry.getEndTime());
+            int length = range[1] - range[0];
+            Set<String> candidates = new LinkedHashSet<>();
+            candidates.add(entry.getRoomId());
+            if (request.roomIds() != null) {
+                candidates.addAll(request.roomIds());
+            }
+            candidates.addAll(roomsByGroup.getOrDefault(entry.getGroupId(), Set.of()));
+            int lesson = solver.addLesson(
+                teachers.get(entry.getTeacherId()),
+                groups.get(entry.getGroupId()),
+                length,
+                candidates.stream().mapToInt(rooms::get).toArray(),
+                allowed,
+                -1
+            );
+            solver.prefer(lesson, range[0]);
+        }
+
+        TimetableSolver.Solution solution = solver.solve(MAX_BACKTRACKS);
+        int unplacedNeighbours = 0;
+        for (int i = 0; i < free.size(); i++) {
+            if (!solution.isPlaced(i) && !affectedIds.contains(free.get(i).getId())) {
+                unplacedNeighbours++;
+            }
+        }
+        return new Attempt(solution, roomIds, unplacedNeighbours);
+    }
+
+    /**
+     * Start slots on the allowed week days that are not in the past.
+     */
+    private static long[] allowedStarts(DateGrid grid, List<DayOfWeek> days) {
+        long[] allowed = new long[SlotBits.words(grid.size())];
+        LocalDateTime now = LocalDateTime.now();
+        for (int slot = 0; slot < grid.size(); slot++) {
+            LocalDateTime time = grid.timeOf(slot);
+            if (days.contains(time.getDayOfWeek()) && time.isAfter(now)) {
+                SlotBits.set(allowed, slot);
+            }
+        }
+        return allowed;
+    }
+
+    private void validate(Request request) {
+        if (request == null || request.type() == null || !StringUtils.hasText(request.resourceId())) {
+            throw new IllegalArgumentException("A disruption type and a resourceId are required");
+        }
+        if (request.from() == null || request.to() == null || !request.to().isAfter(request.from())) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.schedule.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constraint solver placing lessons on a grid of {@code days x slotsPerDay} slots.
+ *
+ * Each lesson needs a teacher, a group and one of its candidate rooms for {@code length}
+ * consecutive slots of the same day. The search is a backtracking search that always picks the
+ * most constrained lesson next (fewest remaining start slots, then most neighbours) and applies
+ * forward checking: placing a lesson removes the now impossible start slots from every unplaced
+ * lesson sharing its teacher or group, and a lesson whose domain becomes empty triggers a
+ * backtrack. Backtracking is bounded; once the budget is spent, lessons that cannot be placed are
+ * reported as unplaced instead of exploring the whole search space.
+ *
+ * Resources are dense indexes ({@code 0..count-1}). Slots blocked by {@link #block} form the
+ * frozen part of the timetable and are never released.
+ */
+public final class TimetableSolver {
+
+    public enum Resource { TEACHER, GROUP, ROOM }
+
+    public record Solution(int[] start, int[] room, int placed, int unplaced, int backtracks) {
+
+        public boolean isPlaced(int lesson) {
+            return start[lesson] >= 0;
+        }
+    }
+
+    private final int days;
+    private final int slotsPerDay;
+    private final int gridSize;
+    private final int words;
+    private final long[][] teacherBusy;
+    private final long[][] groupBusy;
+    private final long[][] roomBusy;
+
+    private final List<int[]> lessons = new ArrayList<>();
+    private final List<int[]> lessonRooms = new ArrayList<>();
+    private final List<long[]> lessonAllowed = new ArrayList<>();
+    private final Map<Integer, Integer> preferredStarts = new HashMap<>();
+
+    // Search state
+    private long[][] domain;
+    private int[] domainSize;
+    private int[][] conflictNeighbours;
+    private int[][] spreadNeighbours;
+    private int[] start;
+    private int[] room;
+    private boolean[] assigned;
+    private boolean[] dropped;
+    private int[][] groupDayLoad;
+    private int[] trailLesson = new int[256];
+    private int[] trailWord = new int[256];
+    private long[] trailMask = new long[256];
+    private int trailSize;
+
+    public TimetableSolver(int days, int slotsPerDay, int teachers, int groups, int rooms) {
+        if (days <= 0 || slotsPerDay <= 0) {
+            throw new IllegalArgumentException("Timetable grid must have at least one day and one slot");
+        }
+        this.days = days;
+        this.slotsPerDay = slotsPerDay;
+        this.gridSize = days * slotsPerDay;
+        this.words = SlotBits.words(gridSize);
+        this.teacherBusy = new long[teachers][words];
+        this.groupBusy = new long[groups][words];
+        this.roomBusy = new long[rooms][words];
+    }
+
+    public int days() {
+        return days;
+    }
+
+    public int slotsPerDay() {
+        return slotsPerDay;
+    }
+
+    public int lessonCount() {
+        return lessons.size();
+    }
+
+    /**
+     * Marks {@code [from, to)} as unavailable for a resource, e.g. an existing session or a
+     * teacher unavailability. Bounds are clipped to the grid.
+     */
+    public void block(Resource resource, int index, int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(gridSize, to);
+        if (from >= to) {
+            return;
+        }
+        SlotBits.setRange(busy(resource)[index], from, to);
+    }
+
+    public boolean isBlocked(Resource resource, int index, int from, int to) {
+        return SlotBits.anyInRange(busy(resource)[index], Math.max(0, from), Math.min(gridSize, to));
+    }
+
+    /**
+     * Adds a lesson and returns its index.
+     *
+     * @param rooms candidate rooms in order of preference (best fit first)
+     * @param allowedStarts optional mask of allowed start slots, {@code null} meaning any
+     * @param spreadKey lessons sharing a non-negative key are placed on different days
+     */
+    public int addLesson(int teacher, int group, int length, int[] rooms, long[] allowedStarts, int spreadKey) {
+        if (length <= 0 || length > slotsPerDay) {
+            throw new IllegalArgumentException("Lesson length must fit in one day");
+        }
+        lessons.add(new int[] {teacher, group, length, spreadKey});
+        lessonRooms.add(rooms);
+        lessonAllowed.add(allowedStarts);
+        return lessons.size() - 1;
+    }
+
+    /**
+     * Asks the solver to keep the lesson as close as possible to {@code start}, e.g. its current
+     * position when repairing an existing timetable.
+     */
+    public void prefer(int lesson, int start) {
+        preferredStarts.put(lesson, start);
+    }
+
+    public Solution solve(int maxBacktracks) {
+        int n = lessons.size();
+        initState(n);
+
+        int remaining = 0;
+        for (int l = 0; l < n; l++) {
+            if (domainSize[l] == 0) {
+                dropped[l] = true;
+            } else {
+                remaining++;
+            }
+        }
+
+        List<Frame> stack = new ArrayList<>();
+        int backtracks = 0;
+        while (remaining > 0) {
+            int lesson = selectLesson();
+            Frame frame = new Frame(lesson, candidateStarts(lesson));
+            if (advance(frame)) {
+                stack.add(frame);
+                remaining--;
+                continue;
+            }
+            boolean recovered = false;
+            while (backtracks < maxBacktracks && !stack.isEmpty()) {
+                backtracks++;
+                Frame top = stack.remove(stack.size() - 1);
+                unassign(top);
+                if (advance(top)) {
+                    stack.add(top);
+                    recovered = true;
+                    break;
+                }
+                remaining++;
+            }
+            if (!recovered) {
+                dropped[lesson] = true;
+                remaining--;
+            }
+        }
+
+        int placed = 0;
+        for (int l = 0; l < n; l++) {
+            if (start[l] >= 0) {
+                placed++;
+            }
+        }
+        return new Solution(start.clone(), room.clone(), placed, n - placed, backtracks);
+    }
+
+    private static final class Frame {
+        final int lesson;
+        final int[] starts;
+        int cursor;
+        int mark;
+
+        Frame(int lesson, int[] starts) {
+            this.lesson = lesson;
+            this.starts = starts;
+        }
+    }
+
+    private void initState(int n) {
+        domain = new long[n][];
+        domainSize = new int[n];
+        start = new int[n];
+        room = new int[n];
+        assigned = new boolean[n];
+        dropped = new boolean[n];
+        groupDayLoad = new int[groupBusy.length][days];
+        trailSize = 0;
+        Arrays.fill(start, -1);
+        Arrays.fill(room, -1);
+
+        List<List<Integer>> byTeacher = buckets(teacherBusy.length);
+        List<List<Integer>> byGroup = buckets(groupBusy.length);
+        Map<Integer, List<Integer>> bySpread = new HashMap<>();
+        for (int l = 0; l < n; l++) {
+            int[] lesson = lessons.get(l);
+            byTeacher.get(lesson[0]).add(l);
+            byGroup.get(lesson[1]).add(l);
+            if (lesson[3] >= 0) {
+                bySpread.computeIfAbsent(lesson[3], k -> new ArrayList<>()).add(l);
+            }
+            domain[l] = initialDomain(l);
+            domainSize[l] = SlotBits.cardinality(domain[l]);
+        }
+
+        conflictNeighbours = new int[n][];
+        spreadNeighbours = new int[n][];
+        boolean[] seen = new boolean[n];
+        int[] buffer = new int[n];
+        for (int l = 0; l < n; l++) {
+            int[] lesson = lessons.get(l);
+            int size = 0;
+            seen[l] = true;
+            for (int other : byTeacher.get(lesson[0])) {
+                if (!seen[other]) {
+                    seen[other] = true;
+                    buffer[size++] = other;
+                }
+            }
+            for (int other : byGroup.get(lesson[1])) {
+                if (!seen[other]) {
+                    seen[other] = true;
+                    buffer[size++] = other;
+                }
+            }
+            conflictNeighbours[l] = Arrays.copyOf(buffer, size);
+            seen[l] = false;
+            for (int i = 0; i < size; i++) {
+                seen[buffer[i]] = false;
+            }
+            List<Integer> siblings = lesson[3] >= 0 ? bySpread.get(lesson[3]) : List.of();
+            int self = l;
+            spreadNeighbours[l] = siblings.stream().mapToInt(Integer::intValue).filter(o -> o != self).toArray();
+        }
+    }
+
+    private static List<List<Integer>> buckets(int count) {
+        List<List<Integer>> buckets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        return buckets;
+    }
+
+    private long[] initialDomain(int l) {
+        int[] lesson = lessons.get(l);
+        int length = lesson[2];
+        long[] allowed = lessonAllowed.get(l);
+        long[] bits = new long[words];
+        for (int day = 0; day < days; day++) {
+            int first = day * slotsPerDay;
+            int last = first + slotsPerDay - length;
+            for (int s = first; s <= last; s++) {
+                if (allowed != null && !SlotBits.get(allowed, s)) {
+                    continue;
+                }
+                if (SlotBits.anyInRange(teacherBusy[lesson[0]], s, s + length)
+                    || SlotBits.anyInRange(groupBusy[lesson[1]], s, s + length)) {
+                    continue;
+                }
+                SlotBits.set(bits, s);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Most constrained lesson first: smallest domain, then most neighbours, then longest.
+     */
+    private int selectLesson() {
+        int best = -1;
+        for (int l = 0; l < domainSize.length; l++) {
+            if (assigned[l] || dropped[l]) {
+                continue;
+            }
+            if (best < 0 || domainSize[l] < domainSize[best]
+                || (domainSize[l] == domainSize[best] && degree(l) > degree(best))) {
+                best = l;
+            }
+        }
+        return best;
+    }
+
+    private int degree(int l) {
+        return conflictNeighbours[l].length * slotsPerDay + lessons.get(l)[2];
+    }
+
+    /**
+     * Candidate start slots of a lesson, best first: starts that sit against the existing
+     * sessions of the teacher and the group (or a day boundary) come first so days stay compact
+     * and leave no unusable fragments, then the least loaded days of the group, then the
+     * earliest slot. Lessons with a preferred start try the closest starts first instead.
+     */
+    private int[] candidateStarts(int l) {
+        int[] lesson = lessons.get(l);
+        int length = lesson[2];
+        long[] teacher = teacherBusy[lesson[0]];
+        long[] group = groupBusy[lesson[1]];
+        int[] load = groupDayLoad[lesson[1]];
+        Integer preferred = preferredStarts.get(l);
+        long[] keys = new long[domainSize[l]];
+        int count = 0;
+        for (int s = SlotBits.nextSetBit(domain[l], 0); s >= 0 && count < keys.length; s = SlotBits.nextSetBit(domain[l], s + 1)) {
+            if (preferred != null) {
+                keys[count++] = ((long) Math.abs(s - preferred) << 24) | s;
+                continue;
+            }
+            int day = s / slotsPerDay;
+            int before = s - 1;
+            int after = s + length;
+            boolean dayStart = s % slotsPerDay == 0;
+            boolean dayEnd = after % slotsPerDay == 0;
+            int adjacency = (dayStart || SlotBits.get(teacher, before) ? 1 : 0)
+                + (dayEnd || SlotBits.get(teacher, after) ? 1 : 0)
+                + (dayStart || SlotBits.get(group, before) ? 1 : 0)
+                + (dayEnd || SlotBits.get(group, after) ? 1 : 0);
+            keys[count++] = ((long) (4 - adjacency) << 48) | ((long) load[day] << 24) | s;
+        }
+        Arrays.sort(keys, 0, count);
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = (int) (keys[i] & 0xFFFFFF);
+        }
+        return starts;
+    }
+
+    /**
+     * Tries the next values of the frame's lesson; on success the lesson is assigned.
+     */
+    private boolean advance(Frame frame) {
+        int l = frame.lesson;
+        int length = lessons.get(l)[2];
+        long[] bits = domain[l];
+        while (frame.cursor < frame.starts.length) {
+            int s = frame.starts[frame.cursor++];
+            if (!SlotBits.get(bits, s)) {
+                continue;
+            }
+            int r = freeRoom(l, s, s + length);
+            if (r < 0) {
+                continue;
+            }
+            frame.mark = trailSize;
+            if (assign(l, s, r)) {
+                return true;
+            }
+            unassign(frame);
+        }
+        return false;
+    }
+
+    private int freeRoom(int l, int from, int to) {
+        for (int r : lessonRooms.get(l)) {
+            if (!SlotBits.anyInRange(roomBusy[r], from, to)) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Assigns the lesson and forward-checks its neighbours. Returns false on a domain wipeout,
+     * in which case the caller undoes the assignment.
+     */
+    private boolean assign(int l, int s, int r) {
+        int[] lesson = lessons.get(l);
+        int length = lesson[2];
+        int day = s / slotsPerDay;
+        start[l] = s;
+        room[l] = r;
+        assigned[l] = true;
+        SlotBits.setRange(roomBusy[r], s, s + length);
+        SlotBits.setRange(teacherBusy[lesson[0]], s, s + length);
+        SlotBits.setRange(groupBusy[lesson[1]], s, s + length);
+        groupDayLoad[lesson[1]][day] += length;
+
+        boolean consistent = true;
+        int dayStart = day * slotsPerDay;
+        for (int other : conflictNeighbours[l]) {
+            if (assigned[other] || dropped[other]) {
+                continue;
+            }
+            int from = Math.max(dayStart, s - lessons.get(other)[2] + 1);
+            int to = Math.min(dayStart + slotsPerDay, s + length);
+            if (!prune(other, from, to)) {
+                consistent = false;
+            }
+        }
+        for (int other : spreadNeighbours[l]) {
+            if (assigned[other] || dropped[other]) {
+                continue;
+            }
+            if (!prune(other, dayStart, dayStart + slotsPerDay)) {
+                consistent = false;
+            }
+        }
+        return consistent;
+    }
+
+    private boolean prune(int l, int from, int to) {
+        long[] bits = domain[l];
+        for (int w = from >>> 6; from < to; w++) {
+            long removed = bits[w] & SlotBits.rangeMask(from, to, w);
+            if (removed != 0) {
+                bits[w] &= ~removed;
+                domainSize[l] -= Long.bitCount(removed);
+                pushTrail(l, w, removed);
+            }
+            from = (w + 1) << 6;
+        }
+        return domainSize[l] > 0;
+    }
+
+    private void unassign(Frame frame) {
+        int l = frame.lesson;
+        while (trailSize > frame.mark) {
+            trailSize--;
+            int other = trailLesson[trailSize];
+            long mask = trailMask[trailSize];
+            domain[other][trailWord[trailSize]] |= mask;
+            domainSize[other] += Long.bitCount(mask);
+        }
+        if (assigned[l]) {
+            int[] lesson = lessons.get(l);
+            int end = start[l] + lesson[2];
+            SlotBits.clearRange(roomBusy[room[l]], start[l], end);
+            SlotBits.clearRange(teacherBusy[lesson[0]], start[l], end);
+            SlotBits.clearRange(groupBusy[lesson[1]], start[l], end);
+            groupDayLoad[lesson[1]][start[l] / slotsPerDay] -= lesson[2];
+            assigned[l] = false;
+            start[l] = -1;
+            room[l] = -1;
+        }
+    }
+
+    private void pushTrail(int lesson, int word, long mask) {
+        if (trailSize == trailLesson.length) {
+            int capacity = trailSize * 2;
+            trailLesson = Arrays.copyOf(trailLesson, capacity);
+            trailWord = Arrays.copyOf(trailWord, capacity);
+            trailMask = Arrays.copyOf(trailMask, capacity);
+        }
+        trailLesson[trailSize] = lesson;
+        trailWord[trailSize] = word;
+        trailMask[trailSize] = mask;
+        trailSize++;
+    }
+
+    private long[][] busy(Resource resource) {
+        return switch (resource) {
+            case TEACHER -> teacherBusy;
+            case GROUP -> groupBusy;
+            case ROOM -> roomBusy;
+        };
+    }
+}
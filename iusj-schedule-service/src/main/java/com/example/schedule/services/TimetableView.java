@@ -0,0 +1,40 @@
+package com.example.schedule.services;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Resource a timetable is exported for, with the {@link com.example.schedule.entities.ScheduleEntry}
+ * field that identifies it.
+ */
+public enum TimetableView {
+    GROUP("groupId", "Groupe"),
+    TEACHER("teacherId", "Enseignant"),
+    ROOM("roomId", "Salle");
+
+    private static final Pattern UNSAFE_FILE_NAME = Pattern.compile("[^A-Za-z0-9_-]");
+
+    private final String field;
+    private final String label;
+
+    TimetableView(String field, String label) {
+        this.field = field;
+        this.label = label;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * File name part of a resource of this type in a Content-Disposition header: the lower case
+     * type and the id, every character of the id other than letters, digits, '-' and '_' replaced.
+     */
+    public String fileNameOf(String resourceId) {
+        return name().toLowerCase(Locale.ROOT) + "-" + UNSAFE_FILE_NAME.matcher(resourceId).replaceAll("_");
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.schedule.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.repositories.ScheduleEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Read-through cache of the weekly timetables of groups, teachers and rooms, the most frequent
+ * schedule query.
+ *
+ * Weeks are cached by (view, resource, Monday) and the least recently used ones are evicted past
+ * {@value #MAX_WEEKS} weeks. {@link ScheduleService} invalidates, after each committed write, the
+ * weeks of the room, teacher and group the entry had before and after it. A week loaded while a
+ * write commits could still hold the old data, so a load is only kept if its week has not been
+ * invalidated since the load started. Weeks of past semesters also hold the archived entries,
+ * and weeks covered by a recurring rule its occurrences, invalidated on each write of the rule.
+ */
+@Component
+@RequiredArgsConstructor
+public class WeeklyTimetableCache {
+
+    private static final int MAX_WEEKS = 4096;
+    private static final Sort ORDER = Sort.by("startTime", "id").ascending();
+
+    private final ScheduleEntryRepository repository;
+    private final ScheduleArchive archive;
+    private final ScheduleRuleIndex ruleIndex;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Values are the cached weeks, or a Loading marker while a miss is being loaded
+    private final Map<Key, Object> weeks = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            if (size() > MAX_WEEKS) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public record Key(TimetableView view, String resourceId, LocalDate monday) {}
+
+    public record Stats(int size, int capacity, long hits, long misses, double hitRate, long evictions, long invalidations) {}
+
+    private static final class Loading {}
+
+    /**
+     * Entries and rule occurrences of a group, teacher or room overlapping the week of {@code day},
+     * in (startTime, id) order, occurrences first at equal start.
+     */
+    public List<ScheduleEntry> week(TimetableView view, String resourceId, LocalDate day) {
+        Key key = new Key(view, resourceId, mondayOf(day));
+        Loading loading = new Loading();
+        synchronized (weeks) {
+            Object cached = weeks.get(key);
+            if (cached instanceof List<?> entries) {
+                hits.incrementAndGet();
+                @SuppressWarnings("unchecked")
+                List<ScheduleEntry> result = (List<ScheduleEntry>) entries;
+                return result;
+            }
+            misses.incrementAndGet();
+            if (cached == null) {
+                weeks.put(key, loading);
+            }
+        }
+        LocalDateTime from = key.monday().atStartOfDay();
+        LocalDateTime to = key.monday().plusWeeks(1).atStartOfDay();
+        List<ScheduleEntry> live = repository.findAll(ScheduleSpecifications.overlapFor(view.field(), resourceId, from, to, null), ORDER);
+        List<ScheduleEntry> entries = List.copyOf(Recurrence.merge(
+            ScheduleArchive.merge(live, archive.overlapping(view, resourceId, from, to)),
+            ruleIndex.entries(view, resourceId, from, to)
+        ));
+        synchronized (weeks) {
+            // Only the load that placed the marker fills the week, unless it was invalidated meanwhile
+            if (weeks.get(key) == loading) {
+                weeks.put(key, entries);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Weeks holding the entry in its current state, to be passed to {@link #invalidate} once a
+     * write to it is committed.
+     */
+    public Set<Key> keysOf(ScheduleEntry entry) {
+        Set<Key> keys = new LinkedHashSet<>();
+        addKeys(keys, entry);
+        return keys;
+    }
+
+    public Set<Key> keysOf(Collection<ScheduleEntry> entries) {
+        Set<Key> keys = new LinkedHashSet<>();
+        for (ScheduleEntry entry : entries) {
+            addKeys(keys, entry);
+        }
+        return keys;
+    }
+
+    public void invalidate(Collection<Key> keys) {
+        synchronized (weeks) {
+            for (Key key : keys) {
+                if (weeks.remove(key) != null) {
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (weeks) {
+            invalidations.addAndGet(weeks.size());
+            weeks.clear();
+        }
+    }
+
+    public Stats stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int size;
+        synchronized (weeks) {
+            size = weeks.size();
+        }
+        double hitRate = hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount);
+        return new Stats(size, MAX_WEEKS, hitCount, missCount, hitRate, evictions.get(), invalidations.get());
+    }
+
+    private static void addKeys(Set<Key> keys, ScheduleEntry entry) {
+        LocalDateTime start = entry.getStartTime();
+        LocalDateTime end = entry.getEndTime();
+        if (start == null) {
+            return;
+        }
+        LocalDate first = mondayOf(start.toLocalDate());
+        // The end is exclusive: an entry ending at midnight on Monday does not touch that week
+        LocalDate last = end != null && end.isAfter(start) ? mondayOf(end.minusNanos(1).toLocalDate()) : first;
+        for (LocalDate monday = first; !monday.isAfter(last); monday = monday.plusWeeks(1)) {
+            addKey(keys, TimetableView.GROUP, entry.getGroupId(), monday);
+            addKey(keys, TimetableView.TEACHER, entry.getTeacherId(), monday);
+            addKey(keys, TimetableView.ROOM, entry.getRoomId(), monday);
+        }
+    }
+
+    private static void addKey(Set<Key> keys, TimetableView view, String resourceId, LocalDate monday) {
+        if (resourceId != null && !resourceId.isBlank()) {
+            keys.add(new Key(view, resourceId, monday));
+        }
+    }
+
+    private static LocalDate mondayOf(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,47 @@
+-- Schema previously created by hibernate ddl-auto=update. The tables are only created when
+-- missing, so that existing databases can be baselined by this migration.
+
+CREATE TABLE IF NOT EXISTS schedule_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id VARCHAR(255),
+    teacher_id VARCHAR(255),
+    room_id VARCHAR(255),
+    group_id VARCHAR(255),
+    start_time DATETIME(6),
+    end_time DATETIME(6),
+    status ENUM('CANCELLED', 'COMPLETED', 'SCHEDULED'),
+    version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS schedule_changes (
+    seq BIGINT NOT NULL,
+    entry_id BIGINT NOT NULL,
+    type ENUM('DELETE', 'INSERT', 'UPDATE') NOT NULL,
+    changed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (seq)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS schedule_rules (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id VARCHAR(255),
+    teacher_id VARCHAR(255),
+    room_id VARCHAR(255),
+    group_id VARCHAR(255),
+    first_start DATETIME(6),
+    duration_minutes INTEGER,
+    interval_weeks INTEGER,
+    last_date DATE,
+    version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS schedule_rule_exceptions (
+    rule_id BIGINT NOT NULL,
+    occurrence_date DATE NOT NULL,
+    cancelled BIT NOT NULL,
+    start_time DATETIME(6),
+    end_time DATETIME(6),
+    room_id VARCHAR(255),
+    CONSTRAINT fk_schedule_rule_exceptions_rule FOREIGN KEY (rule_id) REFERENCES schedule_rules (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,28 @@
+-- Composite indexes for the overlap queries, which filter on one resource and a time range.
+CREATE INDEX idx_schedule_entries_room_start ON schedule_entries (room_id, start_time);
+CREATE INDEX idx_schedule_entries_teacher_start ON schedule_entries (teacher_id, start_time);
+CREATE INDEX idx_schedule_entries_group_start ON schedule_entries (group_id, start_time);
+
+-- Every unique key of a partitioned table must contain the partitioning column, so start_time
+-- joins the primary key; id stays its first column and keeps its auto-increment.
+ALTER TABLE schedule_entries
+    MODIFY start_time DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, start_time);
+
+-- One partition per semester of the academic year (September to January, February to August),
+-- named after the month it starts. Partitions ahead of time are added by
+-- SchedulePartitionMaintainer, which splits p_future.
+ALTER TABLE schedule_entries
+    PARTITION BY RANGE COLUMNS (start_time) (
+        PARTITION p_initial VALUES LESS THAN ('2024-09-01 00:00:00'),
+        PARTITION p2024_09 VALUES LESS THAN ('2025-02-01 00:00:00'),
+        PARTITION p2025_02 VALUES LESS THAN ('2025-09-01 00:00:00'),
+        PARTITION p2025_09 VALUES LESS THAN ('2026-02-01 00:00:00'),
+        PARTITION p2026_02 VALUES LESS THAN ('2026-09-01 00:00:00'),
+        PARTITION p2026_09 VALUES LESS THAN ('2027-02-01 00:00:00'),
+        PARTITION p2027_02 VALUES LESS THAN ('2027-09-01 00:00:00'),
+        PARTITION p2027_09 VALUES LESS THAN ('2028-02-01 00:00:00'),
+        PARTITION p2028_02 VALUES LESS THAN ('2028-09-01 00:00:00'),
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,16 @@
+-- Databases baselined from the schema of ddl-auto=update predate the optimistic locking of the
+-- entries: V1 kept their schedule_entries table as it was, without the version column. MySQL has
+-- no ADD COLUMN IF NOT EXISTS, so the column is only added when information_schema lacks it.
+
+SET @add_version = (
+    SELECT IF(COUNT(*) = 0,
+              'ALTER TABLE schedule_entries ADD COLUMN version BIGINT DEFAULT 0 NOT NULL',
+              'DO 0')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE()
+      AND table_name = 'schedule_entries'
+      AND column_name = 'version'
+);
+PREPARE add_version FROM @add_version;
+EXECUTE add_version;
+DEALLOCATE PREPARE add_version;
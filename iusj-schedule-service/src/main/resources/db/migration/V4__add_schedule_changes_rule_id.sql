@@ -0,0 +1,4 @@
+-- Writes to recurrence rules are logged too, with the rule instead of the entry.
+
+ALTER TABLE schedule_changes MODIFY entry_id BIGINT NULL;
+ALTER TABLE schedule_changes ADD COLUMN rule_id BIGINT NULL;
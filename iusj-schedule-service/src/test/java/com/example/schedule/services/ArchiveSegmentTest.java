@@ -0,0 +1,116 @@
+package com.example.schedule.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.schedule.entities.ScheduleEntry;
+import com.example.schedule.entities.SessionStatus;
+
+class ArchiveSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 9, 4, 8, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void decodedSegmentReturnsTheEncodedEntries() throws IOException {
+        List<ScheduleEntry> entries = randomEntries(500, new Random(7));
+        Path file = directory.resolve("segment.bin");
+
+        ArchiveSegment.Header header = ArchiveSegment.write(entries, file);
+        ArchiveSegment segment = ArchiveSegment.read(file);
+        List<ScheduleEntry> decoded = new ArrayList<>();
+        segment.find(null, null, null, null, null, null, decoded);
+
+        List<ScheduleEntry> expected = new ArrayList<>(entries);
+        expected.sort(Comparator.comparing(ScheduleEntry::getStartTime).thenComparing(ScheduleEntry::getId));
+        assertThat(decoded).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameEntry(decoded.get(i), expected.get(i));
+        }
+        assertThat(ArchiveSegment.readHeader(file)).isEqualTo(header);
+        assertThat(segment.header()).isEqualTo(header);
+        assertThat(header.rows()).isEqualTo(entries.size());
+        assertThat(header.minStart()).isEqualTo(expected.get(0).getStartTime());
+        assertThat(header.maxEnd()).isEqualTo(entries.stream().map(ScheduleEntry::getEndTime).max(Comparator.naturalOrder()).get());
+        assertThat(header.minId()).isEqualTo(entries.stream().mapToLong(ScheduleEntry::getId).min().getAsLong());
+        assertThat(header.maxId()).isEqualTo(entries.stream().mapToLong(ScheduleEntry::getId).max().getAsLong());
+    }
+
+    @Test
+    void filtersMatchTheEncodedEntries() throws IOException {
+        List<ScheduleEntry> entries = randomEntries(300, new Random(11));
+        Path file = directory.resolve("segment.bin");
+        ArchiveSegment.write(entries, file);
+        ArchiveSegment segment = ArchiveSegment.read(file);
+
+        LocalDateTime from = START.plusDays(10);
+        LocalDateTime to = START.plusDays(20);
+        List<ScheduleEntry> found = new ArrayList<>();
+        segment.find(null, null, "R2", null, from, to, found);
+        assertThat(found).extracting(ScheduleEntry::getId).containsExactlyInAnyOrderElementsOf(entries.stream()
+            .filter(e -> e.getRoomId().equals("R2") && !e.getStartTime().isBefore(from) && !e.getEndTime().isAfter(to))
+            .map(ScheduleEntry::getId)
+            .toList());
+
+        List<ScheduleEntry> overlapping = new ArrayList<>();
+        segment.overlapping(TimetableView.GROUP, "G1", from, to, overlapping);
+        assertThat(overlapping).extracting(ScheduleEntry::getId).containsExactlyInAnyOrderElementsOf(entries.stream()
+            .filter(e -> e.getGroupId().equals("G1") && e.getStartTime().isBefore(to) && e.getEndTime().isAfter(from))
+            .map(ScheduleEntry::getId)
+            .toList());
+
+        List<ScheduleEntry> unknown = new ArrayList<>();
+        segment.find(null, "T-unknown", null, null, null, null, unknown);
+        assertThat(unknown).isEmpty();
+
+        ScheduleEntry entry = entries.get(123);
+        assertSameEntry(segment.findById(entry.getId()), entry);
+        assertThat(segment.findById(-1)).isNull();
+    }
+
+    private static void assertSameEntry(ScheduleEntry actual, ScheduleEntry expected) {
+        assertThat(actual.getId()).isEqualTo(expected.getId());
+        assertThat(actual.getCourseId()).isEqualTo(expected.getCourseId());
+        assertThat(actual.getTeacherId()).isEqualTo(expected.getTeacherId());
+        assertThat(actual.getRoomId()).isEqualTo(expected.getRoomId());
+        assertThat(actual.getGroupId()).isEqualTo(expected.getGroupId());
+        assertThat(actual.getStartTime()).isEqualTo(expected.getStartTime());
+        assertThat(actual.getEndTime()).isEqualTo(expected.getEndTime());
+        assertThat(actual.getVersion()).isEqualTo(expected.getVersion() != null ? expected.getVersion() : 0L);
+        assertThat(actual.getStatus()).isEqualTo(SessionStatus.COMPLETED);
+    }
+
+    /**
+     * Entries with ids out of start order, shared start times and a missing version.
+     */
+    private static List<ScheduleEntry> randomEntries(int count, Random random) {
+        List<ScheduleEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ScheduleEntry entry = new ScheduleEntry();
+            entry.setId(1_000_000L + i * 7919L % 100_003);
+            entry.setCourseId("C" + random.nextInt(20));
+            entry.setTeacherId("T" + random.nextInt(10));
+            entry.setRoomId("R" + random.nextInt(5));
+            entry.setGroupId("G" + random.nextInt(8));
+            LocalDateTime start = START.plusDays(random.nextInt(30)).plusMinutes(30L * random.nextInt(20));
+            entry.setStartTime(start);
+            entry.setEndTime(start.plusMinutes(30L * (1 + random.nextInt(6))));
+            entry.setStatus(SessionStatus.COMPLETED);
+            entry.setVersion(i % 10 == 0 ? null : (long) random.nextInt(5));
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.schedule.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.schedule.entities.RuleException;
+import com.example.schedule.entities.ScheduleRule;
+import com.example.schedule.repositories.ScheduleRuleRepository;
+
+class RecurrenceTest {
+
+    // A Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 9, 2, 10, 0);
+
+    @Test
+    void overlapOfDifferentPeriodsIsTheFirstCommonWeek() {
+        // a runs on weeks 0, 2, 4...; b on weeks 1, 4, 7...: the first common week is week 4
+        ScheduleRule a = rule(1L, MONDAY, 90, 2, MONDAY.toLocalDate().plusWeeks(20));
+        ScheduleRule b = rule(2L, MONDAY.plusWeeks(1).plusMinutes(30), 60, 3, MONDAY.toLocalDate().plusWeeks(20));
+
+        assertThat(Recurrence.firstRegularOverlap(a, b)).isEqualTo(LocalDate.of(2024, 9, 30));
+        assertThat(Recurrence.firstRegularOverlap(b, a)).isEqualTo(LocalDate.of(2024, 9, 30));
+    }
+
+    @Test
+    void periodsOutOfPhaseNeverOverlap() {
+        // Even weeks against odd weeks: the offset is not a multiple of gcd(2, 4)
+        ScheduleRule a = rule(1L, MONDAY, 120, 2, MONDAY.toLocalDate().plusWeeks(30));
+        ScheduleRule b = rule(2L, MONDAY.plusWeeks(1), 120, 4, MONDAY.toLocalDate().plusWeeks(30));
+
+        assertThat(Recurrence.firstRegularOverlap(a, b)).isNull();
+    }
+
+    @Test
+    void sessionsThatOnlyTouchDoNotOverlap() {
+        ScheduleRule a = rule(1L, MONDAY, 60, 1, MONDAY.toLocalDate().plusWeeks(5));
+        ScheduleRule b = rule(2L, MONDAY.plusHours(1), 60, 1, MONDAY.toLocalDate().plusWeeks(5));
+
+        assertThat(Recurrence.firstRegularOverlap(a, b)).isNull();
+        assertThat(Recurrence.firstRegularOverlap(a, rule(3L, MONDAY.plusMinutes(59), 60, 1, MONDAY.toLocalDate())))
+            .isEqualTo(MONDAY.toLocalDate());
+    }
+
+    @Test
+    void overlapOutsideTheDateRangesIsIgnored() {
+        // b only starts once a has ended
+        ScheduleRule a = rule(1L, MONDAY, 60, 1, MONDAY.toLocalDate().plusWeeks(3));
+        ScheduleRule b = rule(2L, MONDAY.plusWeeks(4), 60, 1, MONDAY.toLocalDate().plusWeeks(8));
+
+        assertThat(Recurrence.firstRegularOverlap(a, b)).isNull();
+    }
+
+    @Test
+    void exceptionsSkipTheOccurrencesTheyReplace() {
+        ScheduleRule a = rule(1L, MONDAY, 60, 1, MONDAY.toLocalDate().plusWeeks(10));
+        ScheduleRule b = rule(2L, MONDAY, 60, 1, MONDAY.toLocalDate().plusWeeks(10));
+        a.getExceptions().add(cancelled(MONDAY.toLocalDate()));
+        b.getExceptions().add(new RuleException(MONDAY.toLocalDate().plusWeeks(1), false,
+            MONDAY.plusWeeks(1).plusDays(2), MONDAY.plusWeeks(1).plusDays(2).plusHours(1), null));
+
+        assertThat(Recurrence.firstRegularOverlap(a, b)).isEqualTo(MONDAY.toLocalDate().plusWeeks(2));
+    }
+
+    @Test
+    void overlapMatchesTheExpansionOfBothRules() {
+        Random random = new Random(42);
+        for (int run = 0; run < 2000; run++) {
+            ScheduleRule a = randomRule(1L, random);
+            ScheduleRule b = randomRule(2L, random);
+
+            assertThat(Recurrence.firstRegularOverlap(a, b))
+                .as("run %d", run)
+                .isEqualTo(expandedOverlap(a, b));
+        }
+    }
+
+    @Test
+    void betweenReplacesMovedAndCancelledOccurrences() {
+        ScheduleRule rule = rule(1L, MONDAY, 60, 1, MONDAY.toLocalDate().plusWeeks(3));
+        LocalDateTime movedStart = MONDAY.plusWeeks(1).plusDays(2).plusHours(4);
+        rule.getExceptions().add(new RuleException(MONDAY.toLocalDate().plusWeeks(1), false,
+            movedStart, movedStart.plusHours(2), "R2"));
+        rule.getExceptions().add(cancelled(MONDAY.toLocalDate().plusWeeks(2)));
+
+        List<Recurrence.Occurrence> occurrences = Recurrence.between(rule, null, null);
+
+        assertThat(occurrences).extracting(Recurrence.Occurrence::start)
+            .containsExactly(MONDAY, movedStart, MONDAY.plusWeeks(3));
+        Recurrence.Occurrence moved = occurrences.get(1);
+        assertThat(moved.moved()).isTrue();
+        assertThat(moved.date()).isEqualTo(MONDAY.toLocalDate().plusWeeks(1));
+        assertThat(moved.roomId()).isEqualTo("R2");
+        assertThat(Recurrence.between(rule, movedStart.minusHours(1), movedStart.plusMinutes(1)))
+            .extracting(Recurrence.Occurrence::date)
+            .containsExactly(MONDAY.toLocalDate().plusWeeks(1));
+    }
+
+    @Test
+    void movedOccurrencesConflictWithTheOtherRule() {
+        // Mondays against Wednesdays with the same teacher: only the moved occurrence overlaps
+        ScheduleRule monday = rule(1L, MONDAY, 120, 1, MONDAY.toLocalDate().plusWeeks(10));
+        ScheduleRule wednesday = rule(2L, MONDAY.plusDays(2), 120, 1, MONDAY.toLocalDate().plusWeeks(10));
+        wednesday.setRoomId("R2");
+        wednesday.setGroupId("G2");
+        ScheduleRuleIndex index = index(monday, wednesday);
+
+        assertThat(index.conflictDate(monday)).isNull();
+
+        LocalDate movedDate = MONDAY.toLocalDate().plusWeeks(2);
+        LocalDateTime movedStart = MONDAY.plusWeeks(2).plusDays(2).plusHours(1);
+        monday.getExceptions().add(new RuleException(movedDate, false, movedStart, movedStart.plusHours(1), null));
+        index = index(monday, wednesday);
+
+        assertThat(index.conflictDate(monday)).isEqualTo(movedDate);
+        assertThat(index.conflictDate(wednesday)).isEqualTo(movedStart.toLocalDate());
+    }
+
+    /**
+     * Date of the first regular occurrence of a overlapping one of b, from both expansions.
+     */
+    private static LocalDate expandedOverlap(ScheduleRule a, ScheduleRule b) {
+        List<LocalDateTime[]> others = regular(b);
+        for (LocalDateTime[] occurrence : regular(a)) {
+            for (LocalDateTime[] other : others) {
+                if (occurrence[0].isBefore(other[1]) && other[0].isBefore(occurrence[1])) {
+                    return occurrence[0].toLocalDate();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<LocalDateTime[]> regular(ScheduleRule rule) {
+        List<LocalDateTime[]> occurrences = new ArrayList<>();
+        for (LocalDateTime start = rule.getFirstStart(); !start.toLocalDate().isAfter(rule.getLastDate());
+             start = start.plusWeeks(rule.getIntervalWeeks())) {
+            LocalDate date = start.toLocalDate();
+            if (rule.getExceptions().stream().noneMatch(e -> e.getOccurrenceDate().equals(date))) {
+                occurrences.add(new LocalDateTime[] {start, start.plusMinutes(rule.getDurationMinutes())});
+            }
+        }
+        return occurrences;
+    }
+
+    private static ScheduleRule randomRule(Long id, Random random) {
+        LocalDateTime firstStart = MONDAY.plusDays(random.nextInt(21)).plusMinutes(15L * random.nextInt(96));
+        int interval = 1 + random.nextInt(4);
+        ScheduleRule rule = rule(id, firstStart, 15 * (1 + random.nextInt(16)), interval,
+            firstStart.toLocalDate().plusDays(random.nextInt(140)));
+        for (LocalDateTime start = firstStart; !start.toLocalDate().isAfter(rule.getLastDate()); start = start.plusWeeks(interval)) {
+            if (random.nextInt(4) == 0) {
+                rule.getExceptions().add(cancelled(start.toLocalDate()));
+            }
+        }
+        return rule;
+    }
+
+    private static ScheduleRule rule(Long id, LocalDateTime firstStart, int durationMinutes, int intervalWeeks, LocalDate lastDate) {
+        ScheduleRule rule = new ScheduleRule();
+        rule.setId(id);
+        rule.setCourseId("C" + id);
+        rule.setTeacherId("T1");
+        rule.setRoomId("R1");
+        rule.setGroupId("G1");
+        rule.setFirstStart(firstStart);
+        rule.setDurationMinutes(durationMinutes);
+        rule.setIntervalWeeks(intervalWeeks);
+        rule.setLastDate(lastDate);
+        return rule;
+    }
+
+    private static RuleException cancelled(LocalDate date) {
+        return new RuleException(date, true, null, null, null);
+    }
+
+    private static ScheduleRuleIndex index(ScheduleRule... rules) {
+        ScheduleRuleRepository repository = mock(ScheduleRuleRepository.class);
+        when(repository.findAll()).thenReturn(List.of(rules));
+        ScheduleRuleIndex index = new ScheduleRuleIndex(repository);
+        index.load();
+        return index;
+    }
+}
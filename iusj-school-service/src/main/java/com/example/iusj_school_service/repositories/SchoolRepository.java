@@ -1,11 +1,17 @@
 package com.example.iusj_school_service.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.iusj_school_service.entities.School;
 
 public interface SchoolRepository extends JpaRepository<School, Long>, JpaSpecificationExecutor<School> {
 
 	long countByStatus(School.Status status);
+
+	@Query("select s.status, count(s) from School s group by s.status")
+	List<Object[]> countGroupedByStatus();
 }
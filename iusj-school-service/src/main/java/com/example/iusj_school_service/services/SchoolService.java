@@ -19,10 +19,12 @@ public class SchoolService {
 
     private final SchoolRepository repository;
     private final FiliereRepository filiereRepository;
+    private final SchoolStatsCounter statsCounter;
 
-    public SchoolService(SchoolRepository repository, FiliereRepository filiereRepository) {
+    public SchoolService(SchoolRepository repository, FiliereRepository filiereRepository, SchoolStatsCounter statsCounter) {
         this.repository = repository;
         this.filiereRepository = filiereRepository;
+        this.statsCounter = statsCounter;
     }
 
     public List<School> getAll(String name, School.Status status) {
@@ -41,11 +43,14 @@ public class SchoolService {
                 filiere.setSchool(school);
             }
         }
-        return repository.save(school);
+        School saved = repository.save(school);
+        statsCounter.created(saved.getStatus());
+        return saved;
     }
 
     public Optional<School> update(Long id, School school) {
         return repository.findById(id).map(existing -> {
+            School.Status before = existing.getStatus();
             school.setId(id);
             
             // Clear existing filieres and add updated ones
@@ -67,18 +72,23 @@ public class SchoolService {
             existing.setEmail(school.getEmail());
             existing.setStatus(school.getStatus());
             
-            return repository.save(existing);
+            School saved = repository.save(existing);
+            statsCounter.changed(before, saved.getStatus());
+            return saved;
         });
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(existing -> {
+            repository.delete(existing);
+            statsCounter.deleted(existing.getStatus());
+        });
     }
 
     public SchoolStats stats() {
-        long total = repository.count();
-        long active = repository.countByStatus(School.Status.ACTIVE);
-        long inactive = repository.countByStatus(School.Status.INACTIVE);
+        long total = statsCounter.total();
+        long active = statsCounter.count(School.Status.ACTIVE);
+        long inactive = statsCounter.count(School.Status.INACTIVE);
         return new SchoolStats(total, active, inactive);
     }
 
@@ -0,0 +1,27 @@
+package com.example.iusj_school_service.services;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.iusj_school_service.entities.School;
+import com.example.iusj_school_service.repositories.SchoolRepository;
+
+/**
+ * Nombre d'écoles, au total et par {@link School.Status statut}.
+ */
+@Component
+public class SchoolStatsCounter extends StatusCounter<School.Status> {
+
+    private final SchoolRepository repository;
+
+    public SchoolStatsCounter(SchoolRepository repository) {
+        super(School.Status.class);
+        this.repository = repository;
+    }
+
+    @Override
+    protected List<Object[]> countGroupedByStatus() {
+        return repository.countGroupedByStatus();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.iusj_school_service.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Total et nombre par statut d'une entité, tenus en mémoire pour les statistiques des écoles.
+ *
+ * Le service signale chaque écriture, appliquée une fois la transaction validée ; une requête
+ * {@code GROUP BY status} recale les compteurs au démarrage puis périodiquement, pour corriger
+ * les écarts dus aux écritures concurrentes ou faites hors du service.
+ */
+public abstract class StatusCounter<S extends Enum<S>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusCounter.class);
+
+    private final Class<S> type;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray byStatus;
+    private volatile boolean ready;
+
+    protected StatusCounter(Class<S> type) {
+        this.type = type;
+        this.byStatus = new AtomicLongArray(type.getEnumConstants().length);
+    }
+
+    /**
+     * Lignes (statut, nombre) de la table, statut nul compris.
+     */
+    protected abstract List<Object[]> countGroupedByStatus();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${stats.reconcile-interval-ms:300000}", initialDelayString = "${stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            long[] counts = new long[byStatus.length()];
+            long sum = 0;
+            for (Object[] row : countGroupedByStatus()) {
+                long count = ((Number) row[1]).longValue();
+                sum += count;
+                if (row[0] != null) {
+                    counts[type.cast(row[0]).ordinal()] = count;
+                }
+            }
+            for (int i = 0; i < counts.length; i++) {
+                byStatus.set(i, counts[i]);
+            }
+            total.set(sum);
+            ready = true;
+        } catch (RuntimeException e) {
+            logger.warn("Statistiques non recalées : {}", e.getMessage());
+        }
+    }
+
+    public long total() {
+        ensureReady();
+        return total.get();
+    }
+
+    public long count(S status) {
+        ensureReady();
+        return byStatus.get(status.ordinal());
+    }
+
+    public void created(S status) {
+        afterCommit(() -> {
+            total.incrementAndGet();
+            add(status, 1);
+        });
+    }
+
+    public void changed(S before, S after) {
+        if (before != after) {
+            afterCommit(() -> {
+                add(before, -1);
+                add(after, 1);
+            });
+        }
+    }
+
+    public void deleted(S status) {
+        afterCommit(() -> {
+            total.decrementAndGet();
+            add(status, -1);
+        });
+    }
+
+    private void add(S status, long delta) {
+        if (status != null) {
+            byStatus.addAndGet(status.ordinal(), delta);
+        }
+    }
+
+    private void ensureReady() {
+        if (!ready) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Applique la modification après la validation de la transaction en cours, ou tout de suite
+     * s'il n'y en a pas.
+     */
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}